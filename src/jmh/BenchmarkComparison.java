@@ -0,0 +1,79 @@
+package jmh;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compares two JMH JSON result files to catch throughput regressions between
+ * releases.
+ */
+public class BenchmarkComparison {
+
+    // The name of a benchmark and the score of its primary metric, in JMH's JSON
+    private static final Pattern RESULT = Pattern.compile(
+            "\"benchmark\"\\s*:\\s*\"([^\"]+)\".*?\"primaryMetric\"\\s*:\\s*\\{\\s*\"score\"\\s*:\\s*([0-9.eE+-]+)",
+            Pattern.DOTALL);
+
+    /**
+     * Prints the change of every benchmark and exits with status 1 on a regression.
+     *
+     * @param args the baseline file, the new file and the allowed slowdown in percent (default 10)
+     */
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            throw new IllegalArgumentException("Usage: <baseline.json> <new.json> [percent]");
+        }
+        double tolerance = args.length > 2 ? Double.parseDouble(args[2]) / 100 : 0.1;
+        boolean regressed = compare(read(Paths.get(args[0])), read(Paths.get(args[1])), tolerance);
+        System.exit(regressed ? 1 : 0);
+    }
+
+    /**
+     * Prints the change of every benchmark found in both files.
+     *
+     * @param baseline the scores of the earlier run, by benchmark name
+     * @param current the scores of the new run, by benchmark name
+     * @param tolerance the allowed slowdown as a fraction
+     * @return whether any benchmark got slower by more than the tolerance
+     */
+    static boolean compare(Map<String, Double> baseline, Map<String, Double> current, double tolerance) {
+        boolean regressed = false;
+        for (Map.Entry<String, Double> entry : baseline.entrySet()) {
+            Double score = current.get(entry.getKey());
+            if (score == null) {
+                continue;
+            }
+            double change = score / entry.getValue() - 1;
+            boolean slower = change < -tolerance;
+            regressed |= slower;
+            System.out.printf(Locale.ROOT, "%-40s %16.1f -> %16.1f ops/s %+7.1f%%%s%n", entry.getKey(),
+                    entry.getValue(), score, change * 100, slower ? "  REGRESSION" : "");
+        }
+        return regressed;
+    }
+
+    /**
+     * Reads the throughput scores of a JMH result file, by benchmark name.
+     */
+    static Map<String, Double> read(Path file) {
+        Map<String, Double> scores = new LinkedHashMap<>();
+        try {
+            Matcher matcher = RESULT.matcher(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+            while (matcher.find()) {
+                scores.put(matcher.group(1), Double.parseDouble(matcher.group(2)));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return scores;
+    }
+}
@@ -0,0 +1,175 @@
+package jmh;
+
+import main.java.Board;
+import main.java.Color;
+import main.java.Move;
+import main.java.sim.Game;
+import main.java.sim.RandomPlayer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.Point;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the Board operations the game and the engines spend their time in.
+ *
+ * The single-square and single-player operations cycle through a fixed set of
+ * positions taken from seeded random games, so that every run measures the
+ * same work and the branch predictors cannot learn one position. Every
+ * benchmark runs in a JVM of its own, so the profile one leaves behind does
+ * not slow down the next.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmarks {
+
+    private static final int POSITIONS = 256;
+
+    private static final long POSITION_SEED = 20240101L;
+
+    private final Board[] boards = new Board[POSITIONS];
+
+    private final Color[] players = new Color[POSITIONS];
+
+    // A square of the position holding a piece
+    private final int[] pieceRows = new int[POSITIONS];
+    private final int[] pieceCols = new int[POSITIONS];
+
+    // Any square of the position
+    private final int[] rows = new int[POSITIONS];
+    private final int[] cols = new int[POSITIONS];
+
+    private final int[] moves = new int[Board.MAX_MOVES];
+
+    private RandomPlayer white;
+
+    private RandomPlayer black;
+
+    private int cursor;
+
+    /**
+     * Plays the seeded random games the positions are taken from.
+     */
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(POSITION_SEED);
+        Board board = new Board();
+        int size = board.getGeometry().getSize();
+        Color player = Color.WHITE;
+        int[] buffer = new int[Board.MAX_MOVES];
+        for (int i = 0; i < POSITIONS; i++) {
+            int count = board.generateMoves(player, buffer);
+            int move = count == 0 ? Move.PASS : buffer[random.nextInt(count)];
+            board.makeMove(move);
+            if (board.checkWin() != null || (count == 0 && random.nextInt(4) == 0)) {
+                board = new Board(); // Start over rather than sit in a frozen or won position
+                player = Color.WHITE;
+            } else {
+                player = player.opposite();
+            }
+            boards[i] = new Board(board);
+            players[i] = player;
+            long pieces = board.getPieces(Color.BLACK) | board.getPieces(Color.WHITE);
+            int skip = random.nextInt(Long.bitCount(pieces));
+            for (int j = 0; j < skip; j++) {
+                pieces &= pieces - 1;
+            }
+            int pieceSquare = Long.numberOfTrailingZeros(pieces);
+            pieceRows[i] = pieceSquare / size;
+            pieceCols[i] = pieceSquare % size;
+            rows[i] = random.nextInt(size);
+            cols[i] = random.nextInt(size);
+        }
+        white = new RandomPlayer(1);
+        black = new RandomPlayer(2);
+        cursor = 0;
+    }
+
+    @Benchmark
+    public long constructor() {
+        return new Board().getHash();
+    }
+
+    @Benchmark
+    public int legalMoves() {
+        int i = next();
+        return boards[i].legalMoves(pieceRows[i], pieceCols[i]).size();
+    }
+
+    @Benchmark
+    public boolean isMovable() {
+        int i = next();
+        return boards[i].isMovable(rows[i], cols[i]);
+    }
+
+    @Benchmark
+    public List<Point> inCheck() {
+        int i = next();
+        return boards[i].inCheck(players[i]);
+    }
+
+    @Benchmark
+    public boolean mustPass() {
+        int i = next();
+        return boards[i].mustPass(players[i]);
+    }
+
+    @Benchmark
+    public Color checkWin() {
+        return boards[next()].checkWin();
+    }
+
+    @Benchmark
+    public List<Color> getSurroundingColors() {
+        int i = next();
+        return boards[i].getSurroundingColors(rows[i], cols[i]);
+    }
+
+    @Benchmark
+    public int generateMoves() {
+        int i = next();
+        return boards[i].generateMoves(players[i], moves);
+    }
+
+    @Benchmark
+    public long makeUnmakeMove() {
+        int i = next();
+        Board board = boards[i];
+        int count = board.generateMoves(players[i], moves);
+        long hash = 0;
+        for (int j = 0; j < count; j++) {
+            board.makeMove(moves[j]);
+            hash ^= board.getHash();
+            board.unmakeMove(moves[j]);
+        }
+        return hash;
+    }
+
+    @Benchmark
+    public int randomGame() {
+        return Game.play(white, black, Game.DEFAULT_MAX_PLIES).getLength();
+    }
+
+    /**
+     * Returns the index of the next position to use.
+     */
+    private int next() {
+        cursor = (cursor + 1) & (POSITIONS - 1);
+        return cursor;
+    }
+}
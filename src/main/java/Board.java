@@ -1,8 +1,9 @@
 package main.java;
 
+import main.java.metrics.Metrics;
+
 import java.awt.*;
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
 
 /**
@@ -17,24 +18,77 @@ import java.util.List;
  * orthogonally or diagonally, with at least one other piece of the same type."
  *
  * https://en.wikipedia.org/wiki/Entropy_(1994_board_game)
+ *
+ * Variants on other board sizes, up to 8x8, and with other numbers of pieces
+ * are made with a Geometry; the constants below describe the standard game.
  */
 
 public class Board {
 
-    private final boolean CHECK_REP_ON = true;
+    // Whether every public method checks the representation invariant. The check
+    // recomputes the movable pieces and the hash, so it is only on when assertions
+    // are enabled for this class (as in tests), unless the system property
+    // entropy.checkRep says otherwise. Being a static final constant, the JIT
+    // drops the calls entirely when it is off.
+    private static final boolean CHECK_REP_ON = System.getProperty("entropy.checkRep") != null
+            ? Boolean.getBoolean("entropy.checkRep")
+            : Board.class.desiredAssertionStatus();
+
+    // The size of the standard board, and the constants below are for it
+    public static final int BOARD_SIZE = 5;
 
-    private final int BOARD_SIZE = 5;
+    // No piece can slide to more than 2 * (BOARD_SIZE - 1) squares
+    public static final int MAX_MOVES = 7 * 2 * (BOARD_SIZE - 1);
+
+    public static final int NUM_SQUARES = BOARD_SIZE * BOARD_SIZE;
+
+    private static final Geometry STANDARD = Geometry.of(BOARD_SIZE);
 
     // Abstraction Function:
-    // The 2-D array, entBoard, is a NxN array of Pieces that represents where
-    // the pieces are arranged on the board.
+    // The two bit masks, black and white, represent where the pieces are
+    // arranged on a board of geometry.getSize() squares a side. The square at
+    // (row, col) is bit row * geometry.getSize() + col;
+    // if that bit is set in black (white) there is a BLACK (WHITE) piece on it,
+    // and if it is set in neither the square is empty.
 
     // Representation Invariant:
-    // entBoard contains 7 BLACK pieces &&
-    // entBoard contains 7 WHITE pieces &&
-    // entBoard contains 11 null (or empty spaces)
+    // black & white == 0 &&
+    // black and white only use the squares of geometry &&
+    // black contains blackPieces set bits (BLACK pieces, 7 on a standard board) &&
+    // white contains whitePieces set bits (WHITE pieces, 7 on a standard board) &&
+    // movableBlack (movableWhite) holds exactly the BLACK (WHITE) pieces that
+    // touch another piece of their color &&
+    // rescueBlack (rescueWhite) holds exactly the squares next to a BLACK (WHITE)
+    // piece in check &&
+    // rescueMovesBlack (rescueMovesWhite) is the number of slides of a movable
+    // BLACK (WHITE) piece that end on one of its rescue squares &&
+    // hash is the XOR of the keys of every piece on the board
+
+    private Geometry geometry;
+
+    private long black;
+
+    private long white;
+
+    private int blackPieces;
+
+    private int whitePieces;
+
+    // The following are derived from black and white and updated incrementally as pieces move
 
-    private Piece[][] entBoard;
+    private long movableBlack;
+
+    private long movableWhite;
+
+    private long rescueBlack;
+
+    private long rescueWhite;
+
+    private int rescueMovesBlack;
+
+    private int rescueMovesWhite;
+
+    private long hash;
 
     /**
      * Creates a new Board object with all of the Pieces in the initial position.
@@ -43,26 +97,157 @@ public class Board {
      * @spec.effects constructs a new board object
      */
     public Board() {
-        entBoard = new Piece[BOARD_SIZE][BOARD_SIZE];
-
-        // Setup
-        for (int i = 0; i < BOARD_SIZE; i++) { // Top row
-            entBoard[0][i] = new Piece(0, i, Color.BLACK);
-        }
+        this(STANDARD);
+    }
 
-        entBoard[1][0] = new Piece(1, 0, Color.BLACK); // Second row from top
-        entBoard[1][4] = new Piece(1, 4, Color.BLACK);
+    /**
+     * Creates a board of any supported size with the pieces in the initial
+     * position: each player's back row and both ends of the row in front of it.
+     *
+     * @param geometry the size of the board
+     * @throws IllegalArgumentException if the board is smaller than 4x4
+     * @spec.effects constructs a new board object with geometry.getSize() + 2 pieces a side
+     */
+    public Board(Geometry geometry) throws IllegalArgumentException {
+        init(geometry, geometry.standardBlack(), geometry.standardWhite());
+    }
 
-        entBoard[3][0] = new Piece(3, 0, Color.WHITE); // Second row from bottom
-        entBoard[3][4] = new Piece(3, 4, Color.WHITE);
+    /**
+     * Creates a new Board object from a pair of square masks.
+     *
+     * @param black mask of the squares holding BLACK pieces, bit row * 5 + col
+     * @param white mask of the squares holding WHITE pieces, bit row * 5 + col
+     * @throws IllegalArgumentException if the masks overlap, use squares off the board,
+     *                                  or do not hold 7 pieces each
+     * @spec.effects constructs a new board object
+     */
+    public Board(long black, long white) throws IllegalArgumentException {
+        if (Long.bitCount(black) != 7 || Long.bitCount(white) != 7) {
+            throw new IllegalArgumentException("Each player must have 7 pieces");
+        }
+        init(STANDARD, black, white);
+    }
 
-        for (int i = 0; i < BOARD_SIZE; i++) { // Bottom row
-            entBoard[4][i] = new Piece(4, i, Color.WHITE);
+    /**
+     * Creates a board of any supported size from a pair of square masks, with
+     * any number of pieces a side.
+     *
+     * @param geometry the size of the board
+     * @param black mask of the squares holding BLACK pieces, bit row * size + col
+     * @param white mask of the squares holding WHITE pieces, bit row * size + col
+     * @throws IllegalArgumentException if the masks overlap, use squares off the board,
+     *                                  or either one is empty
+     * @spec.effects constructs a new board object
+     */
+    public Board(Geometry geometry, long black, long white) throws IllegalArgumentException {
+        if (black == 0 || white == 0) {
+            throw new IllegalArgumentException("Each player must have a piece");
         }
+        init(geometry, black, white);
+    }
+
+    /**
+     * Creates a copy of another board.
+     *
+     * @param other the board to copy
+     * @spec.effects constructs a new board object in the same position as other
+     */
+    public Board(Board other) {
+        copyFrom(other);
+    }
 
+    /**
+     * Overwrites this board with the position of another board without allocating.
+     *
+     * @param other the board to copy
+     * @spec.modifies this
+     * @spec.effects this is now in the same position as other
+     */
+    public void copyFrom(Board other) {
+        this.geometry = other.geometry;
+        this.black = other.black;
+        this.white = other.white;
+        this.blackPieces = other.blackPieces;
+        this.whitePieces = other.whitePieces;
+        this.movableBlack = other.movableBlack;
+        this.movableWhite = other.movableWhite;
+        this.rescueBlack = other.rescueBlack;
+        this.rescueWhite = other.rescueWhite;
+        this.rescueMovesBlack = other.rescueMovesBlack;
+        this.rescueMovesWhite = other.rescueMovesWhite;
+        this.hash = other.hash;
         checkRep();
     }
 
+    /**
+     * Returns the size of the board and its tables.
+     */
+    public Geometry getGeometry() {
+        return geometry;
+    }
+
+    /**
+     * Returns the size of a move buffer generateMoves never overflows on this board.
+     *
+     * @return MAX_MOVES on a standard board
+     */
+    public int getMaxMoves() {
+        return geometry.maxMoves(Math.max(blackPieces, whitePieces));
+    }
+
+    /**
+     * Returns the mask of the squares holding a player's pieces.
+     *
+     * @param player the player whose pieces we want
+     * @return a mask with bit row * size + col set for every piece of that player
+     */
+    public long getPieces(Color player) {
+        return player == Color.BLACK ? black : white;
+    }
+
+    /**
+     * Returns the mask of a player's pieces that touch another piece of their color.
+     *
+     * @param player the player whose pieces we want
+     * @return a mask of the pieces that are allowed to move
+     */
+    public long getMovablePieces(Color player) {
+        return player == Color.BLACK ? movableBlack : movableWhite;
+    }
+
+    /**
+     * Returns the mask of a player's pieces that are in check, ie that touch no
+     * other piece of their color.
+     *
+     * @param player the player whose pieces we want
+     * @return a mask of the pieces in check
+     */
+    public long getIsolatedPieces(Color player) {
+        return player == Color.BLACK ? black ^ movableBlack : white ^ movableWhite;
+    }
+
+    /**
+     * Returns the player with more pieces in check, who is the closer of the
+     * two to the win checkWin looks for. Games cut short, like Monte Carlo
+     * playouts and tournament games at the ply limit, are scored with it.
+     *
+     * @return the player with more pieces in check, null if both have as many
+     */
+    public Color getIsolationLeader() {
+        int isolatedBlack = Long.bitCount(getIsolatedPieces(Color.BLACK));
+        int isolatedWhite = Long.bitCount(getIsolatedPieces(Color.WHITE));
+        return isolatedBlack == isolatedWhite ? null : isolatedBlack > isolatedWhite ? Color.BLACK : Color.WHITE;
+    }
+
+    /**
+     * Returns a 64-bit hash of the position, kept up to date as pieces move.
+     *
+     * @return the XOR of the Zobrist key of every piece on the board
+     */
+    public long getHash() {
+        return hash;
+    }
+
     /**
      * Returns the piece at a given square.
      *
@@ -72,11 +257,11 @@ public class Board {
      * @return the color of the piece*/
     public Piece getPieceAtSquare(int x, int y) throws IllegalArgumentException {
         checkRep();
-        if (x < 0 || x >= BOARD_SIZE || y < 0 || y >= BOARD_SIZE) {
+        if (!geometry.isOnBoard(x, y)) {
             throw new IllegalArgumentException("Coordinate out of bounds");
         }
-        checkRep();
-        return entBoard[x][y];
+        Color color = colorAt(x, y);
+        return color == null ? null : new Piece(x, y, color);
     }
 
     /**
@@ -94,24 +279,59 @@ public class Board {
      */
     public void movePiece(int startX, int startY, int endX, int endY) throws IllegalArgumentException {
         checkRep();
-        if (entBoard[startX][startY] == null) { // No piece at starting position
+        if (colorAt(startX, startY) == null) { // No piece at starting position
             throw new IllegalArgumentException("No piece in selected position");
         } else if (!isMovable(startX, startY)) {
             // Piece is not adjacent to any other piece of its color (not allowed to move)
             throw new IllegalArgumentException("Piece is not movable");
         }
         // Illegal end positions
-        if (endX < 0 || endX >= BOARD_SIZE || endY < 0 || endY >= BOARD_SIZE) { // Off the board
+        if (!geometry.isOnBoard(endX, endY)) { // Off the board
             throw new IllegalArgumentException("Not a square on the board");
         }
-        Point move = new Point(endX, endY);
-        if (!legalMoves(startX, startY).contains(move)) { // Not a legal move for the piece
+        if ((geometry.slideTargets(geometry.square(startX, startY), black | white) & geometry.bit(endX, endY)) == 0) { // Not a legal move for the piece
             throw new IllegalArgumentException("Not a legal move for the piece");
         }
 
-        // Move piece
-        entBoard[endX][endY] = entBoard[startX][startY];
-        entBoard[startX][startY] = null;
+        makeMove(Move.encode(geometry.square(startX, startY), geometry.square(endX, endY)));
+    }
+
+    /**
+     * Plays a move without checking that it is legal.
+     *
+     * Only the squares around the two squares of the move are looked at to keep
+     * the movable pieces and the hash up to date.
+     *
+     * @param move a move encoded by Move, or Move.PASS
+     * @spec.requires move is PASS or was produced by generateMoves for this position
+     * @spec.modifies this
+     * @spec.effects moves one piece, unless the move is a pass
+     */
+    public void makeMove(int move) {
+        if (Metrics.ENABLED) {
+            Metrics.MAKE_MOVES.increment();
+        }
+        if (move != Move.PASS) {
+            slidePiece(Move.from(move), Move.to(move));
+        }
+        checkRep();
+    }
+
+    /**
+     * Takes back a move played by makeMove.
+     *
+     * @param move the last move passed to makeMove
+     * @spec.requires move is the last move played on this board and not yet taken back
+     * @spec.modifies this
+     * @spec.effects this is in the position it was in before the move
+     */
+    public void unmakeMove(int move) {
+        if (Metrics.ENABLED) {
+            Metrics.UNMAKE_MOVES.increment();
+        }
+        if (move != Move.PASS) {
+            slidePiece(Move.to(move), Move.from(move));
+        }
         checkRep();
     }
 
@@ -124,16 +344,10 @@ public class Board {
     public List<Point> inCheck(Color player) {
         checkRep();
         List<Point> points = new ArrayList<>();
-        for (int i = 0; i < BOARD_SIZE; i++) {
-            for (int j = 0; j < BOARD_SIZE; j++) {
-                if (entBoard[i][j] != null
-                        && entBoard[i][j].getColor() == player
-                        && !getSurroundingColors(i, j).contains(player)) {
-                    points.add(new Point(i, j));
-                }
-            }
+        for (long rest = getIsolatedPieces(player); rest != 0; rest &= rest - 1) {
+            int square = Long.numberOfTrailingZeros(rest);
+            points.add(new Point(square / geometry.getSize(), square % geometry.getSize()));
         }
-        checkRep();
         return points;
     }
 
@@ -147,42 +361,91 @@ public class Board {
      */
     public List<Point> legalMoves(int pieceX, int pieceY) throws IllegalArgumentException {
         checkRep();
-        if (entBoard[pieceX][pieceY] == null) { // No piece at starting position
+        long start = Metrics.ENABLED ? System.nanoTime() : 0;
+        if (colorAt(pieceX, pieceY) == null) { // No piece at starting position
             throw new IllegalArgumentException("No piece in selected position");
         }
         List<Point> listCoordinates = new ArrayList<>();
-        int steps = 1;
-        while (pieceX - steps >= 0 && entBoard[pieceX - steps][pieceY] == null) {
-            // Legal move above the piece (haven't hit top or another piece)
-            Point point = new Point(pieceX - steps, pieceY);
-            listCoordinates.add(point);
-            steps++;
-        }
-        steps = 1;
-        while (pieceX + steps <= BOARD_SIZE - 1 && entBoard[pieceX + steps][pieceY] == null) {
-            // Legal move below the piece (haven't hit bottom or another piece)
-            Point point = new Point(pieceX + steps, pieceY);
-            listCoordinates.add(point);
-            steps++;
-        }
-        steps = 1;
-        while (pieceY - steps >= 0 && entBoard[pieceX][pieceY - steps] == null) {
-            // Legal move left of the piece (haven't hit leftmost or another piece)
-            Point point = new Point(pieceX, pieceY - steps);
-            listCoordinates.add(point);
-            steps++;
-        }
-        steps = 1;
-        while (pieceY + steps <= BOARD_SIZE - 1 && entBoard[pieceX][pieceY + steps] == null) {
-            // Legal move right of the piece (haven't hit rightmost or another piece)
-            Point point = new Point(pieceX, pieceY + steps);
-            listCoordinates.add(point);
-            steps++;
+        int square = geometry.square(pieceX, pieceY);
+        long occupied = black | white;
+        // Above and left are listed nearest first, which is the highest bit first
+        addSquares(listCoordinates, geometry.rayTargets(Geometry.UP, square, occupied), true);
+        addSquares(listCoordinates, geometry.rayTargets(Geometry.DOWN, square, occupied), false);
+        addSquares(listCoordinates, geometry.rayTargets(Geometry.LEFT, square, occupied), true);
+        addSquares(listCoordinates, geometry.rayTargets(Geometry.RIGHT, square, occupied), false);
+        if (Metrics.ENABLED) {
+            Metrics.LEGAL_MOVES.recordSince(start);
         }
-        checkRep();
         return listCoordinates;
     }
 
+    /**
+     * Writes every move a player may make into a buffer, considering checks.
+     *
+     * A move is encoded by Move. When the player has pieces in check, only the
+     * moves that end next to one of them are generated, as StartTwoPlayerGame
+     * requires. A return value of 0 means the player has to pass.
+     *
+     * @param player the player to move
+     * @param moves the buffer the moves are written to, starting at index 0
+     * @return the number of moves written
+     * @spec.requires moves.length >= getMaxMoves()
+     * @spec.modifies moves
+     */
+    public int generateMoves(Color player, int[] moves) {
+        return generateMoves(geometry, getMovablePieces(player), getIsolatedPieces(player), black | white, moves);
+    }
+
+    /**
+     * Writes every move of a player into a buffer for a position given as masks,
+     * with the same rules and order as the instance method.
+     *
+     * Unlike a Board, the masks may hold any number of pieces, which lets
+     * solvers work on positions with less material than the game starts with.
+     *
+     * @param pieces the mask of the player's pieces
+     * @param opponents the mask of the other player's pieces
+     * @param moves the buffer the moves are written to, starting at index 0
+     * @return the number of moves written, 0 if the player has to pass
+     * @spec.requires pieces and opponents are disjoint masks of squares on the board
+     *                and moves.length >= 2 * (BOARD_SIZE - 1) * bitCount(pieces)
+     * @spec.modifies moves
+     */
+    public static int generateMoves(long pieces, long opponents, int[] moves) {
+        return generateMoves(STANDARD, pieces, opponents, moves);
+    }
+
+    /**
+     * Writes every move of a player into a buffer for a position given as
+     * masks on a board of any supported size.
+     *
+     * @param geometry the size of the board
+     * @param pieces the mask of the player's pieces
+     * @param opponents the mask of the other player's pieces
+     * @param moves the buffer the moves are written to, starting at index 0
+     * @return the number of moves written, 0 if the player has to pass
+     * @spec.requires pieces and opponents are disjoint masks of squares of geometry
+     *                and moves.length >= geometry.maxMoves(bitCount(pieces))
+     * @spec.modifies moves
+     */
+    public static int generateMoves(Geometry geometry, long pieces, long opponents, int[] moves) {
+        long movable = geometry.movablePieces(pieces);
+        return generateMoves(geometry, movable, pieces ^ movable, pieces | opponents, moves);
+    }
+
+    /**
+     * Counts the moves generateMoves would write, without writing them.
+     *
+     * @param player the player to move
+     * @return the number of legal moves, considering checks
+     */
+    public int countMoves(Color player) {
+        if (getRescueSquares(player) != 0) {
+            return player == Color.BLACK ? rescueMovesBlack : rescueMovesWhite;
+        }
+        return countMoves(geometry, getMovablePieces(player), 0, black | white);
+    }
+
     /**
      * Returns whether the piece at the position is movable or not.
      *
@@ -192,54 +455,73 @@ public class Board {
      */
     public boolean isMovable(int pieceX, int pieceY) {
         checkRep();
-        Piece piece = entBoard[pieceX][pieceY];
-        if (piece != null && getSurroundingColors(pieceX, pieceY).contains(piece.getColor())) {
-            return true;
-        }
-        checkRep();
-
-        return false;
+        Color color = colorAt(pieceX, pieceY);
+        return color != null && (getMovablePieces(color) & geometry.bit(pieceX, pieceY)) != 0;
     }
 
     /**
      * Determines if a player must pass their turn.
+     *
+     * The number of moves that rescue a piece in check is kept up to date as
+     * pieces move, so this does not look at the board.
      */
     public boolean mustPass(Color player) {
-        // Getting all the pieces in check, if there are pieces in check
-        List<Point> pointsOfCheck = inCheck(player);
-
-        if (pointsOfCheck.isEmpty()) {
-            return false;
-        }
+        checkRep();
+        return player == Color.BLACK
+                ? rescueBlack != 0 && rescueMovesBlack == 0
+                : rescueWhite != 0 && rescueMovesWhite == 0;
+    }
 
-        // If there are pieces in check, get the surrounding squares as valid end positions
-        List<Point> validEndPositions = new ArrayList<>();
-        if (!pointsOfCheck.isEmpty()) {
-            for (Point point : pointsOfCheck) {
-                validEndPositions.addAll(getSurroundingPoints(point.x, point.y));
-            }
-        }
+    /**
+     * Determines if a player must pass their turn, for a position given as
+     * masks, the way the instance method does.
+     *
+     * @param pieces the mask of the player's pieces
+     * @param opponents the mask of the other player's pieces
+     * @return true if the player has pieces in check and cannot move next to any of them
+     */
+    public static boolean mustPass(long pieces, long opponents) {
+        return mustPass(STANDARD, pieces, opponents);
+    }
 
-        // List of all legal moves disregarding checks
-        List<Point> allLegalMoves = new ArrayList<>();
-        for (Piece[] row : entBoard) {
-            for (Piece piece : row) {
-                if (piece != null
-                        && piece.getColor() == player
-                        && isMovable(piece.getX(), piece.getY())) {
-                    allLegalMoves.addAll(legalMoves(piece.getX(), piece.getY()));
-                }
-            }
-        }
+    /**
+     * Determines if a player must pass their turn, for a position given as
+     * masks on a board of any supported size.
+     *
+     * @param geometry the size of the board
+     * @param pieces the mask of the player's pieces
+     * @param opponents the mask of the other player's pieces
+     * @return true if the player has pieces in check and cannot move next to any of them
+     */
+    public static boolean mustPass(Geometry geometry, long pieces, long opponents) {
+        long movable = geometry.movablePieces(pieces);
+        return mustPass(geometry, movable, pieces ^ movable, pieces | opponents);
+    }
 
-        // Check if there are any valid moves
-        for (Point point : validEndPositions) {
-            if (allLegalMoves.contains(point)) {
-                return false;
-            }
-        }
+    /**
+     * Counts the moves of a player for a position given as masks, as the
+     * static generateMoves would write them.
+     *
+     * @param pieces the mask of the player's pieces
+     * @param opponents the mask of the other player's pieces
+     * @return the number of legal moves, considering checks
+     */
+    public static int countMoves(long pieces, long opponents) {
+        return countMoves(STANDARD, pieces, opponents);
+    }
 
-        return true;
+    /**
+     * Counts the moves of a player for a position given as masks on a board
+     * of any supported size.
+     *
+     * @param geometry the size of the board
+     * @param pieces the mask of the player's pieces
+     * @param opponents the mask of the other player's pieces
+     * @return the number of legal moves, considering checks
+     */
+    public static int countMoves(Geometry geometry, long pieces, long opponents) {
+        long movable = geometry.movablePieces(pieces);
+        return countMoves(geometry, movable, pieces ^ movable, pieces | opponents);
     }
 
     /**
@@ -249,51 +531,62 @@ public class Board {
      */
     public Color checkWin() {
         checkRep();
-        boolean blackWin = true;
-        boolean whiteWin = true;
-        for (int i = 0; i < BOARD_SIZE; i++) {
-            for (int j = 0; j < BOARD_SIZE; j++) {
-                for (Color surrounding : getSurroundingColors(i, j)) {
-                    if (entBoard[i][j] != null) {
-                        if (entBoard[i][j].getColor() == Color.BLACK
-                                && surrounding == Color.BLACK) {
-                            blackWin = false;
-                        } else if (entBoard[i][j].getColor() == Color.WHITE
-                                && surrounding == Color.WHITE) {
-                            whiteWin = false;
-                        }
-                    }
-                }
-            }
-        }
-        checkRep();
-        if (blackWin) {
+        if (movableBlack == 0) {
             return Color.BLACK;
-        } else if (whiteWin) {
+        } else if (movableWhite == 0) {
             return Color.WHITE;
         } else {
             return null;
         }
     }
 
+    /**
+     * Checks a position given as masks for a win the way checkWin does.
+     *
+     * @param black the mask of the BLACK pieces
+     * @param white the mask of the WHITE pieces
+     * @return the color of the winning player, null if no one has won
+     */
+    public static Color checkWin(long black, long white) {
+        return checkWin(STANDARD, black, white);
+    }
+
+    /**
+     * Checks a position given as masks on a board of any supported size for a
+     * win the way checkWin does.
+     *
+     * @param geometry the size of the board
+     * @param black the mask of the BLACK pieces
+     * @param white the mask of the WHITE pieces
+     * @return the color of the winning player, null if no one has won
+     */
+    public static Color checkWin(Geometry geometry, long black, long white) {
+        if (geometry.movablePieces(black) == 0) {
+            return Color.BLACK;
+        } else if (geometry.movablePieces(white) == 0) {
+            return Color.WHITE;
+        }
+        return null;
+    }
+
     /**
      * Gets the colors of the pieces surrounding an square on the board.
      *
      * @param row the row of the element we are finding the surroundings of
      * @param col the column of the element we are finding the surroundings of
-     * @return a list of all of the values surrounding the element, ordered clockwise from the upper left
-     * @spec.requires BOARD_SIZE >= 2
+     * @return the colors of the occupied squares surrounding the element, ordered clockwise from the upper
+     *         left; empty squares are left out
      * */
     public List<Color> getSurroundingColors(int row, int col) {
         checkRep();
         List<Color> colors = new ArrayList<>();
-        List<Point> surroundingPoints = getSurroundingPoints(row, col);
-        for (Point point : surroundingPoints) {
-            if (entBoard[(int) point.getX()][(int) point.getY()] != null) {
-                colors.add(entBoard[(int) point.getX()][(int) point.getY()].getColor());
+        for (int square : geometry.neighborSquares[checkedSquare(row, col)]) {
+            if ((black & (1L << square)) != 0) {
+                colors.add(Color.BLACK);
+            } else if ((white & (1L << square)) != 0) {
+                colors.add(Color.WHITE);
             }
         }
-        checkRep();
 
         return colors;
     }
@@ -304,69 +597,18 @@ public class Board {
      * @param row the row of the element we are finding the surroundings of
      * @param col the column of the element we are finding the surroundings of
      * @return a list of all of the values surrounding the element, ordered clockwise from the upper left
-     * @spec.requires BOARD_SIZE >= 2
      * */
     public List<Point> getSurroundingPoints(int row, int col) {
         checkRep();
-        List<Point> result = new ArrayList<>();
-        if (row == 0) {
-            if (col == 0) {
-                result.add(new Point(0, 1));
-                result.add(new Point(1, 1));
-                result.add(new Point(1, 0));
-            } else if (col == BOARD_SIZE - 1) {
-                result.add(new Point(1, col));
-                result.add(new Point(1, col - 1));
-                result.add(new Point(0, col - 1));
-            } else {
-                result.add(new Point(row, col + 1));
-                result.add(new Point(row + 1, col  + 1));
-                result.add(new Point(row + 1, col));
-                result.add(new Point(row + 1, col - 1));
-                result.add(new Point(row, col - 1));
-            }
-        } else if (row == BOARD_SIZE - 1) {
-            if (col == 0) {
-                result.add(new Point(row - 1, 0));
-                result.add(new Point(row - 1, 1));
-                result.add(new Point(row, 1));
-            } else if (col == BOARD_SIZE - 1) {
-                result.add(new Point(row - 1, col - 1));
-                result.add(new Point(row - 1, col));
-                result.add(new Point(row, col - 1));
-            } else {
-                result.add(new Point(row - 1, col - 1));
-                result.add(new Point(row - 1, col));
-                result.add(new Point(row - 1, col + 1));
-                result.add(new Point(row, col + 1));
-                result.add(new Point(row, col - 1));
-            }
+        long start = Metrics.ENABLED ? System.nanoTime() : 0;
+        int[] around = geometry.neighborSquares[checkedSquare(row, col)];
+        List<Point> result = new ArrayList<>(around.length);
+        for (int square : around) {
+            result.add(new Point(square / geometry.getSize(), square % geometry.getSize()));
         }
-        else {
-            if (col == 0) {
-                result.add(new Point(row - 1, col));
-                result.add(new Point(row - 1, col + 1));
-                result.add(new Point(row, col + 1));
-                result.add(new Point(row + 1, col + 1));
-                result.add(new Point(row + 1, col));
-            } else if (col == BOARD_SIZE - 1) {
-                result.add(new Point(row - 1, col - 1));
-                result.add(new Point(row - 1, col));
-                result.add(new Point(row + 1, col));
-                result.add(new Point(row + 1, col - 1));
-                result.add(new Point(row, col - 1));
-            } else {
-                result.add(new Point(row - 1, col - 1));
-                result.add(new Point(row - 1, col));
-                result.add(new Point(row - 1, col + 1));
-                result.add(new Point(row, col + 1));
-                result.add(new Point(row + 1, col + 1));
-                result.add(new Point(row + 1, col));
-                result.add(new Point(row + 1, col - 1));
-                result.add(new Point(row, col - 1));
-            }
+        if (Metrics.ENABLED) {
+            Metrics.SURROUNDING_POINTS.recordSince(start);
         }
-        checkRep();
 
         return result;
     }
@@ -374,56 +616,413 @@ public class Board {
     /**
      * This is a testing method to print the board to the console.
      *
-     * in a 5x5 matrix.
+     * in a size x size matrix.
      */
     public void print2D() {
         checkRep();
+        int size = geometry.getSize();
+        String separator = "    +" + "-------+".repeat(size);
         System.out.print("\t\t");
-        for (int i = 0; i < BOARD_SIZE; i++) {
+        for (int i = 0; i < size; i++) {
             System.out.print(i + "\t\t");
         }
         System.out.println();
-        System.out.println("    +-------+-------+-------+-------+-------+");
-        int i = 0;
-        for (Piece[] row : entBoard) {
+        System.out.println(separator);
+        for (int i = 0; i < size; i++) {
             System.out.print(i + "\t|");
-            for (Piece square : row) {
+            for (int j = 0; j < size; j++) {
+                Color square = colorAt(i, j);
                 if (square != null) {
-                    System.out.print(" " + square.getColor() + "\t|");
+                    System.out.print(" " + square + "\t|");
                 } else {
                     System.out.print("\t\t|");
                 }
             }
             System.out.println();
-            System.out.println("    +-------+-------+-------+-------+-------+");
-            i++;
+            System.out.println(separator);
+        }
+    }
+
+    /**
+     * Compares the positions of two boards.
+     *
+     * @param o the object to compare against
+     * @return true if o is a Board of the same size with the same pieces on the same squares
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Board)) {
+            return false;
+        }
+        Board other = (Board) o;
+        return geometry == other.geometry && black == other.black && white == other.white;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    /**
+     * Checks the whole representation invariant, whether or not checkRep is on.
+     *
+     * This recomputes the derived state from scratch, so it is meant for
+     * sampled validation runs (see SelfPlayRunner) rather than every move.
+     *
+     * @throws IllegalStateException if the representation invariant does not hold
+     */
+    public void validate() throws IllegalStateException {
+        String violation = invariantViolation();
+        if (violation != null) {
+            throw new IllegalStateException(violation);
+        }
+    }
+
+    /**
+     * Returns the color of the piece on a square.
+     *
+     * @param row the row of the square
+     * @param col the column of the square
+     * @return the color of the piece, null if the square is empty or off the board
+     */
+    private Color colorAt(int row, int col) {
+        if (!geometry.isOnBoard(row, col)) {
+            return null;
+        }
+        long square = geometry.bit(row, col);
+        if ((black & square) != 0) {
+            return Color.BLACK;
+        } else if ((white & square) != 0) {
+            return Color.WHITE;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the index of a square, checking that it is on the board.
+     *
+     * @throws IllegalArgumentException if the coordinate point is not on the board
+     */
+    private int checkedSquare(int row, int col) throws IllegalArgumentException {
+        if (!geometry.isOnBoard(row, col)) {
+            throw new IllegalArgumentException("Coordinate out of bounds");
+        }
+        return geometry.square(row, col);
+    }
+
+    /**
+     * Returns the pieces in a mask that touch another piece of the same mask.
+     *
+     * @param pieces the mask of one player's pieces on a standard board
+     * @return the mask of those pieces that are movable
+     */
+    public static long movablePieces(long pieces) {
+        return STANDARD.movablePieces(pieces);
+    }
+
+    /**
+     * Updates the movable pieces of one color after one of its pieces slid.
+     *
+     * Only the moved piece and the pieces touching either end of the move can
+     * change between movable and in check, so only those are looked at again.
+     *
+     * @param geometry the size of the board
+     * @param pieces the pieces of the color after the move
+     * @param movable the movable pieces of the color before the move
+     * @param from the square the piece left
+     * @param to the square the piece arrived on
+     * @return the movable pieces of the color after the move
+     */
+    private static long updateMovable(Geometry geometry, long pieces, long movable, int from, int to) {
+        long[] neighbors = geometry.neighbors;
+        long touched = (neighbors[from] | neighbors[to] | (1L << to)) & pieces;
+        movable &= ~(touched | (1L << from));
+        for (long rest = touched; rest != 0; rest &= rest - 1) {
+            int square = Long.numberOfTrailingZeros(rest);
+            if ((neighbors[square] & pieces) != 0) {
+                movable |= 1L << square;
+            }
+        }
+        return movable;
+    }
+
+    /**
+     * Returns the squares next to a player's pieces in check.
+     */
+    private long getRescueSquares(Color player) {
+        return player == Color.BLACK ? rescueBlack : rescueWhite;
+    }
+
+    /**
+     * Slides the piece on one square to another, keeping the derived state up to date.
+     *
+     * The rescue squares only change for the color that moved, and only when its
+     * pieces in check changed; then its rescue moves are counted again. Otherwise
+     * the rescue moves of each color are corrected by looking only at the pieces
+     * in the rows and columns of the move, whose slides it may block or open, and
+     * at the pieces whose movability it changed.
+     *
+     * @spec.requires from holds a piece and to is empty
+     */
+    private void slidePiece(int from, int to) {
+        long fromTo = (1L << from) | (1L << to);
+        long oldOccupied = black | white;
+        long newOccupied = oldOccupied ^ fromTo;
+        Geometry geometry = this.geometry;
+        long lines = geometry.lines[from] | geometry.lines[to];
+        if ((black & (1L << from)) != 0) {
+            long oldMovable = movableBlack;
+            long oldIsolated = black ^ movableBlack;
+            black ^= fromTo;
+            movableBlack = updateMovable(geometry, black, movableBlack, from, to);
+            hash ^= Zobrist.BLACK_KEYS[from] ^ Zobrist.BLACK_KEYS[to];
+            if ((black ^ movableBlack) != oldIsolated) {
+                rescueBlack = geometry.neighborsOf(black ^ movableBlack);
+                rescueMovesBlack = countRescueMoves(geometry, movableBlack, rescueBlack, newOccupied);
+            } else {
+                rescueMovesBlack += rescueMovesDelta(geometry, oldMovable, movableBlack, rescueBlack,
+                        oldOccupied, newOccupied, lines);
+            }
+            rescueMovesWhite += rescueMovesDelta(geometry, movableWhite, movableWhite, rescueWhite,
+                    oldOccupied, newOccupied, lines);
+        } else {
+            long oldMovable = movableWhite;
+            long oldIsolated = white ^ movableWhite;
+            white ^= fromTo;
+            movableWhite = updateMovable(geometry, white, movableWhite, from, to);
+            hash ^= Zobrist.WHITE_KEYS[from] ^ Zobrist.WHITE_KEYS[to];
+            if ((white ^ movableWhite) != oldIsolated) {
+                rescueWhite = geometry.neighborsOf(white ^ movableWhite);
+                rescueMovesWhite = countRescueMoves(geometry, movableWhite, rescueWhite, newOccupied);
+            } else {
+                rescueMovesWhite += rescueMovesDelta(geometry, oldMovable, movableWhite, rescueWhite,
+                        oldOccupied, newOccupied, lines);
+            }
+            rescueMovesBlack += rescueMovesDelta(geometry, movableBlack, movableBlack, rescueBlack,
+                    oldOccupied, newOccupied, lines);
+        }
+    }
+
+    /**
+     * Returns how much one color's rescue moves change with a slide that left
+     * its rescue squares as they were.
+     *
+     * @param geometry the size of the board
+     * @param oldMovable the color's movable pieces before the slide
+     * @param newMovable the color's movable pieces after the slide
+     * @param rescue the color's rescue squares
+     * @param oldOccupied the occupied squares before the slide
+     * @param newOccupied the occupied squares after the slide
+     * @param lines the rows and columns of both squares of the slide
+     * @return the number of rescue moves after the slide minus the number before
+     */
+    private static int rescueMovesDelta(Geometry geometry, long oldMovable, long newMovable, long rescue,
+                                        long oldOccupied, long newOccupied, long lines) {
+        if (rescue == 0) {
+            return 0;
+        }
+        long affected = lines | (oldMovable ^ newMovable);
+        return countRescueMoves(geometry, newMovable & affected, rescue, newOccupied)
+                - countRescueMoves(geometry, oldMovable & affected, rescue, oldOccupied);
+    }
+
+    /**
+     * Counts the slides of some pieces that end on a rescue square.
+     *
+     * @param geometry the size of the board
+     * @param movable the pieces to count the slides of
+     * @param rescue the rescue squares
+     * @param occupied the mask of all occupied squares
+     */
+    private static int countRescueMoves(Geometry geometry, long movable, long rescue, long occupied) {
+        if (rescue == 0) {
+            return 0;
+        }
+        int count = 0;
+        for (long rest = movable; rest != 0; rest &= rest - 1) {
+            count += Long.bitCount(geometry.slideTargets(Long.numberOfTrailingZeros(rest), occupied) & rescue);
         }
+        return count;
+    }
+
+    /**
+     * Sets up this board from a pair of masks and computes the derived state.
+     *
+     * @throws IllegalArgumentException if the masks overlap or use squares off the board
+     */
+    private void init(Geometry geometry, long black, long white) throws IllegalArgumentException {
+        if ((black & white) != 0 || ((black | white) & ~geometry.boardMask) != 0) {
+            throw new IllegalArgumentException("Masks overlap or leave the board");
+        }
+        this.geometry = geometry;
+        this.black = black;
+        this.white = white;
+        blackPieces = Long.bitCount(black);
+        whitePieces = Long.bitCount(white);
+        movableBlack = geometry.movablePieces(black);
+        movableWhite = geometry.movablePieces(white);
+        rescueBlack = geometry.neighborsOf(black ^ movableBlack);
+        rescueWhite = geometry.neighborsOf(white ^ movableWhite);
+        rescueMovesBlack = countRescueMoves(geometry, movableBlack, rescueBlack, black | white);
+        rescueMovesWhite = countRescueMoves(geometry, movableWhite, rescueWhite, black | white);
+        hash = computeHash(black, white);
         checkRep();
     }
 
+    /**
+     * Computes the hash of a position from scratch.
+     */
+    private static long computeHash(long black, long white) {
+        long result = 0;
+        for (long rest = black; rest != 0; rest &= rest - 1) {
+            result ^= Zobrist.BLACK_KEYS[Long.numberOfTrailingZeros(rest)];
+        }
+        for (long rest = white; rest != 0; rest &= rest - 1) {
+            result ^= Zobrist.WHITE_KEYS[Long.numberOfTrailingZeros(rest)];
+        }
+        return result;
+    }
+
+    /**
+     * Writes the moves of the movable pieces of a player into a buffer.
+     *
+     * @param geometry the size of the board
+     * @param movable the player's movable pieces
+     * @param isolated the player's pieces in check
+     * @param occupied the mask of all occupied squares
+     * @param moves the buffer the moves are written to
+     * @return the number of moves written
+     */
+    private static int generateMoves(Geometry geometry, long movable, long isolated, long occupied, int[] moves) {
+        if (Metrics.ENABLED) {
+            Metrics.GENERATE_MOVES.increment();
+        }
+        long validEndPositions = validEndPositions(geometry, isolated, occupied);
+        int count = 0;
+        for (long rest = movable; rest != 0; rest &= rest - 1) {
+            int from = Long.numberOfTrailingZeros(rest);
+            for (long targets = geometry.slideTargets(from, occupied) & validEndPositions; targets != 0;
+                    targets &= targets - 1) {
+                moves[count++] = Move.encode(from, Long.numberOfTrailingZeros(targets));
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Counts the moves of the movable pieces of a player.
+     *
+     * @param geometry the size of the board
+     * @param movable the player's movable pieces
+     * @param isolated the player's pieces in check
+     * @param occupied the mask of all occupied squares
+     */
+    private static int countMoves(Geometry geometry, long movable, long isolated, long occupied) {
+        long validEndPositions = validEndPositions(geometry, isolated, occupied);
+        int count = 0;
+        for (long rest = movable; rest != 0; rest &= rest - 1) {
+            count += Long.bitCount(geometry.slideTargets(Long.numberOfTrailingZeros(rest), occupied) & validEndPositions);
+        }
+        return count;
+    }
+
+    /**
+     * Determines if a player with the given pieces must pass.
+     *
+     * @param geometry the size of the board
+     * @param movable the player's movable pieces
+     * @param isolated the player's pieces in check
+     * @param occupied the mask of all occupied squares
+     */
+    private static boolean mustPass(Geometry geometry, long movable, long isolated, long occupied) {
+        // If there are pieces in check, the squares around them are the valid end positions
+        long validEndPositions = geometry.neighborsOf(isolated);
+
+        if (validEndPositions == 0) {
+            return false;
+        }
+
+        // Check if any movable piece can slide onto a valid end position
+        for (long rest = movable; rest != 0; rest &= rest - 1) {
+            if ((geometry.slideTargets(Long.numberOfTrailingZeros(rest), occupied) & validEndPositions) != 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns the empty squares a move may end on: all of them, or while any of
+     * the player's pieces are in check, only those next to one of them.
+     */
+    private static long validEndPositions(Geometry geometry, long isolated, long occupied) {
+        long validEndPositions = ~occupied & geometry.boardMask;
+        long rescueSquares = geometry.neighborsOf(isolated);
+        if (rescueSquares != 0) { // Pieces in check, one of them has to be reached
+            validEndPositions &= rescueSquares;
+        }
+        return validEndPositions;
+    }
+
+    /**
+     * Appends the squares of a mask to a list of points.
+     *
+     * @param points the list to append to
+     * @param squares the mask of squares to append
+     * @param descending whether to append the highest square first
+     */
+    private void addSquares(List<Point> points, long squares, boolean descending) {
+        while (squares != 0) {
+            int square = descending
+                    ? 63 - Long.numberOfLeadingZeros(squares)
+                    : Long.numberOfTrailingZeros(squares);
+            points.add(new Point(square / geometry.getSize(), square % geometry.getSize()));
+            squares &= ~(1L << square);
+        }
+    }
+
     /**
      * This method checks that the representation invariant holds.
+     *
+     * @throws IllegalStateException if checkRep is on and the invariant does not hold
      */
-    private void checkRep() {
+    private void checkRep() throws IllegalStateException {
         if (CHECK_REP_ON) {
-            int black = 0;
-            int white = 0;
-            int empty = 0;
-            for (Piece[] row : entBoard) {
-                for (Piece piece : row) {
-                    if (piece == null) {
-                        empty++;
-                    } else if (piece.getColor() == Color.BLACK) {
-                        black++;
-                    } else if (piece.getColor() == Color.WHITE) {
-                        white++;
-                    }
-                }
-            }
+            validate();
+        }
+    }
 
-            assert (black == 7) : "there should be 7 black pieces";
-            assert (white == 7) : "there should be 7 white pieces";
-            assert (empty == 11) : "there should be 11 empty spaces";
+    /**
+     * Returns the first part of the representation invariant that does not hold.
+     *
+     * @return a description of the violation, or null if the invariant holds
+     */
+    private String invariantViolation() {
+        if ((black & white) != 0) {
+            return "a square cannot hold two pieces";
+        } else if (((black | white) & ~geometry.boardMask) != 0) {
+            return "pieces must be on the board";
+        } else if (Long.bitCount(black) != blackPieces) {
+            return "there should be " + blackPieces + " black pieces";
+        } else if (Long.bitCount(white) != whitePieces) {
+            return "there should be " + whitePieces + " white pieces";
+        } else if (movableBlack != geometry.movablePieces(black)) {
+            return "movable BLACK pieces out of date";
+        } else if (movableWhite != geometry.movablePieces(white)) {
+            return "movable WHITE pieces out of date";
+        } else if (rescueBlack != geometry.neighborsOf(black ^ movableBlack)
+                || rescueMovesBlack != countRescueMoves(geometry, movableBlack, rescueBlack, black | white)) {
+            return "BLACK rescue moves out of date";
+        } else if (rescueWhite != geometry.neighborsOf(white ^ movableWhite)
+                || rescueMovesWhite != countRescueMoves(geometry, movableWhite, rescueWhite, black | white)) {
+            return "WHITE rescue moves out of date";
+        } else if (hash != computeHash(this.black, this.white)) {
+            return "hash out of date";
         }
+        return null;
     }
 }
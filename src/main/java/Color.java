@@ -1,5 +1,12 @@
 package main.java;
 
 public enum Color {
-    BLACK, WHITE
+    BLACK, WHITE;
+
+    /**
+     * Returns the color of the other player.
+     */
+    public Color opposite() {
+        return this == BLACK ? WHITE : BLACK;
+    }
 }
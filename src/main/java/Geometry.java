@@ -0,0 +1,282 @@
+package main.java;
+
+import java.util.Arrays;
+
+/**
+ * The shape of a square Entropy board of a given size, with the tables Board
+ * uses to find neighbors and slides.
+ *
+ * Every size from MIN_SIZE to MAX_SIZE fits in one long, with the square at
+ * (row, col) on bit row * size + col, so boards of every size share the same
+ * bit mask code and only the tables differ. The tables are computed once per
+ * size, and the instances are shared.
+ */
+public final class Geometry {
+
+    public static final int MIN_SIZE = 2;
+
+    public static final int MAX_SIZE = 8;
+
+    // Ray directions, in the order legalMoves lists them
+    static final int UP = 0;
+    static final int DOWN = 1;
+    static final int LEFT = 2;
+    static final int RIGHT = 3;
+
+    private static final Geometry[] GEOMETRIES = new Geometry[MAX_SIZE + 1];
+
+    static {
+        for (int size = MIN_SIZE; size <= MAX_SIZE; size++) {
+            GEOMETRIES[size] = new Geometry(size);
+        }
+    }
+
+    private final int size;
+
+    private final int numSquares;
+
+    // The mask of every square on the board
+    final long boardMask;
+
+    // neighbors[square] is the mask of the squares touching square, orthogonally or diagonally
+    final long[] neighbors;
+
+    // neighborSquares[square] lists the same squares ordered clockwise from the upper left
+    final int[][] neighborSquares;
+
+    // rays[direction][square] is the mask of the squares strictly beyond square in that direction
+    final long[][] rays;
+
+    // lines[square] is the mask of square and every square in its row or column
+    final long[] lines;
+
+    /**
+     * Computes the tables of a size.
+     */
+    private Geometry(int size) {
+        this.size = size;
+        numSquares = size * size;
+        boardMask = numSquares == Long.SIZE ? -1L : (1L << numSquares) - 1;
+        neighbors = new long[numSquares];
+        neighborSquares = new int[numSquares][];
+        rays = new long[4][numSquares];
+        lines = new long[numSquares];
+
+        int[] rowSteps = {-1, -1, -1, 0, 1, 1, 1, 0};
+        int[] colSteps = {-1, 0, 1, 1, 1, 0, -1, -1};
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                int square = square(row, col);
+                int[] around = new int[8];
+                int count = 0;
+                for (int k = 0; k < 8; k++) {
+                    int i = row + rowSteps[k];
+                    int j = col + colSteps[k];
+                    if (isOnBoard(i, j)) {
+                        around[count++] = square(i, j);
+                        neighbors[square] |= bit(i, j);
+                    }
+                }
+                neighborSquares[square] = Arrays.copyOf(around, count);
+
+                for (int i = row - 1; i >= 0; i--) {
+                    rays[UP][square] |= bit(i, col);
+                }
+                for (int i = row + 1; i < size; i++) {
+                    rays[DOWN][square] |= bit(i, col);
+                }
+                for (int j = col - 1; j >= 0; j--) {
+                    rays[LEFT][square] |= bit(row, j);
+                }
+                for (int j = col + 1; j < size; j++) {
+                    rays[RIGHT][square] |= bit(row, j);
+                }
+                lines[square] = rays[UP][square] | rays[DOWN][square] | rays[LEFT][square]
+                        | rays[RIGHT][square] | bit(row, col);
+            }
+        }
+    }
+
+    /**
+     * Returns the geometry of a board size.
+     *
+     * @param size the number of squares on a side
+     * @return the shared geometry of that size
+     * @throws IllegalArgumentException if size is not between MIN_SIZE and MAX_SIZE
+     */
+    public static Geometry of(int size) throws IllegalArgumentException {
+        if (size < MIN_SIZE || size > MAX_SIZE) {
+            throw new IllegalArgumentException("Board sizes must be between " + MIN_SIZE + " and " + MAX_SIZE);
+        }
+        return GEOMETRIES[size];
+    }
+
+    //region Getters
+    public int getSize() {
+        return size;
+    }
+
+    public int getNumSquares() {
+        return numSquares;
+    }
+
+    public long getBoardMask() {
+        return boardMask;
+    }
+    //endregion
+
+    /**
+     * Returns the mask of the squares touching a square, orthogonally or diagonally.
+     *
+     * @param square the index of the square, row * size + col
+     */
+    public long getNeighbors(int square) {
+        return neighbors[square];
+    }
+
+    /**
+     * Returns whether a coordinate point is on the board.
+     */
+    public boolean isOnBoard(int row, int col) {
+        return row >= 0 && row < size && col >= 0 && col < size;
+    }
+
+    /**
+     * Returns the index of a square, row * size + col.
+     *
+     * @spec.requires the square is on the board
+     */
+    public int square(int row, int col) {
+        return row * size + col;
+    }
+
+    /**
+     * Returns the mask with only the bit of a square set.
+     *
+     * @spec.requires the square is on the board
+     */
+    public long bit(int row, int col) {
+        return 1L << square(row, col);
+    }
+
+    /**
+     * Returns the largest number of moves a player with some pieces can have.
+     *
+     * @param pieces the number of the player's pieces
+     * @return the size of a move buffer that generateMoves never overflows
+     */
+    public int maxMoves(int pieces) {
+        // No piece can slide to more than 2 * (size - 1) squares
+        return pieces * 2 * (size - 1);
+    }
+
+    /**
+     * Returns the BLACK pieces of the standard setup: the top row and both ends
+     * of the row below it, as in Five Field Kono.
+     *
+     * @return the mask of the BLACK pieces, size + 2 of them
+     * @throws IllegalArgumentException if the board is too small for the setup
+     */
+    public long standardBlack() throws IllegalArgumentException {
+        checkStandardSize();
+        long black = bit(1, 0) | bit(1, size - 1);
+        for (int col = 0; col < size; col++) {
+            black |= bit(0, col);
+        }
+        return black;
+    }
+
+    /**
+     * Returns the WHITE pieces of the standard setup, BLACK's mirrored top to bottom.
+     *
+     * @return the mask of the WHITE pieces, size + 2 of them
+     * @throws IllegalArgumentException if the board is too small for the setup
+     */
+    public long standardWhite() throws IllegalArgumentException {
+        checkStandardSize();
+        long white = bit(size - 2, 0) | bit(size - 2, size - 1);
+        for (int col = 0; col < size; col++) {
+            white |= bit(size - 1, col);
+        }
+        return white;
+    }
+
+    @Override
+    public String toString() {
+        return size + "x" + size;
+    }
+
+    /**
+     * Returns the pieces in a mask that touch another piece of the same mask.
+     *
+     * @param pieces the mask of one player's pieces
+     * @return the mask of those pieces that are movable
+     */
+    long movablePieces(long pieces) {
+        long movable = 0;
+        for (long rest = pieces; rest != 0; rest &= rest - 1) {
+            int square = Long.numberOfTrailingZeros(rest);
+            if ((neighbors[square] & pieces) != 0) {
+                movable |= 1L << square;
+            }
+        }
+        return movable;
+    }
+
+    /**
+     * Returns the squares next to some pieces.
+     *
+     * @param pieces the mask of the pieces
+     * @return the union of their neighbors, 0 if there are none
+     */
+    long neighborsOf(long pieces) {
+        long around = 0;
+        for (long rest = pieces; rest != 0; rest &= rest - 1) {
+            around |= neighbors[Long.numberOfTrailingZeros(rest)];
+        }
+        return around;
+    }
+
+    /**
+     * Returns the mask of the empty squares a piece can slide to in one direction.
+     *
+     * @param direction UP, DOWN, LEFT or RIGHT
+     * @param square the square the piece slides from
+     * @param occupied the mask of all occupied squares
+     * @return the squares between square and the first blocker (or the edge) in that direction
+     */
+    long rayTargets(int direction, int square, long occupied) {
+        long ray = rays[direction][square];
+        long blockers = ray & occupied;
+        if (blockers == 0) {
+            return ray;
+        }
+        // Squares grow downwards and rightwards, so the nearest blocker is the lowest bit there
+        int blocker = direction == DOWN || direction == RIGHT
+                ? Long.numberOfTrailingZeros(blockers)
+                : 63 - Long.numberOfLeadingZeros(blockers);
+        return ray & ~(rays[direction][blocker] | (1L << blocker));
+    }
+
+    /**
+     * Returns the mask of the empty squares a piece can slide to, not considering checks.
+     */
+    long slideTargets(int square, long occupied) {
+        return rayTargets(UP, square, occupied)
+                | rayTargets(DOWN, square, occupied)
+                | rayTargets(LEFT, square, occupied)
+                | rayTargets(RIGHT, square, occupied);
+    }
+
+    /**
+     * Checks that the standard setup fits: the second rows of the two players
+     * must not meet.
+     *
+     * @throws IllegalArgumentException if the board is smaller than 4x4
+     */
+    private void checkStandardSize() throws IllegalArgumentException {
+        if (size < 4) {
+            throw new IllegalArgumentException("The standard setup needs at least a 4x4 board");
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package main.java;
+
+/**
+ * Packs a move of a game of Entropy into a primitive int.
+ *
+ * A move is the index of the square the piece starts on and the index of the
+ * square it slides to, where the square at (row, col) has index row * size + col
+ * for the size of the board's Geometry. Each index takes SQUARE_BITS bits,
+ * enough for every size up to Geometry.MAX_SIZE. A player with no legal move
+ * passes, which is encoded as PASS; no real move starts and ends on the same
+ * square, so PASS never collides with one.
+ */
+public final class Move {
+
+    public static final int SQUARE_BITS = 6;
+
+    private static final int SQUARE_MASK = (1 << SQUARE_BITS) - 1;
+
+    public static final int PASS = 0;
+
+    private Move() {
+    }
+
+    /**
+     * Encodes a move.
+     *
+     * @param from the index of the square the piece starts on
+     * @param to the index of the square the piece ends on
+     * @return the encoded move
+     * @spec.requires from != to && both indices fit in SQUARE_BITS bits
+     */
+    public static int encode(int from, int to) {
+        return (from << SQUARE_BITS) | to;
+    }
+
+    /**
+     * Returns the index of the square the piece starts on.
+     */
+    public static int from(int move) {
+        return (move >>> SQUARE_BITS) & SQUARE_MASK;
+    }
+
+    /**
+     * Returns the index of the square the piece ends on.
+     */
+    public static int to(int move) {
+        return move & SQUARE_MASK;
+    }
+
+    /**
+     * Returns a readable form of a move on a board of the given size.
+     *
+     * @param move the encoded move
+     * @param boardSize the number of squares on a side of the board
+     * @return "pass", or "(row, col) -> (row, col)"
+     */
+    public static String toString(int move, int boardSize) {
+        if (move == PASS) {
+            return "pass";
+        }
+        int from = from(move);
+        int to = to(move);
+        return "(" + from / boardSize + ", " + from % boardSize + ") -> ("
+                + to / boardSize + ", " + to % boardSize + ")";
+    }
+}
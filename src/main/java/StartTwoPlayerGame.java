@@ -1,5 +1,9 @@
 package main.java;
 
+import main.java.engine.BackgroundSearch;
+import main.java.engine.MobilityEvaluator;
+import main.java.metrics.Metrics;
+
 import java.awt.*;
 import java.util.ArrayList;
 import java.util.List;
@@ -11,13 +15,23 @@ public class StartTwoPlayerGame {
 
     private static Scanner scanner = new Scanner(System.in);
 
+    // Searches the position while a player thinks, when started with "analyze"
+    private static BackgroundSearch analysis;
+
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("analyze")) {
+            analysis = new BackgroundSearch(new MobilityEvaluator(), 64);
+            analysis.setListener(result -> System.out.println("[analysis] " + result));
+        }
         newBoard.print2D();
         while (true) {
             if (!newBoard.mustPass(Color.WHITE)) {
                 turn(Color.WHITE);
             } else {
                 System.out.println("There are no valid moves for " + Color.WHITE + ". You must pass your turn.");
+                if (Metrics.ENABLED) {
+                    Metrics.FORCED_PASSES.increment();
+                }
             }
             if (newBoard.checkWin() == Color.WHITE) {
                 break;
@@ -27,6 +41,9 @@ public class StartTwoPlayerGame {
                 turn(Color.BLACK);
             } else {
                 System.out.println("There are no valid moves for " + Color.BLACK + ". You must pass your turn.");
+                if (Metrics.ENABLED) {
+                    Metrics.FORCED_PASSES.increment();
+                }
             }
             if (newBoard.checkWin() == Color.BLACK) {
                 break;
@@ -35,6 +52,9 @@ public class StartTwoPlayerGame {
         }
         System.out.println(newBoard.checkWin() + " wins!");
         newBoard.print2D();
+        if (analysis != null) {
+            analysis.close();
+        }
     }
 
     /**
@@ -46,6 +66,26 @@ public class StartTwoPlayerGame {
      * @spec.effects board is now a turn ahead of the original board, ie one piece has moved
      */
     private static void turn(Color player) {
+        if (analysis != null) {
+            analysis.analyze(newBoard, player);
+        }
+        try {
+            readMove(player);
+        } finally {
+            if (analysis != null) {
+                analysis.stop();
+            }
+        }
+    }
+
+    /**
+     * Asks for a move until a legal one is entered, and plays it.
+     *
+     * @param player the color of the player whose turn it is
+     * @spec.modifies board
+     * @spec.effects one piece has moved
+     */
+    private static void readMove(Color player) {
         // Getting all the pieces in check, if there are pieces in check
         List<Point> pointsOfCheck = newBoard.inCheck(player);
 
@@ -93,7 +133,7 @@ public class StartTwoPlayerGame {
             if (!validEndPositions.isEmpty() && !validEndPositions.contains(endPoint)) {
                 System.out.println("Need to get a piece out of check. Pieces in check: ");
                 System.out.println(pointsOfCheck.toString());
-                turn(player);
+                readMove(player);
                 break;
             } else {
                 try {
@@ -101,7 +141,7 @@ public class StartTwoPlayerGame {
                     break;
                 } catch (IllegalArgumentException illegalMove) {
                     System.out.println("Cannot move " + player + " piece there.");
-                    turn(player);
+                    readMove(player);
                     break;
                 }
             }
@@ -0,0 +1,238 @@
+package main.java;
+
+/**
+ * The symmetries of the board, for storing positions once per symmetry class.
+ *
+ * The eight rotations and reflections of the square (the dihedral group D4)
+ * map legal moves onto legal moves and wins onto wins, so positions related
+ * by one of them have the same value. Each transform is applied to a mask one
+ * byte at a time through a table of the images of all 256 byte values.
+ *
+ * A position is packed into a long as black | white << 25 | side << 50, with
+ * side 1 when BLACK is to move. Its canonical form is the smallest packed image
+ * under the eight transforms. Swapping the colors of all pieces and the player
+ * to move can be added to get sixteen images, but that is not exactly a
+ * symmetry of the rules: when a move leaves neither player with a movable
+ * piece, checkWin names BLACK, whoever moved. Keep color-swapped keys to uses
+ * that can live with that, such as opening statistics.
+ */
+public final class Symmetry {
+
+    public static final int TRANSFORMS = 8;
+
+    // Transforms, as maps of (row, col)
+    public static final int IDENTITY = 0;
+    public static final int ROTATE_90 = 1;       // (col, 4 - row)
+    public static final int ROTATE_180 = 2;      // (4 - row, 4 - col)
+    public static final int ROTATE_270 = 3;      // (4 - col, row)
+    public static final int MIRROR_COLUMNS = 4;  // (row, 4 - col)
+    public static final int MIRROR_ROWS = 5;     // (4 - row, col)
+    public static final int TRANSPOSE = 6;       // (col, row)
+    public static final int ANTI_TRANSPOSE = 7;  // (4 - col, 4 - row)
+
+    private static final int SIZE = 5;
+
+    private static final int SQUARES = SIZE * SIZE;
+
+    private static final int BYTES = (SQUARES + 7) / 8;
+
+    private static final int WHITE_SHIFT = SQUARES;
+
+    private static final int SIDE_SHIFT = 2 * SQUARES;
+
+    private static final long SQUARE_MASK = (1L << SQUARES) - 1;
+
+    // SQUARE_MAP[t][square] is the image of square under transform t
+    private static final int[][] SQUARE_MAP = new int[TRANSFORMS][SQUARES];
+
+    // BYTE_MAP[t][i][b] is the image under transform t of the squares of byte value b in byte i of a mask
+    private static final long[][][] BYTE_MAP = new long[TRANSFORMS][BYTES][256];
+
+    private static final int[] INVERSE = {IDENTITY, ROTATE_270, ROTATE_180, ROTATE_90,
+            MIRROR_COLUMNS, MIRROR_ROWS, TRANSPOSE, ANTI_TRANSPOSE};
+
+    static {
+        int last = SIZE - 1;
+        for (int row = 0; row < SIZE; row++) {
+            for (int col = 0; col < SIZE; col++) {
+                int square = row * SIZE + col;
+                SQUARE_MAP[IDENTITY][square] = square;
+                SQUARE_MAP[ROTATE_90][square] = col * SIZE + (last - row);
+                SQUARE_MAP[ROTATE_180][square] = (last - row) * SIZE + (last - col);
+                SQUARE_MAP[ROTATE_270][square] = (last - col) * SIZE + row;
+                SQUARE_MAP[MIRROR_COLUMNS][square] = row * SIZE + (last - col);
+                SQUARE_MAP[MIRROR_ROWS][square] = (last - row) * SIZE + col;
+                SQUARE_MAP[TRANSPOSE][square] = col * SIZE + row;
+                SQUARE_MAP[ANTI_TRANSPOSE][square] = (last - col) * SIZE + (last - row);
+            }
+        }
+        for (int t = 0; t < TRANSFORMS; t++) {
+            for (int i = 0; i < BYTES; i++) {
+                for (int b = 0; b < 256; b++) {
+                    long image = 0;
+                    for (int bit = 0; bit < 8 && i * 8 + bit < SQUARES; bit++) {
+                        if ((b & (1 << bit)) != 0) {
+                            image |= 1L << SQUARE_MAP[t][i * 8 + bit];
+                        }
+                    }
+                    BYTE_MAP[t][i][b] = image;
+                }
+            }
+        }
+    }
+
+    private Symmetry() {
+    }
+
+    /**
+     * Returns the image of a mask of squares under a transform.
+     *
+     * @param transform a transform from 0 to TRANSFORMS - 1
+     * @param squares a mask of squares on the board
+     * @return the mask of the images of those squares
+     */
+    public static long transform(int transform, long squares) {
+        long[][] table = BYTE_MAP[transform];
+        return table[0][(int) squares & 0xFF]
+                | table[1][(int) (squares >>> 8) & 0xFF]
+                | table[2][(int) (squares >>> 16) & 0xFF]
+                | table[3][(int) (squares >>> 24) & 0xFF];
+    }
+
+    /**
+     * Returns the image of a square under a transform.
+     *
+     * @param transform a transform from 0 to TRANSFORMS - 1
+     * @param square the index of the square, row * 5 + col
+     */
+    public static int transformSquare(int transform, int square) {
+        return SQUARE_MAP[transform][square];
+    }
+
+    /**
+     * Returns the image of a move under a transform.
+     *
+     * @param transform a transform from 0 to TRANSFORMS - 1
+     * @param move a move encoded by Move, or Move.PASS
+     */
+    public static int transformMove(int transform, int move) {
+        if (move == Move.PASS) {
+            return Move.PASS;
+        }
+        return Move.encode(SQUARE_MAP[transform][Move.from(move)], SQUARE_MAP[transform][Move.to(move)]);
+    }
+
+    /**
+     * Returns the transform that undoes a transform.
+     */
+    public static int inverse(int transform) {
+        return INVERSE[transform];
+    }
+
+    /**
+     * Packs a position and the player to move into a long.
+     *
+     * @param black the mask of the BLACK pieces
+     * @param white the mask of the WHITE pieces
+     * @param player the player to move
+     * @return black | white << 25 | side << 50
+     */
+    public static long pack(long black, long white, Color player) {
+        return black | white << WHITE_SHIFT | (player == Color.BLACK ? 1L << SIDE_SHIFT : 0);
+    }
+
+    /**
+     * Returns the BLACK pieces of a packed position.
+     */
+    public static long packedBlack(long packed) {
+        return packed & SQUARE_MASK;
+    }
+
+    /**
+     * Returns the WHITE pieces of a packed position.
+     */
+    public static long packedWhite(long packed) {
+        return (packed >>> WHITE_SHIFT) & SQUARE_MASK;
+    }
+
+    /**
+     * Returns the player to move in a packed position.
+     */
+    public static Color packedPlayer(long packed) {
+        return (packed >>> SIDE_SHIFT) != 0 ? Color.BLACK : Color.WHITE;
+    }
+
+    /**
+     * Returns the canonical form of a position: its smallest packed image under
+     * the eight rotations and reflections.
+     *
+     * @param black the mask of the BLACK pieces
+     * @param white the mask of the WHITE pieces
+     * @param player the player to move
+     * @return the same value for every position of the symmetry class
+     */
+    public static long canonical(long black, long white, Color player) {
+        int transform = canonicalTransform(black, white);
+        return pack(transform(transform, black), transform(transform, white), player);
+    }
+
+    /**
+     * Returns the canonical form of a position on a board.
+     */
+    public static long canonical(Board board, Color player) {
+        return canonical(board.getPieces(Color.BLACK), board.getPieces(Color.WHITE), player);
+    }
+
+    /**
+     * Returns the transform that takes a position to its canonical form. Moves
+     * of the canonical position map back with the inverse of this transform.
+     *
+     * @param black the mask of the BLACK pieces
+     * @param white the mask of the WHITE pieces
+     * @return the transform giving the smallest packed image, the lowest one on ties
+     */
+    public static int canonicalTransform(long black, long white) {
+        int best = IDENTITY;
+        long bestPacked = black | white << WHITE_SHIFT;
+        for (int t = 1; t < TRANSFORMS; t++) {
+            long packed = transform(t, black) | transform(t, white) << WHITE_SHIFT;
+            if (packed < bestPacked) {
+                bestPacked = packed;
+                best = t;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the canonical form of a position under the eight transforms and
+     * the swap of colors and player to move. See the class comment for why
+     * that swap is not exactly a symmetry.
+     *
+     * @param black the mask of the BLACK pieces
+     * @param white the mask of the WHITE pieces
+     * @param player the player to move
+     * @return the same value for every position of the class of sixteen
+     */
+    public static long canonicalWithColorSwap(long black, long white, Color player) {
+        return Math.min(canonical(black, white, player), canonical(white, black, player.opposite()));
+    }
+
+    /**
+     * Returns a Zobrist hash of the canonical form of a position, for tables
+     * that index by hash.
+     *
+     * @param canonical a packed position, usually from canonical
+     * @return the hash Zobrist.key gives the unpacked position
+     */
+    public static long hash(long canonical) {
+        long result = (canonical >>> SIDE_SHIFT) != 0 ? Zobrist.SIDE_KEY : 0;
+        for (long rest = packedBlack(canonical); rest != 0; rest &= rest - 1) {
+            result ^= Zobrist.BLACK_KEYS[Long.numberOfTrailingZeros(rest)];
+        }
+        for (long rest = packedWhite(canonical); rest != 0; rest &= rest - 1) {
+            result ^= Zobrist.WHITE_KEYS[Long.numberOfTrailingZeros(rest)];
+        }
+        return result;
+    }
+}
@@ -0,0 +1,59 @@
+package main.java;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random keys for Zobrist hashing of Entropy positions.
+ *
+ * The hash of a position is the XOR of one key per piece on the board, which
+ * Board keeps up to date as pieces move (see Board.getHash). The player to
+ * move is not part of the board, so searches XOR in SIDE_KEY when BLACK is to
+ * move, and PASS_KEY when the last move was a pass, since a second pass in a
+ * row freezes the game. The keys come from a fixed seed, so hashes are the same between runs
+ * and can be stored in files.
+ */
+public final class Zobrist {
+
+    // Keys for a BLACK and a WHITE piece on each square
+    static final long[] BLACK_KEYS = new long[64];
+    static final long[] WHITE_KEYS = new long[64];
+
+    public static final long SIDE_KEY;
+
+    public static final long PASS_KEY;
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x456E74726F7079L);
+        for (int square = 0; square < BLACK_KEYS.length; square++) {
+            BLACK_KEYS[square] = random.nextLong();
+            WHITE_KEYS[square] = random.nextLong();
+        }
+        SIDE_KEY = random.nextLong();
+        PASS_KEY = random.nextLong();
+    }
+
+    private Zobrist() {
+    }
+
+    /**
+     * Returns the key of a piece on a square.
+     *
+     * @param player the color of the piece
+     * @param square the index of the square, row * size + col for the size of the board's Geometry
+     * @return the key XORed into the hash while the piece is there
+     */
+    public static long pieceKey(Color player, int square) {
+        return player == Color.BLACK ? BLACK_KEYS[square] : WHITE_KEYS[square];
+    }
+
+    /**
+     * Returns the hash of a position together with the player to move.
+     *
+     * @param board the position
+     * @param player the player to move
+     * @return board.getHash(), with SIDE_KEY XORed in when BLACK is to move
+     */
+    public static long key(Board board, Color player) {
+        return player == Color.BLACK ? board.getHash() ^ SIDE_KEY : board.getHash();
+    }
+}
@@ -0,0 +1,234 @@
+package main.java.analysis;
+
+import main.java.Board;
+import main.java.Color;
+import main.java.Symmetry;
+import main.java.engine.Evaluator;
+import main.java.engine.MobilityEvaluator;
+import main.java.engine.Search;
+import main.java.engine.TranspositionTable;
+import main.java.sim.GameRecordReader;
+import main.java.sim.GameResult;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Analyzes many positions in one call, split over a ForkJoinPool.
+ *
+ * Positions are packed into longs as Symmetry.pack does. The win state, the
+ * must-pass flags and the mobility come straight from the masks through the
+ * static methods of Board, so any material is accepted; scores need a Board
+ * and so need 7 pieces a side. Each range of positions is split in half until
+ * it is small enough for one task, so all workers of the pool share the work.
+ */
+public class BatchAnalyzer {
+
+    // Positions per task for the mask-only work and for searched scores
+    private static final int THRESHOLD = 4096;
+    private static final int SEARCH_THRESHOLD = 8;
+
+    private static final int SEARCH_TABLE_MEGABYTES = 1;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates an analyzer that runs on the common pool.
+     */
+    public BatchAnalyzer() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates an analyzer that runs on the given pool.
+     *
+     * @param pool the pool to split the work over
+     */
+    public BatchAnalyzer(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Finds the win state, must-pass flags and mobility of every position.
+     *
+     * @param positions the packed positions
+     * @return the results, without scores
+     */
+    public BatchResult analyze(long[] positions) {
+        BatchResult result = new BatchResult(positions.length, false);
+        pool.invoke(new Task(positions, result, null, null, 0, 0, positions.length));
+        return result;
+    }
+
+    /**
+     * Analyzes every position and scores it with an evaluator.
+     *
+     * @param positions the packed positions, with 7 pieces a side
+     * @param evaluator the evaluator, called from several threads at once
+     * @return the results, with static scores
+     * @throws IllegalArgumentException if a position does not have 7 pieces a side
+     */
+    public BatchResult analyze(long[] positions, Evaluator evaluator) throws IllegalArgumentException {
+        BatchResult result = new BatchResult(positions.length, true);
+        pool.invoke(new Task(positions, result, evaluator, null, 0, 0, positions.length));
+        return result;
+    }
+
+    /**
+     * Analyzes every position and scores it with a fixed-depth Search.
+     *
+     * Every thread of the call keeps one Search whose table keeps searches
+     * apart, so searched scores do not depend on how the work was split or on
+     * which other positions are in the batch. The searches are dropped when
+     * the call returns.
+     *
+     * @param positions the packed positions, with 7 pieces a side
+     * @param evaluator the evaluator of the searches, called from several threads at once
+     * @param depth the search depth, at least 1
+     * @return the results, with searched scores
+     * @throws IllegalArgumentException if a position does not have 7 pieces a side
+     */
+    public BatchResult analyze(long[] positions, Evaluator evaluator, int depth) throws IllegalArgumentException {
+        BatchResult result = new BatchResult(positions.length, true);
+        Map<Thread, Search> searches = new ConcurrentHashMap<>();
+        pool.invoke(new Task(positions, result, evaluator, searches, depth, 0, positions.length));
+        return result;
+    }
+
+    /**
+     * Analyzes every position of a game record file and prints a summary.
+     *
+     * @param args the game record file, and the search depth of the scores (default 0 for static scores)
+     */
+    public static void main(String[] args) throws IOException {
+        long[] positions = new long[1 << 16];
+        int count = 0;
+        try (GameRecordReader reader = new GameRecordReader(Paths.get(args[0]))) {
+            while (reader.hasNext()) {
+                GameResult game = reader.next();
+                Board board = game.getStart();
+                if (board.getGeometry().getSize() != Board.BOARD_SIZE) {
+                    continue; // Packed positions are for the standard board
+                }
+                Color player = game.getFirstPlayer();
+                for (int ply = 0; ply <= game.getLength(); ply++) {
+                    if (count == positions.length) {
+                        positions = Arrays.copyOf(positions, 2 * count);
+                    }
+                    positions[count++] = Symmetry.pack(board.getPieces(Color.BLACK), board.getPieces(Color.WHITE),
+                            player);
+                    if (ply < game.getLength()) {
+                        board.makeMove(game.getMove(ply));
+                        player = player.opposite();
+                    }
+                }
+            }
+        }
+        positions = Arrays.copyOf(positions, count);
+        int depth = args.length > 1 ? Integer.parseInt(args[1]) : 0;
+
+        long start = System.nanoTime();
+        BatchAnalyzer analyzer = new BatchAnalyzer();
+        BatchResult result = depth > 0
+                ? analyzer.analyze(positions, new MobilityEvaluator(), depth)
+                : analyzer.analyze(positions, new MobilityEvaluator());
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long mustPass = 0;
+        long mobility = 0;
+        for (int i = 0; i < count; i++) {
+            Color player = Symmetry.packedPlayer(positions[i]);
+            mustPass += (player == Color.BLACK ? result.getBlackMustPass() : result.getWhiteMustPass())[i] ? 1 : 0;
+            mobility += (player == Color.BLACK ? result.getBlackMobility() : result.getWhiteMobility())[i];
+        }
+        System.out.printf("%d positions in %.2f s (%.0f/s) on %d threads: %.1f%% must pass, %.2f moves on average%n",
+                count, seconds, count / seconds, analyzer.pool.getParallelism(),
+                100.0 * mustPass / Math.max(1, count), (double) mobility / Math.max(1, count));
+    }
+
+    /**
+     * Analyzes a range of positions, splitting it while it is large.
+     */
+    private static class Task extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long[] positions;
+
+        private final BatchResult result;
+
+        private final Evaluator evaluator;
+
+        // The Search of each thread of the call, null for static scores
+        private final Map<Thread, Search> searches;
+
+        private final int depth;
+
+        private final int from;
+
+        private final int to;
+
+        Task(long[] positions, BatchResult result, Evaluator evaluator, Map<Thread, Search> searches, int depth,
+             int from, int to) {
+            this.positions = positions;
+            this.result = result;
+            this.evaluator = evaluator;
+            this.searches = searches;
+            this.depth = depth;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > (depth > 0 ? SEARCH_THRESHOLD : THRESHOLD)) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Task(positions, result, evaluator, searches, depth, from, middle),
+                        new Task(positions, result, evaluator, searches, depth, middle, to));
+                return;
+            }
+            byte[] winner = result.getWinner();
+            boolean[] blackMustPass = result.getBlackMustPass();
+            boolean[] whiteMustPass = result.getWhiteMustPass();
+            int[] blackMobility = result.getBlackMobility();
+            int[] whiteMobility = result.getWhiteMobility();
+            for (int i = from; i < to; i++) {
+                long black = Symmetry.packedBlack(positions[i]);
+                long white = Symmetry.packedWhite(positions[i]);
+                Color win = Board.checkWin(black, white);
+                winner[i] = win == null ? BatchResult.NO_WINNER
+                        : win == Color.BLACK ? BatchResult.BLACK_WINS : BatchResult.WHITE_WINS;
+                blackMustPass[i] = Board.mustPass(black, white);
+                whiteMustPass[i] = Board.mustPass(white, black);
+                blackMobility[i] = Board.countMoves(black, white);
+                whiteMobility[i] = Board.countMoves(white, black);
+            }
+            if (evaluator != null) {
+                score();
+            }
+        }
+
+        private void score() {
+            int[] scores = result.getScores();
+            Search search = searches == null ? null
+                    : searches.computeIfAbsent(Thread.currentThread(), thread -> newSearch());
+            for (int i = from; i < to; i++) {
+                Board board = new Board(Symmetry.packedBlack(positions[i]), Symmetry.packedWhite(positions[i]));
+                Color player = Symmetry.packedPlayer(positions[i]);
+                scores[i] = search == null ? evaluator.evaluate(board, player)
+                        : search.searchDepth(board, player, depth).getScore();
+            }
+        }
+
+        private Search newSearch() {
+            TranspositionTable table = new TranspositionTable(SEARCH_TABLE_MEGABYTES);
+            table.setSearchesIsolated(true);
+            return new Search(evaluator, table);
+        }
+    }
+}
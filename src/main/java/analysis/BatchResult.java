@@ -0,0 +1,86 @@
+package main.java.analysis;
+
+/**
+ * The results of a BatchAnalyzer run, one entry per position in each array,
+ * in the order the positions were given.
+ *
+ * The arrays are returned without copying, since batches can be large; they
+ * belong to the caller once the analysis has returned.
+ */
+public class BatchResult {
+
+    // Values of the winner array
+    public static final byte NO_WINNER = 0;
+    public static final byte BLACK_WINS = 1;
+    public static final byte WHITE_WINS = 2;
+
+    private final byte[] winner;
+
+    private final boolean[] blackMustPass;
+
+    private final boolean[] whiteMustPass;
+
+    private final int[] blackMobility;
+
+    private final int[] whiteMobility;
+
+    private final int[] scores;
+
+    /**
+     * Creates empty results for a number of positions.
+     *
+     * @param size the number of positions
+     * @param withScores whether there will be scores
+     */
+    BatchResult(int size, boolean withScores) {
+        winner = new byte[size];
+        blackMustPass = new boolean[size];
+        whiteMustPass = new boolean[size];
+        blackMobility = new int[size];
+        whiteMobility = new int[size];
+        scores = withScores ? new int[size] : null;
+    }
+
+    //region Getters
+    public int size() {
+        return winner.length;
+    }
+
+    /**
+     * Returns what checkWin gives for every position: NO_WINNER, BLACK_WINS or WHITE_WINS.
+     */
+    public byte[] getWinner() {
+        return winner;
+    }
+
+    public boolean[] getBlackMustPass() {
+        return blackMustPass;
+    }
+
+    public boolean[] getWhiteMustPass() {
+        return whiteMustPass;
+    }
+
+    /**
+     * Returns the number of legal BLACK moves in every position, considering checks.
+     */
+    public int[] getBlackMobility() {
+        return blackMobility;
+    }
+
+    /**
+     * Returns the number of legal WHITE moves in every position, considering checks.
+     */
+    public int[] getWhiteMobility() {
+        return whiteMobility;
+    }
+
+    /**
+     * Returns the score of every position for its player to move, or null if
+     * no scores were asked for.
+     */
+    public int[] getScores() {
+        return scores;
+    }
+    //endregion
+}
@@ -0,0 +1,61 @@
+package main.java.book;
+
+/**
+ * The statistics of one move in one position of an OpeningBook.
+ */
+public class BookMove {
+
+    private final int move;
+
+    private final int games;
+
+    private final int wins;
+
+    private final int draws;
+
+    /**
+     * Creates a book move.
+     *
+     * @param move the move, encoded by Move, in the frame of the position it was looked up for
+     * @param games the number of games in which it was played
+     * @param wins how many of those the player who made it won
+     * @param draws how many of those nobody won
+     */
+    public BookMove(int move, int games, int wins, int draws) {
+        this.move = move;
+        this.games = games;
+        this.wins = wins;
+        this.draws = draws;
+    }
+
+    //region Getters
+    public int getMove() {
+        return move;
+    }
+
+    public int getGames() {
+        return games;
+    }
+
+    public int getWins() {
+        return wins;
+    }
+
+    public int getDraws() {
+        return draws;
+    }
+    //endregion
+
+    /**
+     * Returns the expected result for the player making the move, counting a
+     * draw as half a win.
+     */
+    public double getScore() {
+        return (wins + draws / 2.0) / games;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d games, %.1f%%", games, 100 * getScore());
+    }
+}
@@ -0,0 +1,188 @@
+package main.java.book;
+
+import main.java.Board;
+import main.java.Color;
+import main.java.Move;
+import main.java.Symmetry;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Move statistics from recorded games for the positions of the opening,
+ * read from a file built by OpeningBookBuilder.
+ *
+ * Positions are stored once per symmetry class, by their canonical form
+ * (see Symmetry.canonical), with their moves mapped into the same frame. An
+ * entry's key is canonical << 12 | move, so the moves of a position are next
+ * to each other in the sorted file. The file starts with HEADER_BYTES of
+ * header: the magic number, the format version, the ply limit the book was
+ * built with and a reserved int, then the number of entries as a long. Each
+ * entry is ENTRY_BYTES long: the key, then the games, wins and draws as ints.
+ * The file is memory mapped and looked up by binary search.
+ */
+public class OpeningBook implements AutoCloseable {
+
+    public static final int MAGIC = 0x454E544F; // "ENTO"
+
+    public static final int VERSION = 1;
+
+    public static final int HEADER_BYTES = 24;
+
+    public static final int ENTRY_BYTES = 20;
+
+    private final FileChannel channel;
+
+    private final MappedByteBuffer entries;
+
+    private final long count;
+
+    private final int maxPlies;
+
+    private final int minGames;
+
+    private OpeningBook(FileChannel channel, MappedByteBuffer entries, long count, int maxPlies, int minGames) {
+        this.channel = channel;
+        this.entries = entries;
+        this.count = count;
+        this.maxPlies = maxPlies;
+        this.minGames = minGames;
+    }
+
+    /**
+     * Maps a book file.
+     *
+     * @param file a file written by OpeningBookBuilder
+     * @param minGames the fewest games a move needs to be chosen by bestMove
+     * @return the book, to be closed when no longer used
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the file is not an opening book
+     */
+    public static OpeningBook open(Path file, int minGames) throws IOException, IllegalArgumentException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            if (channel.size() < HEADER_BYTES || channel.size() - HEADER_BYTES > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Not an opening book file: " + file);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IllegalArgumentException("Not an opening book file: " + file);
+            }
+            long count = buffer.getLong(16);
+            if (count * ENTRY_BYTES != channel.size() - HEADER_BYTES) {
+                throw new IllegalArgumentException("Opening book file is truncated or inconsistent");
+            }
+            return new OpeningBook(channel, buffer, count, buffer.getInt(8), minGames);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the moves recorded for a position.
+     *
+     * @param board the position
+     * @param player the player to move
+     * @return the moves in the frame of board, most played first; empty if the position is not in the book
+     */
+    public List<BookMove> lookup(Board board, Color player) {
+        long black = board.getPieces(Color.BLACK);
+        long white = board.getPieces(Color.WHITE);
+        int transform = Symmetry.canonicalTransform(black, white);
+        long prefix = Symmetry.pack(Symmetry.transform(transform, black), Symmetry.transform(transform, white),
+                player);
+        int back = Symmetry.inverse(transform);
+
+        List<BookMove> moves = new ArrayList<>();
+        for (long i = lowerBound(prefix << 12); i < count && key(i) >>> 12 == prefix; i++) {
+            int position = (int) (HEADER_BYTES + i * ENTRY_BYTES);
+            moves.add(new BookMove(Symmetry.transformMove(back, (int) (key(i) & 0xFFF)),
+                    entries.getInt(position + 8), entries.getInt(position + 12), entries.getInt(position + 16)));
+        }
+        moves.sort((a, b) -> Integer.compare(b.getGames(), a.getGames()));
+        return moves;
+    }
+
+    /**
+     * Returns the book move with the best score among those played in at
+     * least minGames games.
+     *
+     * @param board the position
+     * @param player the player to move
+     * @return the move, or Move.PASS if the book has none for the position
+     */
+    public int bestMove(Board board, Color player) {
+        BookMove best = null;
+        for (BookMove move : lookup(board, player)) {
+            if (move.getGames() >= minGames && (best == null || move.getScore() > best.getScore())) {
+                best = move;
+            }
+        }
+        return best == null ? Move.PASS : best.getMove();
+    }
+
+    //region Getters
+    public long size() {
+        return count;
+    }
+
+    public int getMaxPlies() {
+        return maxPlies;
+    }
+    //endregion
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Returns a move of a position in the frame of its canonical form. If the
+     * position is symmetric, so that several transforms give that form, the
+     * smallest of the move's images is used, so that equivalent moves share
+     * one entry.
+     *
+     * @param black the mask of the BLACK pieces
+     * @param white the mask of the WHITE pieces
+     * @param move a move of the position, encoded by Move
+     */
+    static int canonicalMove(long black, long white, int move) {
+        int transform = Symmetry.canonicalTransform(black, white);
+        long canonicalBlack = Symmetry.transform(transform, black);
+        long canonicalWhite = Symmetry.transform(transform, white);
+        int best = Symmetry.transformMove(transform, move);
+        for (int t = transform + 1; t < Symmetry.TRANSFORMS; t++) {
+            if (Symmetry.transform(t, black) == canonicalBlack && Symmetry.transform(t, white) == canonicalWhite) {
+                best = Math.min(best, Symmetry.transformMove(t, move));
+            }
+        }
+        return best;
+    }
+
+    private long key(long i) {
+        return entries.getLong((int) (HEADER_BYTES + i * ENTRY_BYTES));
+    }
+
+    /**
+     * Returns the first entry whose key is not less than a key.
+     */
+    private long lowerBound(long target) {
+        long low = 0;
+        long high = count;
+        while (low < high) {
+            long middle = (low + high) >>> 1;
+            if (key(middle) < target) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
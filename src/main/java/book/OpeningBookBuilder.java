@@ -0,0 +1,207 @@
+package main.java.book;
+
+import main.java.Board;
+import main.java.Color;
+import main.java.Move;
+import main.java.Symmetry;
+import main.java.sim.GameRecordReader;
+import main.java.sim.GameResult;
+import main.java.sim.GameSink;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Counts how often each move was played in the opening of a batch of games,
+ * and how those games ended, and writes the counts as an OpeningBook file.
+ *
+ * The counts are kept in an open-addressing hash table of primitive arrays
+ * keyed like the book entries, so millions of games can be added without an
+ * object per position. Passes are not stored; a player with no move has no
+ * choice to make.
+ */
+public class OpeningBookBuilder implements GameSink {
+
+    private static final int INITIAL_CAPACITY = 1 << 16;
+
+    private final int maxPlies;
+
+    // Open addressing with linear probing; a key of 0 marks an empty slot,
+    // which no entry has since BLACK always has pieces
+    private long[] keys = new long[INITIAL_CAPACITY];
+
+    // Games, wins and draws of the entry in the same slot of keys
+    private int[] counts = new int[3 * INITIAL_CAPACITY];
+
+    private int size;
+
+    /**
+     * Creates a builder.
+     *
+     * @param maxPlies the number of plies of each game to count
+     */
+    public OpeningBookBuilder(int maxPlies) {
+        this.maxPlies = maxPlies;
+    }
+
+    /**
+     * Counts the moves of the first maxPlies plies of a game. Safe to call from several threads.
+     * Games on other boards than the standard one are skipped.
+     */
+    @Override
+    public synchronized void accept(GameResult result) {
+        Board board = result.getStart();
+        if (board.getGeometry().getSize() != Board.BOARD_SIZE) {
+            return; // Books are for the standard board
+        }
+        Color player = result.getFirstPlayer();
+        int plies = Math.min(maxPlies, result.getLength());
+        for (int ply = 0; ply < plies; ply++) {
+            int move = result.getMove(ply);
+            if (move != Move.PASS) {
+                long black = board.getPieces(Color.BLACK);
+                long white = board.getPieces(Color.WHITE);
+                long key = Symmetry.canonical(black, white, player) << 12
+                        | OpeningBook.canonicalMove(black, white, move);
+                int slot = slot(key);
+                counts[3 * slot]++;
+                if (result.getWinner() == player) {
+                    counts[3 * slot + 1]++;
+                } else if (result.getWinner() == null) {
+                    counts[3 * slot + 2]++;
+                }
+            }
+            board.makeMove(move);
+            player = player.opposite();
+        }
+    }
+
+    /**
+     * Counts every game of a game record file.
+     *
+     * @param reader the games to count, read to the end
+     */
+    public void addAll(GameRecordReader reader) {
+        while (reader.hasNext()) {
+            accept(reader.next());
+        }
+    }
+
+    /**
+     * Returns the number of distinct position and move pairs counted.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Writes the counted moves as a book file, sorted by key.
+     *
+     * @param file the file to create or replace
+     * @param minGames the fewest games a move needs to be written
+     * @return the number of entries written
+     * @throws IOException if the file cannot be written
+     */
+    public synchronized long write(Path file, int minGames) throws IOException {
+        long[] sorted = new long[size];
+        int kept = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != 0 && counts[3 * slot] >= minGames) {
+                sorted[kept++] = keys[slot];
+            }
+        }
+        Arrays.sort(sorted, 0, kept);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer block = ByteBuffer.allocate(OpeningBook.ENTRY_BYTES * 4096);
+            block.putInt(OpeningBook.MAGIC).putInt(OpeningBook.VERSION).putInt(maxPlies).putInt(0).putLong(kept);
+            for (int i = 0; i < kept; i++) {
+                if (block.remaining() < OpeningBook.ENTRY_BYTES) {
+                    writeFully(channel, block);
+                }
+                int slot = find(sorted[i]);
+                block.putLong(sorted[i]).putInt(counts[3 * slot]).putInt(counts[3 * slot + 1])
+                        .putInt(counts[3 * slot + 2]);
+            }
+            writeFully(channel, block);
+        }
+        return kept;
+    }
+
+    /**
+     * Builds a book from game record files.
+     *
+     * @param args the book file to write, the number of plies to count, the
+     *             fewest games a move needs to be kept, and one or more game
+     *             record files
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 4) {
+            throw new IllegalArgumentException("Usage: <book> <plies> <min games> <records>...");
+        }
+        OpeningBookBuilder builder = new OpeningBookBuilder(Integer.parseInt(args[1]));
+        for (int i = 3; i < args.length; i++) {
+            try (GameRecordReader reader = new GameRecordReader(Paths.get(args[i]))) {
+                builder.addAll(reader);
+            }
+        }
+        long written = builder.write(Paths.get(args[0]), Integer.parseInt(args[2]));
+        System.out.println(builder.size() + " moves counted, " + written + " written to " + args[0]);
+    }
+
+    /**
+     * Returns the slot of a key, adding it if it is new.
+     */
+    private int slot(long key) {
+        int slot = find(key);
+        if (keys[slot] == 0) {
+            if (2 * (size + 1) > keys.length) {
+                grow();
+                slot = find(key);
+            }
+            keys[slot] = key;
+            size++;
+        }
+        return slot;
+    }
+
+    /**
+     * Returns the slot holding a key, or the empty slot where it would go.
+     */
+    private int find(long key) {
+        int mask = keys.length - 1;
+        int slot = (int) (key * 0x9E3779B97F4A7C15L >>> 32) & mask;
+        while (keys[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = new long[2 * oldKeys.length];
+        counts = new int[3 * keys.length];
+        for (int old = 0; old < oldKeys.length; old++) {
+            if (oldKeys[old] != 0) {
+                int slot = find(oldKeys[old]);
+                keys[slot] = oldKeys[old];
+                System.arraycopy(oldCounts, 3 * old, counts, 3 * slot, 3);
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer block) throws IOException {
+        block.flip();
+        while (block.hasRemaining()) {
+            channel.write(block);
+        }
+        block.clear();
+    }
+}
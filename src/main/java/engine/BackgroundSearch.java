@@ -0,0 +1,250 @@
+package main.java.engine;
+
+import main.java.Board;
+import main.java.Color;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Searches on a background thread while the caller does something else, such
+ * as waiting for a human to type a move.
+ *
+ * There are two uses. In analysis, a position is searched with no limit and
+ * every completed iteration is streamed to the listener, until the caller
+ * stops it. In play, the engine ponders: once it has chosen a move, it plays
+ * it and the reply its principal variation predicts on a copy of the board,
+ * and searches the position after both on the opponent's time. If the
+ * opponent does play the predicted reply, respond keeps that search going
+ * instead of starting over, and the time it already spent pondering counts
+ * against the budget: once the opponent took longer than the budget, the
+ * answer is immediate. On any other reply the ponder
+ * search is stopped and the actual position is searched, with the results of
+ * the ponder search still in the transposition table.
+ *
+ * Only one search runs at a time. Starting a new one stops the last. A
+ * BackgroundSearch is meant to be driven from one thread.
+ */
+public class BackgroundSearch implements AutoCloseable {
+
+    private final Search search;
+
+    private final TranspositionTable table;
+
+    private final ExecutorService thread;
+
+    private volatile SearchListener listener;
+
+    private Future<SearchResult> running;
+
+    // The position the running search ponders on, null when it is not pondering
+    private Board ponderPosition;
+
+    private Color ponderPlayer;
+
+    // When the running ponder search started, from System.nanoTime
+    private long ponderStart;
+
+    private long ponderHits;
+
+    private long ponderMisses;
+
+    /**
+     * Creates a background search.
+     *
+     * @param evaluator the evaluation used at the horizon
+     * @param tableMegabytes the memory cap of the transposition table, kept between searches
+     */
+    public BackgroundSearch(Evaluator evaluator, int tableMegabytes) {
+        table = new TranspositionTable(tableMegabytes);
+        search = new Search(evaluator, table);
+        search.setListener(result -> {
+            SearchListener current = listener;
+            if (current != null) {
+                current.onIteration(result);
+            }
+        });
+        thread = Executors.newSingleThreadExecutor(runnable -> {
+            Thread background = new Thread(runnable, "background-search");
+            background.setDaemon(true);
+            return background;
+        });
+    }
+
+    /**
+     * Sets the listener told about every completed iteration of every search, or null for none.
+     *
+     * @param listener called on the background thread, so it should return quickly
+     */
+    public void setListener(SearchListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Starts searching a position with no depth or time limit, stopping any
+     * search already running.
+     *
+     * @param position the position to analyze, copied
+     * @param player the player to move
+     * @throws IllegalArgumentException if the position is not on the standard board with at most 7 pieces a side
+     */
+    public void analyze(Board position, Color player) throws IllegalArgumentException {
+        start(position, player);
+    }
+
+    /**
+     * Returns whether a search is running.
+     */
+    public boolean isRunning() {
+        return running != null && !running.isDone();
+    }
+
+    /**
+     * Stops the running search, if any, and waits for it.
+     *
+     * @return the result of its deepest completed iteration, or null if no search was running
+     * @throws IllegalStateException if the search failed or the wait was interrupted
+     */
+    public SearchResult stop() throws IllegalStateException {
+        if (running == null) {
+            return null;
+        }
+        search.stop();
+        SearchResult result = await(running);
+        running = null;
+        ponderPosition = null;
+        return result;
+    }
+
+    /**
+     * Chooses a move: keeps pondering if the position is the predicted one,
+     * and searches it from scratch otherwise.
+     *
+     * @param position the position to move in
+     * @param player the player to move
+     * @param millis the time budget in milliseconds, which on a ponder hit
+     *               includes the time already spent pondering
+     * @return the result of the deepest completed iteration
+     * @throws IllegalArgumentException if the position is not on the standard board with at most 7 pieces a side
+     * @throws IllegalStateException if the search failed or the wait was interrupted
+     */
+    public SearchResult respond(Board position, Color player, long millis)
+            throws IllegalArgumentException, IllegalStateException {
+        long wait = millis;
+        if (running != null && ponderPosition != null && ponderPlayer == player && ponderPosition.equals(position)) {
+            ponderHits++;
+            ponderPosition = null;
+            wait -= (System.nanoTime() - ponderStart) / 1_000_000;
+            if (wait <= 0) {
+                return stop();
+            }
+        } else {
+            if (ponderPosition != null) {
+                ponderMisses++;
+            }
+            start(position, player);
+        }
+        try {
+            SearchResult result = running.get(wait, TimeUnit.MILLISECONDS);
+            running = null;
+            return result;
+        } catch (TimeoutException e) {
+            return stop();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the background search", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Background search failed", e.getCause());
+        }
+    }
+
+    /**
+     * Plays a chosen move and the reply its principal variation predicts on a
+     * copy of the board, and starts searching the position after both. If
+     * there is no predicted reply, the position after the move is analyzed
+     * instead, which still fills the table for the next respond.
+     *
+     * @param position the position the move was chosen in
+     * @param player the player who chose it
+     * @param result the result the move came from
+     */
+    public void ponder(Board position, Color player, SearchResult result) {
+        int[] line = result.getPrincipalVariation();
+        if (line.length == 0) {
+            stop();
+            return;
+        }
+        Board next = new Board(position);
+        next.makeMove(line[0]);
+        if (next.checkWin() == player) {
+            stop(); // The game is over
+            return;
+        }
+        if (line.length < 2) {
+            start(next, player.opposite());
+            return;
+        }
+        next.makeMove(line[1]);
+        start(next, player);
+        ponderStart = System.nanoTime();
+        ponderPosition = next;
+        ponderPlayer = player;
+    }
+
+    //region Getters
+    /**
+     * Returns how many times respond was called in the position being pondered.
+     */
+    public long getPonderHits() {
+        return ponderHits;
+    }
+
+    /**
+     * Returns how many times respond was called while pondering a different position.
+     */
+    public long getPonderMisses() {
+        return ponderMisses;
+    }
+    //endregion
+
+    /**
+     * Stops the search thread.
+     */
+    @Override
+    public void close() {
+        search.stop();
+        thread.shutdownNow();
+    }
+
+    /**
+     * Stops the running search and starts one on a position, with no limits.
+     */
+    private void start(Board position, Color player) throws IllegalArgumentException {
+        Search.checkSearchable(position);
+        stop();
+        Board copy = new Board(position);
+        search.clearStopRequest();
+        table.newSearch();
+        running = thread.submit(() -> search.iterate(copy, player, 1, Search.MAX_PLY, Long.MAX_VALUE));
+    }
+
+    /**
+     * Waits for the result of the background search.
+     *
+     * @throws IllegalStateException if the search failed or the wait was interrupted
+     */
+    private static SearchResult await(Future<SearchResult> future) throws IllegalStateException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the background search", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Background search failed", e.getCause());
+        }
+    }
+}
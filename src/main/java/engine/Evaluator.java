@@ -0,0 +1,23 @@
+package main.java.engine;
+
+import main.java.Board;
+import main.java.Color;
+
+/**
+ * Scores a position for the search.
+ *
+ * One Evaluator may be shared by several searches, so implementations should
+ * not keep per-call state.
+ */
+public interface Evaluator {
+
+    /**
+     * Scores a position from the point of view of the player to move.
+     *
+     * @param board the position to score
+     * @param player the player to move
+     * @return a score that is higher the better the position is for player
+     * @spec.requires the result is well inside +/- Search.WIN_SCORE
+     */
+    int evaluate(Board board, Color player);
+}
@@ -0,0 +1,44 @@
+package main.java.engine;
+
+import main.java.Board;
+import main.java.Color;
+
+/**
+ * Scores a position by how close each player is to having no movable piece.
+ *
+ * A player wants their pieces in check, so every piece in check is worth
+ * isolatedWeight, and the difference in the number of legal moves breaks ties.
+ */
+public class MobilityEvaluator implements Evaluator {
+
+    private final int isolatedWeight;
+
+    private final int mobilityWeight;
+
+    /**
+     * Creates an evaluator with the default weights.
+     */
+    public MobilityEvaluator() {
+        this(100, 1);
+    }
+
+    /**
+     * Creates an evaluator with the given weights.
+     *
+     * @param isolatedWeight the score of one more piece in check than the opponent
+     * @param mobilityWeight the score of one more legal move than the opponent
+     */
+    public MobilityEvaluator(int isolatedWeight, int mobilityWeight) {
+        this.isolatedWeight = isolatedWeight;
+        this.mobilityWeight = mobilityWeight;
+    }
+
+    @Override
+    public int evaluate(Board board, Color player) {
+        Color opponent = player.opposite();
+        int isolated = Long.bitCount(board.getIsolatedPieces(player))
+                - Long.bitCount(board.getIsolatedPieces(opponent));
+        int mobility = board.countMoves(player) - board.countMoves(opponent);
+        return isolatedWeight * isolated + mobilityWeight * mobility;
+    }
+}
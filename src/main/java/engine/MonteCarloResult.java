@@ -0,0 +1,72 @@
+package main.java.engine;
+
+import main.java.Move;
+
+/**
+ * The outcome of a MonteCarloSearch: the most visited move and playout statistics.
+ */
+public class MonteCarloResult {
+
+    private final int bestMove;
+
+    private final double winRate;
+
+    private final long playouts;
+
+    private final int nodes;
+
+    private final long elapsedMillis;
+
+    /**
+     * Creates a Monte Carlo search result.
+     *
+     * @param bestMove the most visited move at the root
+     * @param winRate the share of playouts through bestMove won by the player to move,
+     *                counting draws as half
+     * @param playouts the number of playouts run by all threads
+     * @param nodes the number of tree nodes used
+     * @param elapsedMillis the wall-clock time of the search
+     */
+    public MonteCarloResult(int bestMove, double winRate, long playouts, int nodes, long elapsedMillis) {
+        this.bestMove = bestMove;
+        this.winRate = winRate;
+        this.playouts = playouts;
+        this.nodes = nodes;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    //region Getters
+    public int getBestMove() {
+        return bestMove;
+    }
+
+    public double getWinRate() {
+        return winRate;
+    }
+
+    public long getPlayouts() {
+        return playouts;
+    }
+
+    public int getNodes() {
+        return nodes;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+    //endregion
+
+    /**
+     * Returns how many playouts all threads ran per second of wall-clock time.
+     */
+    public long getPlayoutsPerSecond() {
+        return playouts * 1000 / Math.max(1, elapsedMillis);
+    }
+
+    @Override
+    public String toString() {
+        return Move.toString(bestMove, 5) + " win rate " + winRate + " playouts " + playouts
+                + " nodes " + nodes + " time " + elapsedMillis + "ms (" + getPlayoutsPerSecond() + "/s)";
+    }
+}
@@ -0,0 +1,355 @@
+package main.java.engine;
+
+import main.java.Board;
+import main.java.Color;
+import main.java.Move;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Monte Carlo Tree Search (UCT) over Board positions, on one or more threads.
+ *
+ * The tree lives in a pool of parallel arrays indexed by node number rather
+ * than in node objects. The children of a node take a contiguous run of node
+ * numbers. All threads grow the same tree (tree parallelism). A thread adds a
+ * virtual loss to every node on its way down, so that other threads prefer
+ * different lines until its playout is backed up. A node is expanded by the
+ * first thread to claim it, and other threads play out from it meanwhile.
+ *
+ * Playouts play random moves from Board.generateMoves, with the same turn rules
+ * as Search, on a per-thread board and move buffer, so they do not allocate.
+ * With heuristic playouts every move is the better of two random candidates,
+ * judged by how many pieces of the mover end up in check. A playout that runs
+ * for PLAYOUT_LIMIT plies, or stops because neither player can move, is won
+ * by the player with more pieces in check (see Board.getIsolationLeader).
+ */
+public class MonteCarloSearch implements AutoCloseable {
+
+    public static final int PLAYOUT_LIMIT = 200;
+
+    // Node states
+    private static final int UNEXPANDED = 0;
+    private static final int EXPANDING = 1;
+    private static final int EXPANDED = 2;
+    private static final int WON = 3;
+
+    // Playout rewards, from the point of view of the player who moved into a node
+    private static final int LOSS_REWARD = 0;
+    private static final int DRAW_REWARD = 1;
+    private static final int WIN_REWARD = 2;
+
+    private final int threads;
+
+    private final double exploration;
+
+    private final boolean heuristicPlayouts;
+
+    private final ExecutorService pool;
+
+    // The node pool
+    private final int[] move;
+    private final int[] firstChild;
+    private final int[] childCount;
+    private final AtomicIntegerArray state;
+    private final AtomicIntegerArray visits;
+    private final AtomicIntegerArray virtualLoss;
+    private final AtomicIntegerArray reward;
+    private final AtomicInteger nextFree = new AtomicInteger();
+
+    private Board root;
+
+    private Color rootPlayer;
+
+    private volatile long deadline;
+
+    /**
+     * Creates a search with random playouts and a node pool of a million nodes.
+     *
+     * @param threads the number of search threads, at least 1
+     */
+    public MonteCarloSearch(int threads) {
+        this(threads, 1 << 20, Math.sqrt(2), false);
+    }
+
+    /**
+     * Creates a search.
+     *
+     * @param threads the number of search threads, at least 1
+     * @param maxNodes the size of the node pool; once it is full the tree stops growing
+     * @param exploration the UCT exploration constant
+     * @param heuristicPlayouts whether playouts prefer moves that put the mover's pieces in check
+     * @throws IllegalArgumentException if threads or maxNodes is less than 1
+     */
+    public MonteCarloSearch(int threads, int maxNodes, double exploration, boolean heuristicPlayouts)
+            throws IllegalArgumentException {
+        if (threads < 1 || maxNodes < 1) {
+            throw new IllegalArgumentException("Need at least one thread and one node");
+        }
+        this.threads = threads;
+        this.exploration = exploration;
+        this.heuristicPlayouts = heuristicPlayouts;
+        move = new int[maxNodes];
+        firstChild = new int[maxNodes];
+        childCount = new int[maxNodes];
+        state = new AtomicIntegerArray(maxNodes);
+        visits = new AtomicIntegerArray(maxNodes);
+        virtualLoss = new AtomicIntegerArray(maxNodes);
+        reward = new AtomicIntegerArray(maxNodes);
+        AtomicInteger threadNumber = new AtomicInteger();
+        pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "mcts-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Searches a position until the time budget or the playout budget runs out.
+     *
+     * @param position the position to search, left unchanged
+     * @param player the player to move
+     * @param millis the time budget in milliseconds, Long.MAX_VALUE for none
+     * @param maxPlayouts the playout budget, shared evenly between the threads
+     * @return the most visited move and the playout statistics
+     * @throws IllegalArgumentException if the position is not on the standard board with at most 7 pieces a side
+     */
+    public MonteCarloResult search(Board position, Color player, long millis, long maxPlayouts)
+            throws IllegalArgumentException {
+        Search.checkSearchable(position);
+        long start = System.nanoTime();
+        root = new Board(position);
+        rootPlayer = player;
+        deadline = millis == Long.MAX_VALUE ? Long.MAX_VALUE : start + millis * 1_000_000;
+        clearTree();
+
+        long quota = (maxPlayouts + threads - 1) / threads;
+        List<Future<Long>> futures = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            long seed = 0x9E3779B97F4A7C15L * (i + 1) ^ start;
+            futures.add(pool.submit(() -> runPlayouts(seed, quota)));
+        }
+        long playouts = 0;
+        for (Future<Long> future : futures) {
+            playouts += await(future);
+        }
+
+        int bestChild = -1;
+        for (int child = firstChild[0]; child < firstChild[0] + childCount[0]; child++) {
+            if (bestChild < 0 || visits.get(child) > visits.get(bestChild)) {
+                bestChild = child;
+            }
+        }
+        int bestMove = bestChild < 0 ? Move.PASS : move[bestChild];
+        double winRate = bestChild < 0 || visits.get(bestChild) == 0 ? 0.5
+                : reward.get(bestChild) / (2.0 * visits.get(bestChild));
+        return new MonteCarloResult(bestMove, winRate, playouts, Math.min(nextFree.get(), move.length),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Stops the search threads.
+     */
+    @Override
+    public void close() {
+        deadline = 0;
+        pool.shutdownNow();
+    }
+
+    /**
+     * The loop of one search thread.
+     *
+     * @param seed the seed of this thread's random numbers
+     * @param quota the most playouts to run
+     * @return the number of playouts run
+     */
+    private long runPlayouts(long seed, long quota) {
+        Board board = new Board();
+        int[] moves = new int[Board.MAX_MOVES];
+        int[] path = new int[PLAYOUT_LIMIT + 1];
+        SplittableRandom random = new SplittableRandom(seed);
+        long playouts = 0;
+        while (playouts < quota && ((playouts & 15) != 0 || System.nanoTime() < deadline)) {
+            board.copyFrom(root);
+            Color player = rootPlayer;
+            boolean afterPass = false;
+            int node = 0;
+            int length = 0;
+            path[length++] = node;
+            Color winner = null;
+            boolean decided = false;
+
+            // Selection, stopping at a won node or one that is not expanded yet
+            while (length < path.length && state.get(node) == EXPANDED) {
+                int child = select(node);
+                virtualLoss.incrementAndGet(child);
+                path[length++] = child;
+                board.makeMove(move[child]);
+                afterPass = move[child] == Move.PASS;
+                node = child;
+                if (state.get(child) == WON) {
+                    winner = player;
+                    decided = true;
+                    break;
+                }
+                player = player.opposite();
+            }
+
+            // Expansion and simulation
+            if (!decided) {
+                if (state.get(node) == UNEXPANDED && state.compareAndSet(node, UNEXPANDED, EXPANDING)) {
+                    expand(node, board, player, moves);
+                }
+                winner = playout(board, player, afterPass, moves, random);
+            }
+
+            // Backpropagation
+            Color mover = rootPlayer;
+            for (int i = 1; i < length; i++) {
+                int child = path[i];
+                visits.incrementAndGet(child);
+                virtualLoss.decrementAndGet(child);
+                reward.addAndGet(child, winner == null ? DRAW_REWARD : winner == mover ? WIN_REWARD : LOSS_REWARD);
+                mover = mover.opposite();
+            }
+            visits.incrementAndGet(0);
+            playouts++;
+        }
+        return playouts;
+    }
+
+    /**
+     * Picks the child of an expanded node with the highest UCT value, counting
+     * virtual losses as real ones.
+     */
+    private int select(int node) {
+        int first = firstChild[node];
+        int last = first + childCount[node];
+        double logParent = Math.log(Math.max(1, visits.get(node)));
+        int best = first;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        for (int child = first; child < last; child++) {
+            int tries = visits.get(child) + virtualLoss.get(child);
+            if (tries == 0) {
+                return child;
+            }
+            double value = reward.get(child) / (2.0 * tries) + exploration * Math.sqrt(logParent / tries);
+            if (value > bestValue) {
+                bestValue = value;
+                best = child;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Adds the children of a node claimed by this thread. If the pool is full
+     * the node is released unexpanded and stays a leaf.
+     *
+     * @param node the node, in state EXPANDING
+     * @param board the position of the node
+     * @param player the player to move in it
+     * @param moves a scratch move buffer
+     */
+    private void expand(int node, Board board, Color player, int[] moves) {
+        int count = board.generateMoves(player, moves);
+        if (count == 0) {
+            moves[0] = Move.PASS;
+            count = 1;
+        }
+        int first = nextFree.get() + count > move.length ? move.length : nextFree.getAndAdd(count);
+        if (first + count > move.length) {
+            state.set(node, UNEXPANDED);
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            int child = first + i;
+            move[child] = moves[i];
+            board.makeMove(moves[i]);
+            state.set(child, board.checkWin() == player ? WON : UNEXPANDED);
+            board.unmakeMove(moves[i]);
+        }
+        firstChild[node] = first;
+        childCount[node] = count;
+        state.set(node, EXPANDED);
+    }
+
+    /**
+     * Plays a game out from a position.
+     *
+     * @return the winner, or null for a draw
+     */
+    private Color playout(Board board, Color player, boolean afterPass, int[] moves, SplittableRandom random) {
+        for (int ply = 0; ply < PLAYOUT_LIMIT; ply++) {
+            int count = board.generateMoves(player, moves);
+            int chosen = Move.PASS;
+            if (count > 0) {
+                chosen = moves[random.nextInt(count)];
+                if (heuristicPlayouts && count > 1) {
+                    int other = moves[random.nextInt(count)];
+                    if (isolatedAfter(board, player, other) > isolatedAfter(board, player, chosen)) {
+                        chosen = other;
+                    }
+                }
+            } else if (afterPass) {
+                break; // Neither player can move
+            }
+            board.makeMove(chosen);
+            if (board.checkWin() == player) {
+                return player;
+            }
+            afterPass = chosen == Move.PASS;
+            player = player.opposite();
+        }
+        return board.getIsolationLeader();
+    }
+
+    /**
+     * Returns how many of a player's pieces would be in check after a move.
+     */
+    private static int isolatedAfter(Board board, Color player, int candidate) {
+        board.makeMove(candidate);
+        int isolated = Long.bitCount(board.getIsolatedPieces(player));
+        board.unmakeMove(candidate);
+        return isolated;
+    }
+
+    /**
+     * Empties the node pool, leaving only the root.
+     */
+    private void clearTree() {
+        int used = Math.min(nextFree.get(), move.length);
+        for (int node = 0; node < Math.max(1, used); node++) {
+            state.set(node, UNEXPANDED);
+            visits.set(node, 0);
+            virtualLoss.set(node, 0);
+            reward.set(node, 0);
+        }
+        childCount[0] = 0;
+        firstChild[0] = 0;
+        nextFree.set(1);
+    }
+
+    /**
+     * Waits for one thread's playout count.
+     *
+     * @throws IllegalStateException if the search thread failed or the wait was interrupted
+     */
+    private static long await(Future<Long> future) throws IllegalStateException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a search thread", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Search thread failed", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package main.java.engine;
+
+import main.java.Board;
+import main.java.Color;
+import main.java.book.OpeningBook;
+import main.java.solve.SolvedPositions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Searches one position on several threads at once (Lazy SMP).
+ *
+ * Every thread runs its own Search, with its own board copy and move stacks,
+ * over the same position, and all of them share one TranspositionTable.
+ * Threads speed each other up through the results they leave in the table.
+ * Odd-numbered threads start one ply deeper than the others, so the threads
+ * spread out over the tree instead of searching it in lockstep.
+ *
+ * Thread 0 decides when the search ends: once it reaches the depth or time
+ * limit, the other threads are stopped. The result is the one from the thread
+ * that completed the deepest iteration, with ties going to the lowest thread
+ * number, so it does not depend on which thread happened to finish last.
+ */
+public class ParallelSearch implements AutoCloseable {
+
+    private final Search[] searches;
+
+    private final TranspositionTable table;
+
+    private final ExecutorService pool;
+
+    /**
+     * Creates a parallel search.
+     *
+     * @param evaluator the evaluation shared by every thread
+     * @param threads the number of search threads, at least 1
+     * @param tableMegabytes the memory cap of the shared transposition table
+     * @throws IllegalArgumentException if threads is less than 1
+     */
+    public ParallelSearch(Evaluator evaluator, int threads, int tableMegabytes) throws IllegalArgumentException {
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one search thread is needed");
+        }
+        table = new TranspositionTable(tableMegabytes);
+        searches = new Search[threads];
+        for (int i = 0; i < threads; i++) {
+            searches[i] = new Search(evaluator, table);
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "search-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Returns the number of search threads.
+     */
+    public int getThreads() {
+        return searches.length;
+    }
+
+    /**
+     * Sets the opening book to answer root positions from, or null for none.
+     *
+     * @param book a book that stays open while this search is used
+     */
+    public void setOpeningBook(OpeningBook book) {
+        searches[0].setOpeningBook(book);
+    }
+
+    /**
+     * Sets the solved positions to answer won root positions from, or null for none.
+     *
+     * @param solved positions that stay open while this search is used
+     */
+    public void setSolvedPositions(SolvedPositions solved) {
+        searches[0].setSolvedPositions(solved);
+    }
+
+    /**
+     * Searches a position on every thread until thread 0 reaches either limit.
+     *
+     * @param position the position to search, left unchanged
+     * @param player the player to move
+     * @param maxDepth the deepest iteration to run, at least 1
+     * @param millis the time budget in milliseconds, Long.MAX_VALUE for none
+     * @return the deepest result of any thread, with the node counts of every thread
+     * @throws IllegalArgumentException if the position is not on the standard board with at most 7 pieces a side
+     */
+    public ParallelSearchResult search(Board position, Color player, int maxDepth, long millis)
+            throws IllegalArgumentException {
+        Search.checkSearchable(position);
+        long start = System.nanoTime();
+        SearchResult bookResult = searches[0].bookResult(position, player);
+        if (bookResult != null) {
+            return new ParallelSearchResult(bookResult, new long[searches.length],
+                    (System.nanoTime() - start) / 1_000_000);
+        }
+        table.newSearch();
+        for (Search search : searches) {
+            search.clearStopRequest();
+        }
+        List<Future<SearchResult>> futures = new ArrayList<>(searches.length);
+        for (int i = 0; i < searches.length; i++) {
+            Search search = searches[i];
+            Board copy = new Board(position);
+            int firstDepth = Math.min(maxDepth, 1 + (i & 1));
+            futures.add(pool.submit(() -> search.iterate(copy, player, firstDepth, maxDepth, millis)));
+        }
+
+        SearchResult[] results = new SearchResult[searches.length];
+        results[0] = await(futures.get(0));
+        for (Search search : searches) {
+            search.stop();
+        }
+        for (int i = 1; i < searches.length; i++) {
+            results[i] = await(futures.get(i));
+        }
+
+        SearchResult best = results[0];
+        long[] nodes = new long[searches.length];
+        for (int i = 0; i < searches.length; i++) {
+            nodes[i] = searches[i].getNodes();
+            if (results[i] != null && results[i].getDepth() > best.getDepth()) {
+                best = results[i];
+            }
+        }
+        return new ParallelSearchResult(best, nodes, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Stops the search threads.
+     */
+    @Override
+    public void close() {
+        for (Search search : searches) {
+            search.stop();
+        }
+        pool.shutdownNow();
+    }
+
+    /**
+     * Waits for one thread's result.
+     *
+     * @throws IllegalStateException if the search thread failed or the wait was interrupted
+     */
+    private static SearchResult await(Future<SearchResult> future) throws IllegalStateException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a search thread", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Search thread failed", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package main.java.engine;
+
+/**
+ * The outcome of a ParallelSearch: the chosen result and how much work each thread did.
+ */
+public class ParallelSearchResult {
+
+    private final SearchResult best;
+
+    private final long[] nodesPerThread;
+
+    private final long elapsedMillis;
+
+    /**
+     * Creates a parallel search result.
+     *
+     * @param best the result chosen among the threads
+     * @param nodesPerThread the number of nodes each thread visited; copied
+     * @param elapsedMillis the wall-clock time of the whole search
+     */
+    public ParallelSearchResult(SearchResult best, long[] nodesPerThread, long elapsedMillis) {
+        this.best = best;
+        this.nodesPerThread = nodesPerThread.clone();
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    //region Getters
+    public SearchResult getBest() {
+        return best;
+    }
+
+    public int getBestMove() {
+        return best.getBestMove();
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public int getThreads() {
+        return nodesPerThread.length;
+    }
+
+    public long getNodes(int thread) {
+        return nodesPerThread[thread];
+    }
+    //endregion
+
+    /**
+     * Returns the number of nodes all threads visited together.
+     */
+    public long getTotalNodes() {
+        long total = 0;
+        for (long nodes : nodesPerThread) {
+            total += nodes;
+        }
+        return total;
+    }
+
+    /**
+     * Returns the speed of one thread.
+     *
+     * @param thread the thread number
+     * @return the nodes that thread visited per second of wall-clock time
+     */
+    public long getNodesPerSecond(int thread) {
+        return nodesPerThread[thread] * 1000 / Math.max(1, elapsedMillis);
+    }
+
+    /**
+     * Returns the speed of all threads together.
+     */
+    public long getTotalNodesPerSecond() {
+        return getTotalNodes() * 1000 / Math.max(1, elapsedMillis);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder perThread = new StringBuilder();
+        for (int i = 0; i < nodesPerThread.length; i++) {
+            perThread.append(i == 0 ? "" : " ").append(getNodesPerSecond(i));
+        }
+        return best + " nps " + getTotalNodesPerSecond() + " [" + perThread + "]";
+    }
+}
@@ -0,0 +1,530 @@
+package main.java.engine;
+
+import main.java.Board;
+import main.java.Color;
+import main.java.Move;
+import main.java.Zobrist;
+import main.java.book.OpeningBook;
+import main.java.metrics.Metrics;
+import main.java.solve.SolvedPositions;
+
+import java.util.Arrays;
+
+/**
+ * Iterative-deepening negamax alpha-beta search over Board positions.
+ *
+ * The turn rules are the ones StartTwoPlayerGame plays by: a player with no
+ * legal move (see Board.generateMoves) passes, and a player wins when checkWin
+ * names them right after their turn. A pass right after the opponent passed
+ * leaves the position unchanged for good, so that line is scored as a draw.
+ *
+ * Results are kept in a TranspositionTable keyed by Zobrist.key, which may
+ * be shared with other searches. If SolvedPositions are set, a root position they hold as a WIN is answered
+ * with its winning move, and otherwise, if an OpeningBook is set, a root
+ * position it has a move for is answered from the book without searching. A
+ * Search owns its board copy and move buffers and does not allocate while
+ * searching. It is not thread-safe; use one per thread.
+ */
+public class Search {
+
+    public static final int WIN_SCORE = 30000;
+
+    public static final int MAX_PLY = 64;
+
+    // Solved wins carry no distance, so they score below every found win
+    public static final int SOLVED_WIN_SCORE = WIN_SCORE - 2 * MAX_PLY;
+
+    private static final int INFINITY = WIN_SCORE + 1;
+
+    // How many nodes are searched between two looks at the clock
+    private static final int TIME_CHECK_INTERVAL = 1024;
+
+    private static final int DEFAULT_TABLE_MEGABYTES = 16;
+
+    private static final int HASH_MOVE_BONUS = 1 << 30;
+
+    private static final int KILLER_BONUS = 1 << 20;
+
+    private final Evaluator evaluator;
+
+    private final TranspositionTable table;
+
+    private final Board board = new Board();
+
+    // Per ply buffers, so that the search itself does not allocate
+    private final int[][] moveStack = new int[MAX_PLY][Board.MAX_MOVES];
+
+    private final int[][] orderStack = new int[MAX_PLY][Board.MAX_MOVES];
+
+    private final int[][] pvTable = new int[MAX_PLY + 1][MAX_PLY + 1];
+
+    private final int[] pvLength = new int[MAX_PLY + 1];
+
+    private final int[][] killers = new int[MAX_PLY][2];
+
+    // Indexed by the encoded move, which uses 2 * Move.SQUARE_BITS bits
+    private final int[] history = new int[1 << (2 * Move.SQUARE_BITS)];
+
+    private long nodes;
+
+    private long deadline;
+
+    // Whether the deadline and stop requests apply yet, which they do once an iteration completed
+    private boolean canStop;
+
+    private boolean stopped;
+
+    private volatile boolean stopRequested;
+
+    private int previousBest;
+
+    private OpeningBook book;
+
+    private SolvedPositions solved;
+
+    private SearchListener listener;
+
+    /**
+     * Creates a search with the evaluator of WeightedEvaluator.fromSystemProperty,
+     * which scores like the default MobilityEvaluator unless a weights file is given.
+     */
+    public Search() {
+        this(WeightedEvaluator.fromSystemProperty());
+    }
+
+    /**
+     * Creates a search that scores leaf positions with the given evaluator.
+     *
+     * @param evaluator the evaluation used at the horizon
+     */
+    public Search(Evaluator evaluator) {
+        this(evaluator, new TranspositionTable(DEFAULT_TABLE_MEGABYTES));
+    }
+
+    /**
+     * Creates a search with the given evaluator and transposition table.
+     *
+     * @param evaluator the evaluation used at the horizon
+     * @param table the table to read and store results in, possibly shared
+     */
+    public Search(Evaluator evaluator, TranspositionTable table) {
+        this.evaluator = evaluator;
+        this.table = table;
+    }
+
+    /**
+     * Searches a position to a fixed depth.
+     *
+     * @param position the position to search, left unchanged
+     * @param player the player to move
+     * @param depth the number of plies to look ahead, at least 1
+     * @return the best move and principal variation found
+     * @throws IllegalArgumentException if the position is not on the standard board with at most 7 pieces a side
+     */
+    public SearchResult searchDepth(Board position, Color player, int depth) throws IllegalArgumentException {
+        return search(position, player, depth, Long.MAX_VALUE);
+    }
+
+    /**
+     * Searches a position as deep as it can within a time budget.
+     *
+     * The first iteration always completes, so a move is returned even if the
+     * budget is too small for it or the search is stopped.
+     *
+     * @param position the position to search, left unchanged
+     * @param player the player to move
+     * @param millis the time budget in milliseconds
+     * @return the result of the deepest completed iteration
+     * @throws IllegalArgumentException if the position is not on the standard board with at most 7 pieces a side
+     */
+    public SearchResult searchTime(Board position, Color player, long millis) throws IllegalArgumentException {
+        return search(position, player, MAX_PLY, millis);
+    }
+
+    /**
+     * Searches a position by iterative deepening until either limit is reached.
+     *
+     * @param position the position to search, left unchanged
+     * @param player the player to move
+     * @param maxDepth the deepest iteration to run, at least 1
+     * @param millis the time budget in milliseconds, Long.MAX_VALUE for none
+     * @return the result of the deepest completed iteration
+     * @throws IllegalArgumentException if the position is not on the standard board with at most 7 pieces a side
+     */
+    public SearchResult search(Board position, Color player, int maxDepth, long millis)
+            throws IllegalArgumentException {
+        checkSearchable(position);
+        SearchResult bookResult = bookResult(position, player);
+        if (bookResult != null) {
+            return bookResult;
+        }
+        stopRequested = false;
+        table.newSearch();
+        return iterate(position, player, 1, maxDepth, millis);
+    }
+
+    /**
+     * Checks that the engines can search a position. Their move buffers,
+     * evaluators and tables are made for the standard board and material.
+     *
+     * @throws IllegalArgumentException if the position is not on the standard board with at most 7 pieces a side
+     */
+    static void checkSearchable(Board position) throws IllegalArgumentException {
+        if (position.getGeometry().getSize() != Board.BOARD_SIZE || position.getMaxMoves() > Board.MAX_MOVES) {
+            throw new IllegalArgumentException("Only positions of the standard board with at most 7 pieces a side "
+                    + "can be searched");
+        }
+    }
+
+    /**
+     * Sets the opening book to answer root positions from, or null for none.
+     *
+     * @param book a book that stays open while this search is used
+     */
+    public void setOpeningBook(OpeningBook book) {
+        this.book = book;
+    }
+
+    /**
+     * Sets the solved positions to answer won root positions from, or null for none.
+     *
+     * @param solved positions that stay open while this search is used
+     */
+    public void setSolvedPositions(SolvedPositions solved) {
+        this.solved = solved;
+    }
+
+    /**
+     * Sets the listener told about every completed iteration, or null for none.
+     *
+     * @param listener called on the searching thread, so it should return quickly
+     */
+    public void setListener(SearchListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Asks a running search, possibly on another thread, to return as soon as
+     * its first iteration is complete.
+     */
+    public void stop() {
+        stopRequested = true;
+    }
+
+    /**
+     * Returns the number of nodes visited by the last search, including the
+     * iteration it was stopped in.
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Lets stop requests made before the next call to iterate be forgotten.
+     */
+    void clearStopRequest() {
+        stopRequested = false;
+    }
+
+    /**
+     * Looks a position up in the solved positions and then in the opening book.
+     *
+     * @param position the position to search
+     * @param player the player to move
+     * @return a result of depth 0 with the winning or book move as its only
+     *         move, scored as SOLVED_WIN_SCORE if it is a solved win; or null if
+     *         neither has a legal move for the position
+     */
+    SearchResult bookResult(Board position, Color player) {
+        if (book == null && solved == null) {
+            return null;
+        }
+        long start = System.nanoTime();
+        int[] moves = moveStack[0];
+        int count = position.generateMoves(player, moves);
+        int move = solved != null ? solved.bestMove(position, player) : Move.PASS;
+        if (move != Move.PASS && contains(moves, count, move)) {
+            return new SearchResult(SOLVED_WIN_SCORE, 0, 0, (System.nanoTime() - start) / 1_000_000,
+                    new int[] {move});
+        }
+        move = book != null ? book.bestMove(position, player) : Move.PASS;
+        if (move == Move.PASS || !contains(moves, count, move)) {
+            return null;
+        }
+        return new SearchResult(0, 0, 0, (System.nanoTime() - start) / 1_000_000, new int[] {move});
+    }
+
+    /**
+     * Runs the iterations of a search, starting at a given depth.
+     *
+     * Unlike search, this neither clears stop requests nor ages the table, so
+     * that a ParallelSearch can do both once for all of its threads.
+     *
+     * @param position the position to search, left unchanged
+     * @param player the player to move
+     * @param firstDepth the depth of the first iteration, at least 1
+     * @param maxDepth the deepest iteration to run
+     * @param millis the time budget in milliseconds, Long.MAX_VALUE for none
+     * @return the result of the deepest completed iteration
+     */
+    SearchResult iterate(Board position, Color player, int firstDepth, int maxDepth, long millis) {
+        long start = System.nanoTime();
+        board.copyFrom(position);
+        nodes = 0;
+        stopped = false;
+        canStop = false;
+        previousBest = Move.PASS;
+        deadline = millis == Long.MAX_VALUE ? Long.MAX_VALUE : start + millis * 1_000_000;
+        clearOrdering();
+
+        SearchResult result = null;
+        for (int depth = firstDepth; depth <= Math.min(maxDepth, MAX_PLY); depth++) {
+            int score = negamax(0, depth, -INFINITY, INFINITY, player, false);
+            if (stopped) {
+                break;
+            }
+            int[] pv = principalVariation(player, depth);
+            result = new SearchResult(score, depth, nodes, (System.nanoTime() - start) / 1_000_000, pv);
+            previousBest = result.getBestMove();
+            canStop = true;
+            if (listener != null) {
+                listener.onIteration(result);
+            }
+            if (result.isDecisive() || stopRequested || System.nanoTime() > deadline) {
+                break;
+            }
+        }
+        if (Metrics.ENABLED) {
+            Metrics.SEARCHES.recordSince(start);
+            Metrics.SEARCH_NODES.add(nodes);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the principal variation of the last iteration. Lines cut short by
+     * a table hit are continued with the best moves stored in the table, for as
+     * long as those are legal.
+     *
+     * @param player the player to move at the root
+     * @param depth the depth of the iteration
+     * @return the expected moves, at most depth of them
+     */
+    private int[] principalVariation(Color player, int depth) {
+        int length = pvLength[0];
+        int[] line = pvTable[0];
+        for (int ply = 0; ply < length; ply++) {
+            board.makeMove(line[ply]);
+            player = player.opposite();
+        }
+        boolean afterPass = length > 0 && line[length - 1] == Move.PASS;
+        while (length < depth && board.checkWin() == null) {
+            long entry = table.probe(Zobrist.key(board, player) ^ (afterPass ? Zobrist.PASS_KEY : 0));
+            if (entry == 0) {
+                break;
+            }
+            int move = TranspositionTable.move(entry);
+            int[] moves = moveStack[length];
+            int count = board.generateMoves(player, moves);
+            if (count == 0 ? move != Move.PASS : !contains(moves, count, move)) {
+                break;
+            }
+            line[length] = move;
+            board.makeMove(line[length]);
+            afterPass = line[length] == Move.PASS;
+            player = player.opposite();
+            length++;
+        }
+        for (int ply = length - 1; ply >= 0; ply--) {
+            board.unmakeMove(line[ply]);
+        }
+        return Arrays.copyOf(line, length);
+    }
+
+    /**
+     * Returns whether a move is among the first count moves of a buffer.
+     */
+    private static boolean contains(int[] moves, int count, int move) {
+        for (int i = 0; i < count; i++) {
+            if (moves[i] == move) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Searches one node.
+     *
+     * @param ply the distance from the root
+     * @param depth the remaining depth
+     * @param alpha the score player is already sure of
+     * @param beta the score the opponent is already sure of
+     * @param player the player to move
+     * @param afterPass whether the opponent passed on the previous ply
+     * @return the score of the position for player
+     */
+    private int negamax(int ply, int depth, int alpha, int beta, Color player, boolean afterPass) {
+        pvLength[ply] = ply;
+        if (depth <= 0 || ply >= MAX_PLY) {
+            return evaluator.evaluate(board, player);
+        }
+        if ((++nodes & (TIME_CHECK_INTERVAL - 1)) == 0 && canStop
+                && (stopRequested || System.nanoTime() > deadline)) {
+            stopped = true;
+        }
+        if (stopped) {
+            return 0;
+        }
+        long key = Zobrist.key(board, player) ^ (afterPass ? Zobrist.PASS_KEY : 0);
+        long entry = table.probe(key);
+        int hashMove = ply == 0 ? previousBest : Move.PASS;
+        if (entry != 0) {
+            hashMove = TranspositionTable.move(entry);
+            if (ply > 0 && TranspositionTable.depth(entry) >= depth) {
+                int score = fromTableScore(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER_BOUND && score >= beta)
+                        || (bound == TranspositionTable.UPPER_BOUND && score <= alpha)) {
+                    return score;
+                }
+            }
+        }
+
+        int[] moves = moveStack[ply];
+        int count = board.generateMoves(player, moves);
+        if (count == 0) {
+            if (afterPass && board.checkWin() != player) {
+                return 0; // Neither player can move, nothing will ever change
+            }
+            moves[0] = Move.PASS;
+            count = 1;
+        }
+        scoreMoves(ply, moves, count, hashMove);
+
+        Color opponent = player.opposite();
+        int alphaOriginal = alpha;
+        int best = -INFINITY;
+        int bestMove = Move.PASS;
+        for (int i = 0; i < count; i++) {
+            int move = nextMove(ply, moves, i, count);
+            board.makeMove(move);
+            int score;
+            if (board.checkWin() == player) {
+                score = WIN_SCORE - ply;
+                pvLength[ply + 1] = ply + 1;
+            } else {
+                score = -negamax(ply + 1, depth - 1, -beta, -alpha, opponent, move == Move.PASS);
+            }
+            board.unmakeMove(move);
+            if (stopped) {
+                return 0;
+            }
+
+            if (score > best) {
+                best = score;
+                bestMove = move;
+                if (score > alpha) {
+                    alpha = score;
+                    pvTable[ply][ply] = move;
+                    System.arraycopy(pvTable[ply + 1], ply + 1, pvTable[ply], ply + 1, pvLength[ply + 1] - ply - 1);
+                    pvLength[ply] = pvLength[ply + 1];
+                }
+            }
+            if (alpha >= beta) {
+                if (move != Move.PASS) {
+                    if (killers[ply][0] != move) {
+                        killers[ply][1] = killers[ply][0];
+                        killers[ply][0] = move;
+                    }
+                    history[move] += depth * depth;
+                }
+                break;
+            }
+        }
+
+        int bound = best >= beta ? TranspositionTable.LOWER_BOUND
+                : best > alphaOriginal ? TranspositionTable.EXACT
+                : TranspositionTable.UPPER_BOUND;
+        table.store(key, bestMove, toTableScore(best, ply), depth, bound);
+        return best;
+    }
+
+    /**
+     * Gives every move of a node an ordering score: the move from the table (or
+     * the best move of the previous iteration at the root), then killer moves,
+     * then by history.
+     */
+    private void scoreMoves(int ply, int[] moves, int count, int hashMove) {
+        int[] order = orderStack[ply];
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            if (move == hashMove) {
+                order[i] = HASH_MOVE_BONUS;
+            } else if (move == killers[ply][0] || move == killers[ply][1]) {
+                order[i] = KILLER_BONUS;
+            } else {
+                order[i] = history[move];
+            }
+        }
+    }
+
+    /**
+     * Swaps the best scored move of the ones not yet searched into position i.
+     *
+     * @return the move now at position i
+     */
+    private int nextMove(int ply, int[] moves, int i, int count) {
+        int[] order = orderStack[ply];
+        int bestIndex = i;
+        for (int j = i + 1; j < count; j++) {
+            if (order[j] > order[bestIndex]) {
+                bestIndex = j;
+            }
+        }
+        int move = moves[bestIndex];
+        moves[bestIndex] = moves[i];
+        moves[i] = move;
+        int score = order[bestIndex];
+        order[bestIndex] = order[i];
+        order[i] = score;
+        return move;
+    }
+
+    /**
+     * Converts a score to be stored in the table. Wins and losses are stored as
+     * distances from the stored node rather than from the root.
+     */
+    private static int toTableScore(int score, int ply) {
+        if (score >= WIN_SCORE - MAX_PLY) {
+            return score + ply;
+        } else if (score <= -WIN_SCORE + MAX_PLY) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    /**
+     * Converts a score read from the table back to a distance from the root.
+     */
+    private static int fromTableScore(int score, int ply) {
+        if (score >= WIN_SCORE - MAX_PLY) {
+            return score - ply;
+        } else if (score <= -WIN_SCORE + MAX_PLY) {
+            return score + ply;
+        }
+        return score;
+    }
+
+    /**
+     * Forgets the killer moves and history of the previous search.
+     */
+    private void clearOrdering() {
+        for (int[] killer : killers) {
+            killer[0] = Move.PASS;
+            killer[1] = Move.PASS;
+        }
+        Arrays.fill(history, 0);
+    }
+}
@@ -0,0 +1,15 @@
+package main.java.engine;
+
+/**
+ * Receives the results of a Search as they improve, one per completed
+ * iteration, so that a long search can be watched while it runs.
+ */
+public interface SearchListener {
+
+    /**
+     * Called when an iteration of the search completed.
+     *
+     * @param result the best move, score and principal variation at that depth
+     */
+    void onIteration(SearchResult result);
+}
@@ -0,0 +1,83 @@
+package main.java.engine;
+
+import main.java.Move;
+
+/**
+ * The outcome of a search: the move to play, its score and the expected line of play.
+ */
+public class SearchResult {
+
+    private final int bestMove;
+
+    private final int score;
+
+    private final int depth;
+
+    private final long nodes;
+
+    private final long elapsedMillis;
+
+    private final int[] principalVariation;
+
+    /**
+     * Creates a search result.
+     *
+     * @param score the score of the position for the player to move
+     * @param depth the deepest fully searched depth
+     * @param nodes the number of positions visited
+     * @param elapsedMillis the time the search took
+     * @param principalVariation the expected moves from the position, best move first;
+     *                           copied, may be empty if no move was searched
+     */
+    public SearchResult(int score, int depth, long nodes, long elapsedMillis, int[] principalVariation) {
+        this.bestMove = principalVariation.length > 0 ? principalVariation[0] : Move.PASS;
+        this.score = score;
+        this.depth = depth;
+        this.nodes = nodes;
+        this.elapsedMillis = elapsedMillis;
+        this.principalVariation = principalVariation.clone();
+    }
+
+    //region Getters
+    public int getBestMove() {
+        return bestMove;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public int[] getPrincipalVariation() {
+        return principalVariation.clone();
+    }
+    //endregion
+
+    /**
+     * Returns whether the score is a forced win or loss rather than an evaluation.
+     */
+    public boolean isDecisive() {
+        return Math.abs(score) >= Search.WIN_SCORE - Search.MAX_PLY;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder pv = new StringBuilder();
+        for (int move : principalVariation) {
+            pv.append(' ').append(Move.toString(move, 5));
+        }
+        return "depth " + depth + " score " + score + " nodes " + nodes
+                + " time " + elapsedMillis + "ms pv" + pv;
+    }
+}
@@ -0,0 +1,207 @@
+package main.java.engine;
+
+import java.util.Arrays;
+
+/**
+ * A fixed-size hash table of search results, shared by any number of search threads.
+ *
+ * The table is a long[] split into buckets of BUCKET_SIZE entries, which fill
+ * one 64-byte cache line. An entry is two longs: the position key XORed with
+ * the data, and the data. The data packs the best move, score, depth, bound
+ * and the age of the search that stored it. No locks are taken. When two
+ * threads write the same entry at once, the stored key no longer matches the
+ * data and the probe misses, instead of returning a mix of two results.
+ *
+ * A position that is not in its bucket replaces the entry of the same key if
+ * there is one. Otherwise it replaces the entry with the lowest depth, where
+ * entries from older searches count as shallower.
+ *
+ * A table can also keep its searches apart, for callers whose results must
+ * not depend on what was searched before: entries of older searches are then
+ * misses and free to replace, as if the table had been cleared, at the cost
+ * of an age bump instead of zeroing the table.
+ */
+public class TranspositionTable {
+
+    public static final int EXACT = 1;
+
+    public static final int LOWER_BOUND = 2;
+
+    public static final int UPPER_BOUND = 3;
+
+    private static final int BUCKET_SIZE = 4;
+
+    private static final int ENTRY_BYTES = 16;
+
+    // Data layout: move (12 bits) | score + SCORE_OFFSET (16) | depth (8) | bound (2) | age (8)
+    private static final int SCORE_SHIFT = 12;
+    private static final int DEPTH_SHIFT = 28;
+    private static final int BOUND_SHIFT = 36;
+    private static final int AGE_SHIFT = 38;
+    private static final int SCORE_OFFSET = 1 << 15;
+
+    private final long[] table;
+
+    private final int bucketMask;
+
+    private int age;
+
+    // Whether entries of older searches are ignored
+    private boolean searchesIsolated;
+
+    /**
+     * Creates a table that uses at most the given amount of memory.
+     *
+     * @param megabytes the memory cap; the table takes the largest power of two
+     *                  number of buckets that fits in it
+     * @throws IllegalArgumentException if the cap is smaller than one bucket or too big for an array
+     */
+    public TranspositionTable(int megabytes) throws IllegalArgumentException {
+        long buckets = Long.highestOneBit((long) megabytes * (1 << 20) / (BUCKET_SIZE * ENTRY_BYTES));
+        if (buckets < 1 || buckets * BUCKET_SIZE * 2 > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Unsupported table size: " + megabytes + "MB");
+        }
+        table = new long[(int) buckets * BUCKET_SIZE * 2];
+        bucketMask = (int) buckets - 1;
+    }
+
+    /**
+     * Looks a position up.
+     *
+     * @param key the Zobrist key of the position
+     * @return the data stored for the position, to be read with move, score, depth
+     *         and bound; 0 if the position is not in the table
+     */
+    public long probe(long key) {
+        int base = bucketIndex(key);
+        for (int i = base; i < base + BUCKET_SIZE * 2; i += 2) {
+            long data = table[i + 1];
+            if ((table[i] ^ data) == key && isLive(data)) {
+                return data;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Stores the result of searching a position.
+     *
+     * @param key the Zobrist key of the position
+     * @param move the best move found, Move.PASS if none
+     * @param score the score, which has to fit in 16 bits
+     * @param depth the depth searched, 0 to 255
+     * @param bound EXACT, LOWER_BOUND or UPPER_BOUND
+     */
+    public void store(long key, int move, int score, int depth, int bound) {
+        int base = bucketIndex(key);
+        int replace = base;
+        int lowestWorth = Integer.MAX_VALUE;
+        for (int i = base; i < base + BUCKET_SIZE * 2; i += 2) {
+            long data = table[i + 1];
+            if (!isLive(data) || (table[i] ^ data) == key) {
+                replace = i;
+                break;
+            }
+            int worth = depth(data) - 4 * ((age - age(data)) & 0xFF);
+            if (worth < lowestWorth) {
+                lowestWorth = worth;
+                replace = i;
+            }
+        }
+        long data = (move & 0xFFFL)
+                | ((long) (score + SCORE_OFFSET) & 0xFFFF) << SCORE_SHIFT
+                | ((long) depth & 0xFF) << DEPTH_SHIFT
+                | ((long) bound) << BOUND_SHIFT
+                | ((long) age) << AGE_SHIFT;
+        table[replace] = key ^ data;
+        table[replace + 1] = data;
+    }
+
+    /**
+     * Marks the start of a new search, so that older entries are replaced first.
+     */
+    public void newSearch() {
+        age = (age + 1) & 0xFF;
+        if (searchesIsolated && age == 0) {
+            // Entries 256 searches old would have the current age again
+            Arrays.fill(table, 0);
+        }
+    }
+
+    /**
+     * Sets whether each search only sees the entries it stored itself.
+     *
+     * @param isolated true to treat entries of older searches as empty
+     */
+    public void setSearchesIsolated(boolean isolated) {
+        searchesIsolated = isolated;
+    }
+
+    /**
+     * Empties the table.
+     */
+    public void clear() {
+        Arrays.fill(table, 0);
+        age = 0;
+    }
+
+    /**
+     * Returns the number of entries the table holds.
+     */
+    public int capacity() {
+        return table.length / 2;
+    }
+
+    /**
+     * Estimates how full the table is from its first thousand entries.
+     *
+     * @return the number of used entries per thousand
+     */
+    public int usagePerMill() {
+        int sample = Math.min(1000, capacity());
+        int used = 0;
+        for (int i = 0; i < sample; i++) {
+            if (isLive(table[2 * i + 1])) {
+                used++;
+            }
+        }
+        return used * 1000 / sample;
+    }
+
+    //region Data decoders
+    public static int move(long data) {
+        return (int) (data & 0xFFF);
+    }
+
+    public static int score(long data) {
+        return (int) ((data >>> SCORE_SHIFT) & 0xFFFF) - SCORE_OFFSET;
+    }
+
+    public static int depth(long data) {
+        return (int) ((data >>> DEPTH_SHIFT) & 0xFF);
+    }
+
+    public static int bound(long data) {
+        return (int) ((data >>> BOUND_SHIFT) & 0x3);
+    }
+
+    private static int age(long data) {
+        return (int) ((data >>> AGE_SHIFT) & 0xFF);
+    }
+    //endregion
+
+    /**
+     * Returns whether an entry holds a result that probes may return.
+     */
+    private boolean isLive(long data) {
+        return data != 0 && (!searchesIsolated || age(data) == age);
+    }
+
+    /**
+     * Returns the index in table of the first entry of the bucket of a key.
+     */
+    private int bucketIndex(long key) {
+        // The low bits of a Zobrist key are as random as the high ones
+        return ((int) key & bucketMask) * BUCKET_SIZE * 2;
+    }
+}
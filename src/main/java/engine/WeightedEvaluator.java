@@ -0,0 +1,196 @@
+package main.java.engine;
+
+import main.java.Board;
+import main.java.Color;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Scores a position as a weighted sum of features, with weights that can be
+ * tuned from games (see TexelTuner) and loaded from a file.
+ *
+ * Every feature is a difference between the player to move and the opponent:
+ * pieces in check, legal moves, and whether the opponent rather than the
+ * player must pass. With weights 100, 1 and 0 this scores exactly like the
+ * default MobilityEvaluator.
+ *
+ * A weights file has one "name=weight" line per feature, in any order;
+ * features it leaves out keep their default weight, and lines starting with
+ * '#' are comments.
+ */
+public class WeightedEvaluator implements Evaluator {
+
+    public static final int ISOLATED = 0;
+    public static final int MOBILITY = 1;
+    public static final int MUST_PASS = 2;
+
+    public static final int NUM_FEATURES = 3;
+
+    private static final List<String> NAMES = Arrays.asList("isolated", "mobility", "mustPass");
+
+    private static final int[] DEFAULT_WEIGHTS = {100, 1, 0};
+
+    private final int[] weights;
+
+    /**
+     * Creates an evaluator with the default weights.
+     */
+    public WeightedEvaluator() {
+        this(DEFAULT_WEIGHTS);
+    }
+
+    /**
+     * Creates an evaluator with the given weights.
+     *
+     * @param weights one weight per feature, indexed by ISOLATED, MOBILITY and MUST_PASS; copied
+     * @throws IllegalArgumentException if there is not one weight per feature
+     */
+    public WeightedEvaluator(int[] weights) throws IllegalArgumentException {
+        if (weights.length != NUM_FEATURES) {
+            throw new IllegalArgumentException("Need " + NUM_FEATURES + " weights, got " + weights.length);
+        }
+        this.weights = weights.clone();
+    }
+
+    /**
+     * Returns the evaluator of the weights file named by the system property
+     * entropy.weights, or the default weights if it is not set. The file is
+     * read once, the first time this is called.
+     *
+     * @throws UncheckedIOException if the file cannot be read
+     * @throws IllegalArgumentException if the file is malformed
+     */
+    public static WeightedEvaluator fromSystemProperty() throws IllegalArgumentException {
+        return Configured.EVALUATOR;
+    }
+
+    /**
+     * Reads an evaluator from a weights file.
+     *
+     * @param file the weights file
+     * @return an evaluator with the weights of the file
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if a line is not a known feature and an integer weight
+     */
+    public static WeightedEvaluator load(Path file) throws IOException, IllegalArgumentException {
+        int[] weights = DEFAULT_WEIGHTS.clone();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            int equals = line.indexOf('=');
+            int feature = equals < 0 ? -1 : NAMES.indexOf(line.substring(0, equals).trim());
+            if (feature < 0) {
+                throw new IllegalArgumentException("Not a feature weight: " + line);
+            }
+            try {
+                weights[feature] = Integer.parseInt(line.substring(equals + 1).trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Not a feature weight: " + line, e);
+            }
+        }
+        return new WeightedEvaluator(weights);
+    }
+
+    /**
+     * Writes the weights to a file that load reads back.
+     *
+     * @param file the file to create or replace
+     * @param comment a line to put at the top, or null for none
+     * @throws IOException if the file cannot be written
+     */
+    public void write(Path file, String comment) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            if (comment != null) {
+                out.write("# " + comment);
+                out.newLine();
+            }
+            for (int feature = 0; feature < NUM_FEATURES; feature++) {
+                out.write(NAMES.get(feature) + "=" + weights[feature]);
+                out.newLine();
+            }
+        }
+    }
+
+    /**
+     * Returns the weights, indexed by feature.
+     */
+    public int[] getWeights() {
+        return weights.clone();
+    }
+
+    /**
+     * Returns the name of a feature, as written in weights files.
+     */
+    public static String featureName(int feature) {
+        return NAMES.get(feature);
+    }
+
+    /**
+     * Writes the features of a position into a buffer.
+     *
+     * @param board the position
+     * @param player the player to move
+     * @param features the buffer, indexed by ISOLATED, MOBILITY and MUST_PASS
+     * @spec.requires features.length >= NUM_FEATURES
+     * @spec.modifies features
+     */
+    public static void features(Board board, Color player, int[] features) {
+        Color opponent = player.opposite();
+        features[ISOLATED] = Long.bitCount(board.getIsolatedPieces(player))
+                - Long.bitCount(board.getIsolatedPieces(opponent));
+        features[MOBILITY] = board.countMoves(player) - board.countMoves(opponent);
+        features[MUST_PASS] = (board.mustPass(opponent) ? 1 : 0) - (board.mustPass(player) ? 1 : 0);
+    }
+
+    @Override
+    public int evaluate(Board board, Color player) {
+        Color opponent = player.opposite();
+        int isolated = Long.bitCount(board.getIsolatedPieces(player))
+                - Long.bitCount(board.getIsolatedPieces(opponent));
+        int mobility = board.countMoves(player) - board.countMoves(opponent);
+        int score = weights[ISOLATED] * isolated + weights[MOBILITY] * mobility;
+        if (weights[MUST_PASS] != 0) {
+            score += weights[MUST_PASS] * ((board.mustPass(opponent) ? 1 : 0) - (board.mustPass(player) ? 1 : 0));
+        }
+        return score;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        for (int feature = 0; feature < NUM_FEATURES; feature++) {
+            text.append(feature == 0 ? "" : " ").append(NAMES.get(feature)).append('=').append(weights[feature]);
+        }
+        return text.toString();
+    }
+
+    /**
+     * Holds the evaluator of fromSystemProperty, so the file is only read when it is first needed.
+     */
+    private static final class Configured {
+
+        static final WeightedEvaluator EVALUATOR = read();
+
+        private static WeightedEvaluator read() {
+            String file = System.getProperty("entropy.weights");
+            if (file == null) {
+                return new WeightedEvaluator();
+            }
+            try {
+                return load(Paths.get(file));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot read the weights file " + file, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package main.java.match;
+
+import main.java.engine.MonteCarloSearch;
+import main.java.engine.Search;
+import main.java.engine.TranspositionTable;
+import main.java.engine.WeightedEvaluator;
+import main.java.sim.MonteCarloPlayer;
+import main.java.sim.Player;
+import main.java.sim.RandomPlayer;
+import main.java.sim.SearchPlayer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.function.Supplier;
+
+/**
+ * A named engine configuration taking part in a Tournament.
+ *
+ * The Tournament asks for a new Player for every thread, since a Player may
+ * keep state between moves and is used by one game at a time.
+ */
+public class Engine {
+
+    private static final int TABLE_MEGABYTES = 4;
+
+    private final String name;
+
+    private final Supplier<? extends Player> players;
+
+    /**
+     * Creates an engine configuration.
+     *
+     * @param name the name shown in results
+     * @param players makes a new Player of this configuration; called once per thread and match
+     */
+    public Engine(String name, Supplier<? extends Player> players) {
+        this.name = name;
+        this.players = players;
+    }
+
+    /**
+     * Parses an engine from a command line description:
+     * <ul>
+     * <li>"random": uniformly random moves</li>
+     * <li>"search:depth[:millis[:weights]]": alpha-beta Search to a depth and
+     *     optional time per move, with the default evaluation or one loaded from a
+     *     WeightedEvaluator weights file</li>
+     * <li>"mcts:playouts": single-threaded MonteCarloSearch with a fixed number of playouts per move</li>
+     * </ul>
+     *
+     * @param description the engine description, also used as its name
+     * @return the engine
+     * @throws IllegalArgumentException if the description is not one of the above
+     * @throws UncheckedIOException if a weights file cannot be read
+     */
+    public static Engine parse(String description) throws IllegalArgumentException, UncheckedIOException {
+        String[] parts = description.split(":");
+        try {
+            switch (parts[0]) {
+                case "random":
+                    if (parts.length == 1) {
+                        return new Engine(description, RandomPlayer::new);
+                    }
+                    break;
+                case "search":
+                    if (parts.length >= 2 && parts.length <= 4) {
+                        int depth = Integer.parseInt(parts[1]);
+                        long millis = parts.length > 2 ? Long.parseLong(parts[2]) : Long.MAX_VALUE;
+                        WeightedEvaluator evaluator = parts.length > 3
+                                ? WeightedEvaluator.load(Paths.get(parts[3])) : new WeightedEvaluator();
+                        return new Engine(description, () -> new SearchPlayer(
+                                new Search(evaluator, new TranspositionTable(TABLE_MEGABYTES)), depth, millis));
+                    }
+                    break;
+                case "mcts":
+                    if (parts.length == 2) {
+                        long playouts = Long.parseLong(parts[1]);
+                        return new Engine(description,
+                                () -> new MonteCarloPlayer(new MonteCarloSearch(1), playouts));
+                    }
+                    break;
+                default:
+                    break;
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Bad number in engine " + description, e);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read the weights of engine " + description, e);
+        }
+        throw new IllegalArgumentException("Unknown engine " + description);
+    }
+
+    //region Getters
+    public String getName() {
+        return name;
+    }
+    //endregion
+
+    /**
+     * Makes a new Player of this configuration.
+     */
+    public Player newPlayer() {
+        return players.get();
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
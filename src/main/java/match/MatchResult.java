@@ -0,0 +1,179 @@
+package main.java.match;
+
+/**
+ * The outcome of a match between two engines, counted from the side of the first one.
+ */
+public class MatchResult {
+
+    // The two-sided 95% quantile of the normal distribution
+    private static final double Z_95 = 1.959964;
+
+    private final String first;
+
+    private final String second;
+
+    private final long wins;
+
+    private final long draws;
+
+    private final long losses;
+
+    private final long adjudicated;
+
+    private final Sprt sprt;
+
+    private final Sprt.Decision decision;
+
+    // The pairs in which the first engine scored 0 to 4 half points, or null if games were not paired
+    private final long[] pairs;
+
+    /**
+     * Creates a match result.
+     *
+     * @param first the name of the first engine
+     * @param second the name of the second engine
+     * @param wins the games the first engine won
+     * @param draws the games nobody won or was adjudicated
+     * @param losses the games the first engine lost
+     * @param adjudicated how many of the wins and losses were adjudicated rather than won by the rules
+     * @param sprt the test the match was run with, or null if it played every game
+     * @param decision what the test decided when it stopped the match, CONTINUE if it did not
+     */
+    public MatchResult(String first, String second, long wins, long draws, long losses, long adjudicated,
+                       Sprt sprt, Sprt.Decision decision) {
+        this(first, second, wins, draws, losses, adjudicated, sprt, decision, null);
+    }
+
+    /**
+     * Creates the result of a match played in pairs of games.
+     *
+     * @param first the name of the first engine
+     * @param second the name of the second engine
+     * @param wins the games the first engine won
+     * @param draws the games nobody won or was adjudicated
+     * @param losses the games the first engine lost
+     * @param adjudicated how many of the wins and losses were adjudicated rather than won by the rules
+     * @param sprt the test the match was run with, or null if it played every game
+     * @param decision what the test decided when it stopped the match, CONTINUE if it did not
+     * @param pairs the number of pairs in which the first engine scored 0 to 4
+     *              half points, indexed by those half points; null if games were not paired
+     */
+    public MatchResult(String first, String second, long wins, long draws, long losses, long adjudicated,
+                       Sprt sprt, Sprt.Decision decision, long[] pairs) {
+        this.first = first;
+        this.second = second;
+        this.wins = wins;
+        this.draws = draws;
+        this.losses = losses;
+        this.adjudicated = adjudicated;
+        this.sprt = sprt;
+        this.decision = decision;
+        this.pairs = pairs == null ? null : pairs.clone();
+    }
+
+    //region Getters
+    public String getFirst() {
+        return first;
+    }
+
+    public String getSecond() {
+        return second;
+    }
+
+    public long getWins() {
+        return wins;
+    }
+
+    public long getDraws() {
+        return draws;
+    }
+
+    public long getLosses() {
+        return losses;
+    }
+
+    public long getAdjudicated() {
+        return adjudicated;
+    }
+
+    public long getGames() {
+        return wins + draws + losses;
+    }
+
+    public Sprt getSprt() {
+        return sprt;
+    }
+
+    public Sprt.Decision getDecision() {
+        return decision;
+    }
+
+    public long[] getPairs() {
+        return pairs == null ? null : pairs.clone();
+    }
+    //endregion
+
+    /**
+     * Returns the points per game of the first engine, from 0 to 1, or 0.5 before any game.
+     */
+    public double getScore() {
+        long games = getGames();
+        return games == 0 ? 0.5 : (wins + 0.5 * draws) / games;
+    }
+
+    /**
+     * Returns the Elo difference of the first engine over the second, infinite after a clean sweep.
+     */
+    public double getElo() {
+        return Sprt.elo(getScore());
+    }
+
+    /**
+     * Returns the half width of the 95% confidence interval of getElo.
+     *
+     * The interval is the one of the score, from the variance of the game
+     * results, mapped to Elo, so it is not symmetric; the half width is the
+     * mean of its two sides.
+     *
+     * @return the half width, infinite when the interval reaches a score of 0 or 1
+     */
+    public double getEloError() {
+        long games = getGames();
+        if (games == 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double score = getScore();
+        double variance = (wins * (1 - score) * (1 - score) + draws * (0.5 - score) * (0.5 - score)
+                + losses * score * score) / games;
+        double margin = Z_95 * Math.sqrt(variance / games);
+        if (score - margin <= 0 || score + margin >= 1) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return (Sprt.elo(score + margin) - Sprt.elo(score - margin)) / 2;
+    }
+
+    /**
+     * Returns the log-likelihood ratio of the test over every game played, per
+     * pair if games were paired, or NaN if the match had none. Games that were
+     * already being played when the test decided are included, so the ratio may
+     * be back between the bounds.
+     */
+    public double getLlr() {
+        if (sprt == null) {
+            return Double.NaN;
+        }
+        return pairs == null ? sprt.llr(wins, draws, losses) : sprt.llr(pairs);
+    }
+
+    @Override
+    public String toString() {
+        String text = String.format("%s vs %s: %d games, +%d =%d -%d (%d adjudicated), score %.3f, "
+                + "Elo %+.1f +/- %.1f", first, second, getGames(), wins, draws, losses, adjudicated, getScore(),
+                getElo(), getEloError());
+        if (sprt != null) {
+            text += String.format(", LLR %.2f [%.2f, %.2f] %s", getLlr(), sprt.getLowerBound(),
+                    sprt.getUpperBound(), getDecision());
+        }
+        return text;
+    }
+}
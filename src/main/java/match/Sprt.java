@@ -0,0 +1,194 @@
+package main.java.match;
+
+/**
+ * A sequential probability ratio test between two Elo differences, used to
+ * stop a match as soon as its result is clear.
+ *
+ * H0 is that the first engine is elo0 stronger than the second, H1 that it is
+ * elo1 stronger. After every game the log-likelihood ratio of H1 against H0 is
+ * compared with two bounds set by the error rates: above the upper bound H1 is
+ * accepted, below the lower bound H0 is, and in between the match goes on.
+ *
+ * The ratio uses the normal approximation of the generalized SPRT: scores are
+ * treated as samples with the observed variance, and each hypothesis sets
+ * their mean to the score expected at its Elo difference. The samples are
+ * either single games, scoring 1, 0.5 or 0 (the trinomial model), or pairs of
+ * games played from the same opening with colors swapped, scoring 0 to 2
+ * points in half points (the pentanomial model). The two games of a pair are
+ * correlated through their opening, so paired matches should be tested per
+ * pair; per game, their variance is overestimated and the test runs long.
+ */
+public class Sprt {
+
+    /**
+     * What the test decided.
+     */
+    public enum Decision {
+        // Neither bound has been crossed yet
+        CONTINUE,
+        // The ratio fell below the lower bound: the difference is at most about elo0
+        H0,
+        // The ratio rose above the upper bound: the difference is at least about elo1
+        H1
+    }
+
+    // The pairs added to each of the five pair results as a prior, one pair in
+    // all, so that a few one-sided pairs do not give a variance near 0 and
+    // decide at once; it fades as pairs are played
+    private static final double PRIOR_PAIRS = 0.2;
+
+    private final double elo0;
+
+    private final double elo1;
+
+    private final double lowerBound;
+
+    private final double upperBound;
+
+    /**
+     * Creates a test.
+     *
+     * @param elo0 the Elo difference of H0
+     * @param elo1 the Elo difference of H1, greater than elo0
+     * @param alpha the chance of accepting H1 when H0 is true, between 0 and 1
+     * @param beta the chance of accepting H0 when H1 is true, between 0 and 1
+     * @throws IllegalArgumentException if elo1 is not greater than elo0 or an error rate is out of range
+     */
+    public Sprt(double elo0, double elo1, double alpha, double beta) throws IllegalArgumentException {
+        if (!(elo1 > elo0)) {
+            throw new IllegalArgumentException("elo1 must be greater than elo0");
+        }
+        if (!(alpha > 0 && alpha < 1 && beta > 0 && beta < 1)) {
+            throw new IllegalArgumentException("The error rates must be between 0 and 1");
+        }
+        this.elo0 = elo0;
+        this.elo1 = elo1;
+        this.lowerBound = Math.log(beta / (1 - alpha));
+        this.upperBound = Math.log((1 - beta) / alpha);
+    }
+
+    //region Getters
+    public double getElo0() {
+        return elo0;
+    }
+
+    public double getElo1() {
+        return elo1;
+    }
+
+    public double getLowerBound() {
+        return lowerBound;
+    }
+
+    public double getUpperBound() {
+        return upperBound;
+    }
+    //endregion
+
+    /**
+     * Returns the log-likelihood ratio of H1 against H0 after a number of games.
+     *
+     * @param wins the games the first engine won
+     * @param draws the games nobody won
+     * @param losses the games the first engine lost
+     * @return the ratio, 0 while every game has had the same result
+     */
+    public double llr(long wins, long draws, long losses) {
+        long games = wins + draws + losses;
+        if (games == 0) {
+            return 0;
+        }
+        double score = (wins + 0.5 * draws) / games;
+        double variance = (wins * square(1 - score) + draws * square(0.5 - score) + losses * square(score)) / games;
+        if (variance == 0) {
+            return 0;
+        }
+        double score0 = expectedScore(elo0);
+        double score1 = expectedScore(elo1);
+        return games * (score1 - score0) * (2 * score - score0 - score1) / (2 * variance);
+    }
+
+    /**
+     * Returns the log-likelihood ratio of H1 against H0 after a number of game pairs.
+     *
+     * @param pairs the number of pairs in which the first engine scored 0, 1, 2,
+     *              3 and 4 half points, indexed by those half points
+     * @return the ratio, 0 before any pair
+     * @throws IllegalArgumentException if pairs does not have 5 counts
+     */
+    public double llr(long[] pairs) throws IllegalArgumentException {
+        if (pairs.length != 5) {
+            throw new IllegalArgumentException("Expected 5 pair counts but got " + pairs.length);
+        }
+        double count = 0;
+        double points = 0;
+        for (int halfPoints = 0; halfPoints < 5; halfPoints++) {
+            count += pairs[halfPoints];
+            points += (pairs[halfPoints] + PRIOR_PAIRS) * halfPoints / 4;
+        }
+        if (count == 0) {
+            return 0;
+        }
+        count += 5 * PRIOR_PAIRS;
+        double score = points / count;
+        double variance = 0;
+        for (int halfPoints = 0; halfPoints < 5; halfPoints++) {
+            variance += (pairs[halfPoints] + PRIOR_PAIRS) * square(halfPoints / 4.0 - score);
+        }
+        variance /= count;
+        double score0 = expectedScore(elo0);
+        double score1 = expectedScore(elo1);
+        return count * (score1 - score0) * (2 * score - score0 - score1) / (2 * variance);
+    }
+
+    /**
+     * Returns what the test decides after a number of games.
+     *
+     * @param wins the games the first engine won
+     * @param draws the games nobody won
+     * @param losses the games the first engine lost
+     */
+    public Decision decide(long wins, long draws, long losses) {
+        return decision(llr(wins, draws, losses));
+    }
+
+    /**
+     * Returns what the test decides after a number of game pairs.
+     *
+     * @param pairs the pair counts, as for llr(long[])
+     * @throws IllegalArgumentException if pairs does not have 5 counts
+     */
+    public Decision decide(long[] pairs) throws IllegalArgumentException {
+        return decision(llr(pairs));
+    }
+
+    /**
+     * Returns the score expected per game by the stronger side of an Elo difference.
+     */
+    public static double expectedScore(double elo) {
+        return 1 / (1 + Math.pow(10, -elo / 400));
+    }
+
+    /**
+     * Returns the Elo difference at which a side is expected to score the given fraction of points.
+     *
+     * @param score the score per game, from 0 to 1
+     * @return the difference, infinite at 0 and 1
+     */
+    public static double elo(double score) {
+        return -400 * Math.log10(1 / score - 1);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SPRT elo0 %.1f elo1 %.1f bounds [%.2f, %.2f]", elo0, elo1, lowerBound, upperBound);
+    }
+
+    private Decision decision(double llr) {
+        return llr >= upperBound ? Decision.H1 : llr <= lowerBound ? Decision.H0 : Decision.CONTINUE;
+    }
+
+    private static double square(double x) {
+        return x * x;
+    }
+}
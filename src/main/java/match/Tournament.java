@@ -0,0 +1,337 @@
+package main.java.match;
+
+import main.java.Board;
+import main.java.Color;
+import main.java.sim.Game;
+import main.java.sim.GameResult;
+import main.java.sim.GameSink;
+import main.java.sim.Player;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Plays matches between engine configurations on a fixed pool of threads, to
+ * measure which one is stronger.
+ *
+ * Games are played in pairs from the same opening, once with each engine
+ * moving first, so that neither the first-move advantage nor a lopsided
+ * opening favors one side. The opening is the standard setup, WHITE first,
+ * followed by a number of random plies chosen from the pair number and the
+ * tournament seed, so runs are repeatable. The rules are the ones of Game.
+ *
+ * Games between engines rarely end in a win before the ply limit, so a
+ * tournament can adjudicate the ones that do not: a frozen game or one that
+ * reaches the ply limit is then given to the player with more isolated pieces,
+ * the player closer to the win checkWin looks for, and is a draw if both have
+ * as many (see Board.getIsolationLeader, which scores playouts the same way).
+ * Without adjudication those games are draws.
+ *
+ * A match can be given an Sprt, which is checked on the pair results (the
+ * pentanomial model, see Sprt) after every pair: once it decides, no new pair
+ * is started and the match ends when the pairs already
+ * being played are done.
+ */
+public class Tournament {
+
+    // How many random lines an opening is looked for in before giving up
+    private static final int OPENING_ATTEMPTS = 1000;
+
+    private final int threads;
+
+    private final int maxPlies;
+
+    private final int openingPlies;
+
+    private final long seed;
+
+    private final boolean adjudicate;
+
+    /**
+     * Creates a tournament.
+     *
+     * @param threads the number of games played at the same time, at least 1
+     * @param maxPlies the longest game to play, passes included
+     * @param openingPlies the number of random plies played from the standard setup, 0 for none
+     * @param seed the seed of the random openings
+     * @throws IllegalArgumentException if threads is less than 1 or openingPlies is negative
+     */
+    public Tournament(int threads, int maxPlies, int openingPlies, long seed) throws IllegalArgumentException {
+        this(threads, maxPlies, openingPlies, seed, false);
+    }
+
+    /**
+     * Creates a tournament that may adjudicate games nobody won.
+     *
+     * @param threads the number of games played at the same time, at least 1
+     * @param maxPlies the longest game to play, passes included
+     * @param openingPlies the number of random plies played from the standard setup, 0 for none
+     * @param seed the seed of the random openings
+     * @param adjudicate whether frozen games and games reaching the ply limit are adjudicated
+     * @throws IllegalArgumentException if threads is less than 1 or openingPlies is negative
+     */
+    public Tournament(int threads, int maxPlies, int openingPlies, long seed, boolean adjudicate)
+            throws IllegalArgumentException {
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one thread is needed");
+        }
+        if (openingPlies < 0) {
+            throw new IllegalArgumentException("The number of opening plies cannot be negative");
+        }
+        this.threads = threads;
+        this.maxPlies = maxPlies;
+        this.openingPlies = openingPlies;
+        this.seed = seed;
+        this.adjudicate = adjudicate;
+    }
+
+    /**
+     * Plays a match.
+     *
+     * @param first the engine the result is counted for
+     * @param second its opponent
+     * @param games the most games to play, rounded up to a whole number of pairs
+     * @param sprt the test to stop the match early with, or null to play every game
+     * @return the result of the games played
+     * @throws IllegalArgumentException if no opening of openingPlies plies can be found for a pair
+     * @throws IllegalStateException if a game thread failed or the wait was interrupted
+     */
+    public MatchResult match(Engine first, Engine second, long games, Sprt sprt)
+            throws IllegalArgumentException, IllegalStateException {
+        return match(first, second, games, sprt, result -> { });
+    }
+
+    /**
+     * Plays a match and streams its games.
+     *
+     * @param first the engine the result is counted for
+     * @param second its opponent
+     * @param games the most games to play, rounded up to a whole number of pairs
+     * @param sprt the test to stop the match early with, or null to play every game
+     * @param sink where every finished game is sent, from the tournament's threads
+     * @return the result of the games played
+     * @throws IllegalArgumentException if no opening of openingPlies plies can be found for a pair
+     * @throws IllegalStateException if a game thread failed or the wait was interrupted
+     */
+    public MatchResult match(Engine first, Engine second, long games, Sprt sprt, GameSink sink)
+            throws IllegalArgumentException, IllegalStateException {
+        long pairs = (games + 1) / 2;
+        AtomicLong nextPair = new AtomicLong();
+        AtomicReference<Sprt.Decision> decision = new AtomicReference<>(Sprt.Decision.CONTINUE);
+        // Wins, draws and losses of the first engine, adjudicated games, and pairs
+        // in which the first engine scored 0 to 4 half points, updated under the array's lock
+        long[] tally = new long[4 + 5];
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>(threads);
+            for (int i = 0; i < threads; i++) {
+                futures.add(pool.submit(() -> {
+                    Player firstPlayer = first.newPlayer();
+                    Player secondPlayer = second.newPlayer();
+                    try {
+                        long pair;
+                        while (decision.get() == Sprt.Decision.CONTINUE
+                                && (pair = nextPair.getAndIncrement()) < pairs) {
+                            Board start = opening(pair);
+                            Color mover = openingPlies % 2 == 0 ? Color.WHITE : Color.BLACK;
+                            GameResult firstWhite = Game.play(start, mover, firstPlayer, secondPlayer, maxPlies);
+                            GameResult firstBlack = Game.play(start, mover, secondPlayer, firstPlayer, maxPlies);
+                            sink.accept(firstWhite);
+                            sink.accept(firstBlack);
+                            synchronized (tally) {
+                                int halfPoints = count(tally, firstWhite, Color.WHITE)
+                                        + count(tally, firstBlack, Color.BLACK);
+                                tally[4 + halfPoints]++;
+                                if (sprt != null && decision.get() == Sprt.Decision.CONTINUE) {
+                                    decision.set(sprt.decide(Arrays.copyOfRange(tally, 4, 9)));
+                                }
+                            }
+                        }
+                    } finally {
+                        close(firstPlayer);
+                        close(secondPlayer);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the games", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IllegalArgumentException) {
+                throw (IllegalArgumentException) e.getCause();
+            }
+            throw new IllegalStateException("A game thread failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        synchronized (tally) {
+            return new MatchResult(first.getName(), second.getName(), tally[0], tally[1], tally[2], tally[3],
+                    sprt, decision.get(), Arrays.copyOfRange(tally, 4, 9));
+        }
+    }
+
+    /**
+     * Plays a match between every two engines, in the order they are listed.
+     *
+     * @param engines the engines taking part
+     * @param games the most games per match, rounded up to a whole number of pairs
+     * @param sprt the test to stop each match early with, or null to play every game
+     * @return the result of every match, counted for the engine listed first
+     * @throws IllegalArgumentException if no opening of openingPlies plies can be found for a pair
+     * @throws IllegalStateException if a game thread failed or the wait was interrupted
+     */
+    public List<MatchResult> roundRobin(List<Engine> engines, long games, Sprt sprt)
+            throws IllegalArgumentException, IllegalStateException {
+        List<MatchResult> results = new ArrayList<>();
+        for (int i = 0; i < engines.size(); i++) {
+            for (int j = i + 1; j < engines.size(); j++) {
+                results.add(match(engines.get(i), engines.get(j), games, sprt));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Returns the opening of a pair of games: the standard setup after
+     * openingPlies random plies, none of which ends the game or is a pass.
+     *
+     * Random lines that end or pass early are thrown away and a new one is
+     * tried, up to OPENING_ATTEMPTS of them. Most random games end within a
+     * few hundred plies, so long openings may not be found.
+     *
+     * @param pair the number of the pair in its match
+     * @return a new board in the opening position
+     * @throws IllegalArgumentException if none of the random lines reaches openingPlies plies
+     */
+    public Board opening(long pair) throws IllegalArgumentException {
+        SplittableRandom random = new SplittableRandom(seed + pair * 0x9E3779B97F4A7C15L);
+        int[] moves = new int[Board.MAX_MOVES];
+        for (int attempt = 0; attempt < OPENING_ATTEMPTS; attempt++) {
+            Board board = new Board();
+            Color player = Color.WHITE;
+            int ply = 0;
+            while (ply < openingPlies) {
+                int count = board.generateMoves(player, moves);
+                if (count == 0) {
+                    break;
+                }
+                board.makeMove(moves[random.nextInt(count)]);
+                if (board.checkWin() != null) {
+                    break;
+                }
+                player = player.opposite();
+                ply++;
+            }
+            if (ply == openingPlies) {
+                return board;
+            }
+        }
+        throw new IllegalArgumentException("No opening of " + openingPlies + " plies found for pair " + pair
+                + " in " + OPENING_ATTEMPTS + " random lines");
+    }
+
+    /**
+     * Plays matches and prints their results.
+     *
+     * @param args the most games per match, the number of threads, the number
+     *             of random opening plies, and two or more engines (see
+     *             Engine.parse); every pair of engines plays a match, stopped
+     *             early by an Sprt if the entropy.sprt property is set to
+     *             "elo0,elo1" or "elo0,elo1,alpha,beta" (default error rates 0.05);
+     *             games are adjudicated unless entropy.noAdjudication is true;
+     *             the openings are chosen with the seed in entropy.seed, or a
+     *             new one that is printed so the run can be repeated
+     */
+    public static void main(String[] args) {
+        if (args.length < 5) {
+            throw new IllegalArgumentException("Usage: <games> <threads> <opening plies> <engine> <engine>...");
+        }
+        long games = Long.parseLong(args[0]);
+        int threads = Integer.parseInt(args[1]);
+        String seedProperty = System.getProperty("entropy.seed");
+        long seed = seedProperty != null ? Long.parseLong(seedProperty) : System.nanoTime();
+        System.out.println("Openings seed " + seed + " (-Dentropy.seed=" + seed + " repeats them)");
+        Tournament tournament = new Tournament(threads, Game.DEFAULT_MAX_PLIES, Integer.parseInt(args[2]),
+                seed, !Boolean.getBoolean("entropy.noAdjudication"));
+        List<Engine> engines = new ArrayList<>();
+        for (int i = 3; i < args.length; i++) {
+            engines.add(Engine.parse(args[i]));
+        }
+        Sprt sprt = parseSprt(System.getProperty("entropy.sprt"));
+        if (sprt != null) {
+            System.out.println(sprt);
+        }
+        for (int i = 0; i < engines.size(); i++) {
+            for (int j = i + 1; j < engines.size(); j++) {
+                long start = System.nanoTime();
+                MatchResult result = tournament.match(engines.get(i), engines.get(j), games, sprt);
+                double seconds = (System.nanoTime() - start) / 1e9;
+                System.out.printf("%s (%.1f s, %.1f games/s)%n", result, seconds, result.getGames() / seconds);
+            }
+        }
+    }
+
+    /**
+     * Parses an Sprt from "elo0,elo1" or "elo0,elo1,alpha,beta".
+     *
+     * @return the test, or null if the text is null
+     * @throws IllegalArgumentException if the text is not in either form
+     */
+    static Sprt parseSprt(String text) throws IllegalArgumentException {
+        if (text == null) {
+            return null;
+        }
+        String[] parts = text.split(",");
+        if (parts.length != 2 && parts.length != 4) {
+            throw new IllegalArgumentException("Expected elo0,elo1[,alpha,beta] but got " + text);
+        }
+        double alpha = parts.length == 4 ? Double.parseDouble(parts[2]) : 0.05;
+        double beta = parts.length == 4 ? Double.parseDouble(parts[3]) : 0.05;
+        return new Sprt(Double.parseDouble(parts[0]), Double.parseDouble(parts[1]), alpha, beta);
+    }
+
+    /**
+     * Returns the player a game nobody won is adjudicated to, or null for a draw.
+     *
+     * @param result a game that ended FROZEN or at the ply limit
+     */
+    public static Color adjudicate(GameResult result) {
+        return result.replay(result.getLength()).getIsolationLeader();
+    }
+
+    /**
+     * Adds one game to the tally of the first engine.
+     *
+     * @return the half points the first engine scored in the game
+     */
+    private int count(long[] tally, GameResult result, Color firstColor) {
+        Color winner = result.getWinner();
+        if (winner == null && adjudicate) {
+            winner = adjudicate(result);
+            if (winner != null) {
+                tally[3]++;
+            }
+        }
+        int outcome = winner == null ? 1 : winner == firstColor ? 0 : 2;
+        tally[outcome]++;
+        return 2 - outcome;
+    }
+
+    private static void close(Player player) throws Exception {
+        if (player instanceof AutoCloseable) {
+            ((AutoCloseable) player).close();
+        }
+    }
+}
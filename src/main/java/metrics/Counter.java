@@ -0,0 +1,58 @@
+package main.java.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A named count that many threads can add to at once.
+ *
+ * The count is striped (see LongAdder), so threads adding to it do not fight
+ * over one memory location; reading it sums the stripes.
+ */
+public final class Counter {
+
+    private final String name;
+
+    private final LongAdder count = new LongAdder();
+
+    /**
+     * Creates a counter at zero.
+     *
+     * @param name the name the counter is exported under
+     */
+    Counter(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Adds one to the count.
+     */
+    public void increment() {
+        count.increment();
+    }
+
+    /**
+     * Adds to the count.
+     *
+     * @param amount the amount to add
+     */
+    public void add(long amount) {
+        count.add(amount);
+    }
+
+    //region Getters
+    public String getName() {
+        return name;
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+    //endregion
+
+    /**
+     * Sets the count back to zero.
+     */
+    void reset() {
+        count.reset();
+    }
+}
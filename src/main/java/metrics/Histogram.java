@@ -0,0 +1,111 @@
+package main.java.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A named distribution of non-negative values, such as latencies in
+ * nanoseconds or plies per game, that many threads can record into at once.
+ *
+ * Values are counted in power-of-two buckets: bucket 0 holds 0, and bucket i
+ * holds the values from 2^(i-1) to 2^i - 1. Percentiles are therefore only
+ * known to within a factor of two, which is enough to see where time goes,
+ * and recording a value is a couple of striped additions.
+ */
+public final class Histogram {
+
+    private static final int BUCKETS = Long.SIZE + 1;
+
+    private final String name;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+
+    private final LongAdder sum = new LongAdder();
+
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Creates an empty histogram.
+     *
+     * @param name the name the histogram is exported under
+     */
+    Histogram(String name) {
+        this.name = name;
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records a value.
+     *
+     * @param value the value, negative values counting as 0
+     */
+    public void record(long value) {
+        value = Math.max(0, value);
+        buckets[Long.SIZE - Long.numberOfLeadingZeros(value)].increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * Records the nanoseconds since a start time taken from System.nanoTime.
+     *
+     * @param startNanos the start of the timed operation
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    //region Getters
+    public String getName() {
+        return name;
+    }
+    //endregion
+
+    /**
+     * Returns the count, sum, maximum and percentiles of the values recorded so far.
+     *
+     * The result is not an atomic view: values recorded while it is taken may
+     * be counted in some of its numbers and not others.
+     */
+    public HistogramSnapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+            count += counts[i];
+        }
+        long maximum = max.get();
+        return new HistogramSnapshot(name, count, sum.sum(), maximum,
+                percentile(counts, count, maximum, 0.5), percentile(counts, count, maximum, 0.9),
+                percentile(counts, count, maximum, 0.99));
+    }
+
+    /**
+     * Empties the histogram.
+     */
+    void reset() {
+        for (LongAdder bucket : buckets) {
+            bucket.reset();
+        }
+        sum.reset();
+        max.reset();
+    }
+
+    /**
+     * Returns the upper bound of the bucket holding a percentile, at most the maximum.
+     */
+    private static long percentile(long[] counts, long count, long maximum, double fraction) {
+        long rank = (long) Math.ceil(fraction * count);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank && seen > 0) {
+                long upper = i == 0 ? 0 : i == Long.SIZE ? Long.MAX_VALUE : (1L << i) - 1;
+                return Math.min(upper, maximum);
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,68 @@
+package main.java.metrics;
+
+/**
+ * The state of a Histogram at one point in time.
+ */
+public final class HistogramSnapshot {
+
+    private final String name;
+
+    private final long count;
+
+    private final long sum;
+
+    private final long max;
+
+    private final long p50;
+
+    private final long p90;
+
+    private final long p99;
+
+    HistogramSnapshot(String name, long count, long sum, long max, long p50, long p90, long p99) {
+        this.name = name;
+        this.count = count;
+        this.sum = sum;
+        this.max = max;
+        this.p50 = p50;
+        this.p90 = p90;
+        this.p99 = p99;
+    }
+
+    //region Getters
+    public String getName() {
+        return name;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getSum() {
+        return sum;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Returns the mean of the values, 0 if there are none.
+     */
+    public double getMean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    public long getP50() {
+        return p50;
+    }
+
+    public long getP90() {
+        return p90;
+    }
+
+    public long getP99() {
+        return p99;
+    }
+    //endregion
+}
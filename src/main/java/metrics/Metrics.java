@@ -0,0 +1,114 @@
+package main.java.metrics;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The counters and histograms of a process, for seeing where time goes in
+ * long runs.
+ *
+ * Metrics are off unless the system property entropy.metrics is true. Every
+ * instrumented call site is guarded by ENABLED, which is a static final
+ * constant, so when it is off the JIT drops the guarded code and the timing
+ * calls around it entirely. When it is on, recording is a few striped
+ * additions (see Counter and Histogram), so threads do not contend.
+ */
+public final class Metrics {
+
+    public static final boolean ENABLED = Boolean.getBoolean("entropy.metrics");
+
+    private static final Map<String, Counter> COUNTERS = new LinkedHashMap<>();
+
+    private static final Map<String, Histogram> HISTOGRAMS = new LinkedHashMap<>();
+
+    // Latencies of the Board operations that build lists, in nanoseconds
+    public static final Histogram LEGAL_MOVES = histogram("board.legalMoves.nanos");
+    public static final Histogram SURROUNDING_POINTS = histogram("board.getSurroundingPoints.nanos");
+
+    // Calls of the Board operations the engines make once or more per node.
+    // These are too cheap to time one by one, so only the searches that make
+    // them are timed
+    public static final Counter GENERATE_MOVES = counter("board.generateMoves");
+    public static final Counter MAKE_MOVES = counter("board.makeMove");
+    public static final Counter UNMAKE_MOVES = counter("board.unmakeMove");
+
+    // Latencies of whole searches and perft runs, in nanoseconds, and the nodes searched
+    public static final Histogram SEARCHES = histogram("search.nanos");
+    public static final Counter SEARCH_NODES = counter("search.nodes");
+    public static final Histogram PERFTS = histogram("perft.nanos");
+
+    // Games finished by any game loop, their lengths in plies and the passes in them
+    public static final Counter GAMES = counter("games.finished");
+    public static final Histogram GAME_PLIES = histogram("games.plies");
+    public static final Counter FORCED_PASSES = counter("games.forcedPasses");
+
+    private Metrics() {
+    }
+
+    /**
+     * Returns the counter of a name, creating it the first time.
+     *
+     * @param name the name the counter is exported under
+     * @return the one counter of that name
+     */
+    public static synchronized Counter counter(String name) {
+        return COUNTERS.computeIfAbsent(name, Counter::new);
+    }
+
+    /**
+     * Returns the histogram of a name, creating it the first time.
+     *
+     * @param name the name the histogram is exported under
+     * @return the one histogram of that name
+     */
+    public static synchronized Histogram histogram(String name) {
+        return HISTOGRAMS.computeIfAbsent(name, Histogram::new);
+    }
+
+    /**
+     * Records the end of a game.
+     *
+     * @param plies the length of the game, passes included
+     * @spec.requires ENABLED
+     */
+    public static void gameFinished(int plies) {
+        GAMES.increment();
+        GAME_PLIES.record(plies);
+    }
+
+    /**
+     * Returns the current value of every counter and histogram, in the order
+     * they were created.
+     */
+    public static MetricsSnapshot snapshot() {
+        List<Counter> counters;
+        List<Histogram> histograms;
+        synchronized (Metrics.class) {
+            counters = new ArrayList<>(COUNTERS.values());
+            histograms = new ArrayList<>(HISTOGRAMS.values());
+        }
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Counter counter : counters) {
+            counts.put(counter.getName(), counter.getCount());
+        }
+        List<HistogramSnapshot> distributions = new ArrayList<>(histograms.size());
+        for (Histogram histogram : histograms) {
+            distributions.add(histogram.snapshot());
+        }
+        return new MetricsSnapshot(System.currentTimeMillis(), System.nanoTime(), counts, distributions);
+    }
+
+    /**
+     * Sets every counter and histogram back to zero.
+     */
+    public static synchronized void reset() {
+        for (Counter counter : COUNTERS.values()) {
+            counter.reset();
+        }
+        for (Histogram histogram : HISTOGRAMS.values()) {
+            histogram.reset();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package main.java.metrics;
+
+import java.io.PrintStream;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prints a snapshot of the metrics at a fixed period, on a daemon thread, with
+ * counter rates measured since the previous snapshot.
+ */
+public final class MetricsReporter implements AutoCloseable {
+
+    private final PrintStream out;
+
+    private final boolean json;
+
+    private final ScheduledExecutorService timer;
+
+    private MetricsSnapshot previous;
+
+    /**
+     * Starts printing snapshots.
+     *
+     * @param out where to print
+     * @param json whether to print one JSON object per line instead of text
+     * @param periodMillis the time between two snapshots, at least 1
+     * @throws IllegalArgumentException if periodMillis is less than 1
+     */
+    public MetricsReporter(PrintStream out, boolean json, long periodMillis) throws IllegalArgumentException {
+        if (periodMillis < 1) {
+            throw new IllegalArgumentException("The period must be at least a millisecond");
+        }
+        this.out = out;
+        this.json = json;
+        previous = Metrics.snapshot();
+        timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.scheduleAtFixedRate(this::report, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Starts printing snapshots as the system properties say: every
+     * entropy.metrics.periodMillis milliseconds (default 10000), as JSON if
+     * entropy.metrics.json is true.
+     *
+     * @param out where to print
+     * @return the running reporter
+     */
+    public static MetricsReporter fromSystemProperties(PrintStream out) {
+        return new MetricsReporter(out, Boolean.getBoolean("entropy.metrics.json"),
+                Long.getLong("entropy.metrics.periodMillis", 10_000));
+    }
+
+    /**
+     * Prints a snapshot now.
+     */
+    public synchronized void report() {
+        MetricsSnapshot current = Metrics.snapshot();
+        out.print(json ? current.toJson(previous) + System.lineSeparator() : current.toText(previous));
+        out.flush();
+        previous = current;
+    }
+
+    /**
+     * Stops printing snapshots.
+     */
+    @Override
+    public void close() {
+        timer.shutdownNow();
+    }
+}
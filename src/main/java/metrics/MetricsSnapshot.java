@@ -0,0 +1,134 @@
+package main.java.metrics;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The values of every metric at one point in time, printable as text or JSON.
+ *
+ * Given the snapshot before it, a snapshot also reports the rate of every
+ * counter per second in between, such as games per second.
+ */
+public final class MetricsSnapshot {
+
+    private final long timeMillis;
+
+    private final long nanoTime;
+
+    private final Map<String, Long> counters;
+
+    private final List<HistogramSnapshot> histograms;
+
+    MetricsSnapshot(long timeMillis, long nanoTime, Map<String, Long> counters, List<HistogramSnapshot> histograms) {
+        this.timeMillis = timeMillis;
+        this.nanoTime = nanoTime;
+        this.counters = Collections.unmodifiableMap(counters);
+        this.histograms = Collections.unmodifiableList(histograms);
+    }
+
+    //region Getters
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+
+    public Map<String, Long> getCounters() {
+        return counters;
+    }
+
+    public List<HistogramSnapshot> getHistograms() {
+        return histograms;
+    }
+    //endregion
+
+    /**
+     * Returns the value of a counter, 0 if there is no counter of that name.
+     */
+    public long getCounter(String name) {
+        return counters.getOrDefault(name, 0L);
+    }
+
+    /**
+     * Returns the histogram of a name, or null if there is none.
+     */
+    public HistogramSnapshot getHistogram(String name) {
+        for (HistogramSnapshot histogram : histograms) {
+            if (histogram.getName().equals(name)) {
+                return histogram;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns how fast a counter grew per second since an earlier snapshot.
+     *
+     * @param name the counter
+     * @param previous the earlier snapshot
+     * @return the increase per second, 0 if no time passed
+     */
+    public double rate(String name, MetricsSnapshot previous) {
+        double seconds = (nanoTime - previous.nanoTime) / 1e9;
+        return seconds <= 0 ? 0 : (getCounter(name) - previous.getCounter(name)) / seconds;
+    }
+
+    /**
+     * Returns one line per metric, with counter rates if an earlier snapshot is given.
+     *
+     * @param previous the snapshot to take rates against, or null for none
+     */
+    public String toText(MetricsSnapshot previous) {
+        StringBuilder text = new StringBuilder();
+        for (Map.Entry<String, Long> counter : counters.entrySet()) {
+            text.append(String.format(Locale.ROOT, "%-34s %14d", counter.getKey(), counter.getValue()));
+            if (previous != null) {
+                text.append(String.format(Locale.ROOT, " %14.1f/s", rate(counter.getKey(), previous)));
+            }
+            text.append(System.lineSeparator());
+        }
+        for (HistogramSnapshot histogram : histograms) {
+            text.append(String.format(Locale.ROOT, "%-34s count %d mean %.1f p50 %d p90 %d p99 %d max %d",
+                    histogram.getName(), histogram.getCount(), histogram.getMean(), histogram.getP50(),
+                    histogram.getP90(), histogram.getP99(), histogram.getMax()));
+            text.append(System.lineSeparator());
+        }
+        return text.toString();
+    }
+
+    /**
+     * Returns the snapshot as one JSON object, with counter rates if an
+     * earlier snapshot is given.
+     *
+     * @param previous the snapshot to take rates against, or null for none
+     */
+    public String toJson(MetricsSnapshot previous) {
+        StringBuilder json = new StringBuilder("{\"timeMillis\": ").append(timeMillis).append(", \"counters\": {");
+        String separator = "";
+        for (Map.Entry<String, Long> counter : counters.entrySet()) {
+            json.append(separator).append('"').append(counter.getKey()).append("\": ").append(counter.getValue());
+            separator = ", ";
+        }
+        json.append('}');
+        if (previous != null) {
+            json.append(", \"rates\": {");
+            separator = "";
+            for (String name : counters.keySet()) {
+                json.append(separator).append(String.format(Locale.ROOT, "\"%s\": %.3f", name, rate(name, previous)));
+                separator = ", ";
+            }
+            json.append('}');
+        }
+        json.append(", \"histograms\": {");
+        separator = "";
+        for (HistogramSnapshot histogram : histograms) {
+            json.append(separator).append(String.format(Locale.ROOT,
+                    "\"%s\": {\"count\": %d, \"sum\": %d, \"mean\": %.3f, \"p50\": %d, \"p90\": %d, \"p99\": %d, "
+                            + "\"max\": %d}",
+                    histogram.getName(), histogram.getCount(), histogram.getSum(), histogram.getMean(),
+                    histogram.getP50(), histogram.getP90(), histogram.getP99(), histogram.getMax()));
+            separator = ", ";
+        }
+        return json.append("}}").toString();
+    }
+}
@@ -0,0 +1,58 @@
+package main.java.server;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A blocking client for the GameServer protocol, one request at a time.
+ */
+public class GameClient implements Closeable {
+
+    private final Socket socket;
+
+    private final BufferedReader in;
+
+    private final Writer out;
+
+    /**
+     * Connects to a server.
+     *
+     * @param host the host of the server
+     * @param port the port of the server
+     * @throws IOException if the connection fails
+     */
+    public GameClient(String host, int port) throws IOException {
+        socket = new Socket(host, port);
+        socket.setTcpNoDelay(true);
+        in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+        out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Sends one request line and waits for its response.
+     *
+     * @param request the request, without the line end
+     * @return the response line, without the line end
+     * @throws IOException if the connection fails or the server closes it first
+     */
+    public String request(String request) throws IOException {
+        out.write(request + "\n");
+        out.flush();
+        String response = in.readLine();
+        if (response == null) {
+            throw new IOException("Connection closed by the server");
+        }
+        return response;
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+}
@@ -0,0 +1,439 @@
+package main.java.server;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Hosts any number of games at once over a line-based TCP protocol.
+ *
+ * Each request is one line of ASCII words and gets exactly one response line,
+ * in order. Row and column coordinates are as in StartTwoPlayerGame.
+ * <pre>
+ *   NEW                         -> OK id TURN WHITE moves
+ *   MOVE id fromRow fromCol toRow toCol
+ *                               -> OK id TURN player moves | OK id WIN player | OK id FROZEN
+ *   PASS id                     -> the same as MOVE
+ *   STATE id                    -> the same as MOVE, without playing
+ *   SHOW id                     -> BOARD id player squares
+ *   CLOSE id                    -> OK id CLOSED
+ *   QUIT                        -> BYE, and the connection is closed
+ * </pre>
+ * moves is the number of legal moves of the player to move; 0 means they must
+ * PASS. Errors are answered with "ERR" and a message, and change nothing.
+ * A game belongs to the connection that started it: other connections get an
+ * error for it, and it is discarded when that connection closes, so clients
+ * that drop out leave nothing behind.
+ *
+ * One thread runs a Selector for all connections. Games are spread over a
+ * fixed number of stripes by id, and every stripe is a single thread that
+ * alone holds and plays its games, so no game is ever touched by two threads
+ * and no lock is needed. A connection has at most one request in a stripe at
+ * a time, which keeps its responses in order.
+ */
+public class GameServer implements AutoCloseable {
+
+    public static final int DEFAULT_PORT = 4567;
+
+    private static final int MAX_LINE = 256;
+
+    private final ServerSocketChannel serverChannel;
+
+    private final Selector selector;
+
+    private final Stripe[] stripes;
+
+    // Work handed back to the selector thread by the stripes
+    private final Queue<Runnable> completions = new ConcurrentLinkedQueue<>();
+
+    private final Thread selectorThread;
+
+    // Only used from the selector thread
+    private long nextId = 1;
+
+    private long nextConnection = 1;
+
+    private volatile boolean running = true;
+
+    /**
+     * Opens a server and starts serving.
+     *
+     * @param address the address to listen on; port 0 picks a free port
+     * @param stripeCount the number of threads games are played on, at least 1
+     * @throws IOException if the address cannot be bound
+     * @throws IllegalArgumentException if stripeCount is less than 1
+     */
+    public GameServer(InetSocketAddress address, int stripeCount) throws IOException, IllegalArgumentException {
+        if (stripeCount < 1) {
+            throw new IllegalArgumentException("At least one stripe is needed");
+        }
+        stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe("game-stripe-" + i);
+        }
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(address);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        // Not a daemon, so a server keeps the JVM alive until it is closed
+        selectorThread = new Thread(this::serve, "game-server");
+        selectorThread.start();
+    }
+
+    /**
+     * Returns the port the server listens on.
+     */
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * Stops serving and closes every connection. Games are discarded.
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        selector.wakeup();
+        try {
+            selectorThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Stripe stripe : stripes) {
+            stripe.executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Runs a server until the process is stopped.
+     *
+     * @param args the port (default DEFAULT_PORT) and the number of stripes (default one per core)
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int stripeCount = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        GameServer server = new GameServer(new InetSocketAddress(port), stripeCount);
+        System.out.println("Serving Entropy games on port " + server.getPort());
+    }
+
+    /**
+     * The loop of the selector thread.
+     */
+    private void serve() {
+        try {
+            while (running) {
+                selector.select();
+                for (Runnable completion = completions.poll(); completion != null; completion = completions.poll()) {
+                    completion.run();
+                }
+                for (SelectionKey key : selector.selectedKeys()) {
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        try {
+                            accept();
+                        } catch (IOException e) {
+                            // Such as running out of file handles; only this client is refused
+                            System.err.println("Cannot accept a connection: " + e);
+                        }
+                    } else {
+                        Connection connection = (Connection) key.attachment();
+                        try {
+                            if (key.isReadable()) {
+                                connection.read();
+                            }
+                            if (key.isValid() && key.isWritable()) {
+                                connection.write();
+                            }
+                        } catch (IOException e) {
+                            connection.close();
+                        }
+                    }
+                }
+                selector.selectedKeys().clear();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                closeQuietly(key);
+            }
+            try {
+                selector.close();
+                serverChannel.close();
+            } catch (IOException e) {
+                // Nothing more to release
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.configureBlocking(false);
+            SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+            key.attach(new Connection(channel, key));
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private Stripe stripeOf(long id) {
+        return stripes[(int) (id % stripes.length)];
+    }
+
+    private static void closeQuietly(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            // Already broken
+        }
+    }
+
+    /**
+     * One client connection. Only used from the selector thread.
+     */
+    private class Connection {
+
+        private final long number = nextConnection++;
+
+        private final SocketChannel channel;
+
+        private final SelectionKey key;
+
+        private final ByteBuffer input = ByteBuffer.allocate(4096);
+
+        private final StringBuilder partialLine = new StringBuilder();
+
+        private final Queue<String> requests = new ArrayDeque<>();
+
+        private final Queue<ByteBuffer> output = new ArrayDeque<>();
+
+        // The ids of the games this connection started and has not closed
+        private final Set<Long> games = new HashSet<>();
+
+        // Whether a request of this connection is being handled by a stripe
+        private boolean busy;
+
+        private boolean quitting;
+
+        private boolean closed;
+
+        Connection(SocketChannel channel, SelectionKey key) {
+            this.channel = channel;
+            this.key = key;
+        }
+
+        void read() throws IOException {
+            input.clear();
+            int read = channel.read(input);
+            if (read < 0) {
+                close();
+                return;
+            }
+            input.flip();
+            while (input.hasRemaining()) {
+                char c = (char) (input.get() & 0xFF);
+                if (c == '\n') {
+                    requests.add(partialLine.toString().trim());
+                    partialLine.setLength(0);
+                } else if (partialLine.length() >= MAX_LINE) {
+                    respond("ERR line too long");
+                    quitting = true;
+                    return;
+                } else {
+                    partialLine.append(c);
+                }
+            }
+            handleNext();
+        }
+
+        void write() throws IOException {
+            while (!output.isEmpty()) {
+                channel.write(output.peek());
+                if (output.peek().hasRemaining()) {
+                    return; // The socket is full; wait until it is writable again
+                }
+                output.poll();
+            }
+            key.interestOps(SelectionKey.OP_READ);
+            if (quitting) {
+                close();
+            }
+        }
+
+        void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            closeQuietly(key);
+            // Queued behind any request still running, so nothing is left over
+            for (long id : games) {
+                Stripe stripe = stripeOf(id);
+                stripe.executor.execute(() -> stripe.games.remove(id));
+            }
+            games.clear();
+        }
+
+        /**
+         * Starts on the next request, unless one is being handled.
+         */
+        private void handleNext() {
+            while (!busy && !quitting && !requests.isEmpty()) {
+                handle(requests.poll());
+            }
+        }
+
+        private void handle(String line) {
+            String[] words = line.split("\\s+");
+            String command = words[0].toUpperCase();
+            if (command.equals("QUIT")) {
+                respond("BYE");
+                quitting = true;
+                return;
+            }
+            if (command.equals("NEW") && words.length == 1) {
+                long id = nextId++;
+                games.add(id);
+                inStripe(id, stripeGames -> {
+                    ServerGame game = new ServerGame(id, number);
+                    stripeGames.put(id, game);
+                    return game.state();
+                });
+                return;
+            }
+            int expectedWords = command.equals("MOVE") ? 6 : 2;
+            if (!(command.equals("MOVE") || command.equals("PASS") || command.equals("STATE")
+                    || command.equals("SHOW") || command.equals("CLOSE")) || words.length != expectedWords) {
+                respond("ERR unknown command or wrong number of arguments: " + line);
+                return;
+            }
+            long id;
+            int[] coordinates = new int[4];
+            try {
+                id = Long.parseLong(words[1]);
+                for (int i = 0; i < expectedWords - 2; i++) {
+                    coordinates[i] = Integer.parseInt(words[i + 2]);
+                }
+            } catch (NumberFormatException e) {
+                respond("ERR not a number: " + line);
+                return;
+            }
+            if (id < 1) {
+                respond("ERR no game " + id);
+                return;
+            }
+            if (command.equals("CLOSE")) {
+                games.remove(id);
+            }
+            inStripe(id, stripeGames -> {
+                ServerGame game = stripeGames.get(id);
+                if (game == null) {
+                    return "ERR no game " + id;
+                }
+                if (!game.isOwnedBy(number)) {
+                    return "ERR game " + id + " belongs to another connection";
+                }
+                switch (command) {
+                    case "MOVE":
+                        return game.move(coordinates[0], coordinates[1], coordinates[2], coordinates[3]);
+                    case "PASS":
+                        return game.pass();
+                    case "STATE":
+                        return game.state();
+                    case "SHOW":
+                        return game.show();
+                    default:
+                        stripeGames.remove(id);
+                        return "OK " + id + " CLOSED";
+                }
+            });
+        }
+
+        /**
+         * Runs a request on the stripe of a game and sends its response once done.
+         */
+        private void inStripe(long id, StripeTask task) {
+            busy = true;
+            Stripe stripe = stripeOf(id);
+            stripe.executor.execute(() -> {
+                String response = run(task, stripe.games, id);
+                completions.add(() -> {
+                    busy = false;
+                    if (!closed) {
+                        respond(response);
+                        handleNext();
+                    }
+                });
+                selector.wakeup();
+            });
+        }
+
+        /**
+         * Runs a stripe task, turning a failure into an error response so the
+         * connection is never left waiting for one.
+         */
+        private String run(StripeTask task, Map<Long, ServerGame> stripeGames, long id) {
+            try {
+                return task.run(stripeGames);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+                return "ERR " + id + " internal error: " + e;
+            }
+        }
+
+        private void respond(String response) {
+            output.add(ByteBuffer.wrap((response + "\n").getBytes(StandardCharsets.US_ASCII)));
+            key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        }
+    }
+
+    /**
+     * A thread and the games only it plays.
+     */
+    private static class Stripe {
+
+        private final ExecutorService executor;
+
+        // Only used from the thread of executor
+        private final Map<Long, ServerGame> games = new HashMap<>();
+
+        Stripe(String name) {
+            executor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Work done on a stripe thread with that stripe's games.
+     */
+    private interface StripeTask {
+        String run(Map<Long, ServerGame> stripeGames);
+    }
+}
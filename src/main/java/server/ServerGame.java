@@ -0,0 +1,135 @@
+package main.java.server;
+
+import main.java.Board;
+import main.java.Color;
+import main.java.Move;
+import main.java.metrics.Metrics;
+
+/**
+ * The state of one game hosted by a GameServer, with the rules of Game: a
+ * player may pass only when they have no legal move, the game is won by the
+ * player checkWin names right after their turn, and it is frozen when both
+ * players pass in a row.
+ *
+ * A ServerGame is not thread-safe. The server only ever touches a game from
+ * the one thread of its stripe.
+ */
+class ServerGame {
+
+    private final long id;
+
+    // The number of the connection that started the game and alone may play it
+    private final long owner;
+
+    private final Board board = new Board();
+
+    private final int[] moves = new int[Board.MAX_MOVES];
+
+    private Color player = Color.WHITE;
+
+    private boolean afterPass;
+
+    private int plies;
+
+    // The response describing the end of the game, null while it is being played
+    private String result;
+
+    ServerGame(long id, long owner) {
+        this.id = id;
+        this.owner = owner;
+    }
+
+    /**
+     * Returns whether a connection started this game.
+     *
+     * @param connection the number the server gave the connection
+     */
+    boolean isOwnedBy(long connection) {
+        return owner == connection;
+    }
+
+    /**
+     * Plays a move of the player to move.
+     *
+     * @return the response to send: the new state, or an error if the move is not legal
+     */
+    String move(int fromRow, int fromCol, int toRow, int toCol) {
+        if (result != null) {
+            return result;
+        }
+        if (!onBoard(fromRow) || !onBoard(fromCol) || !onBoard(toRow) || !onBoard(toCol)) {
+            return "ERR " + id + " square off the board";
+        }
+        int move = Move.encode(fromRow * Board.BOARD_SIZE + fromCol, toRow * Board.BOARD_SIZE + toCol);
+        int count = board.generateMoves(player, moves);
+        for (int i = 0; i < count; i++) {
+            if (moves[i] == move) {
+                return play(move);
+            }
+        }
+        return count == 0 ? "ERR " + id + " " + player + " has no legal move and must pass"
+                : "ERR " + id + " illegal move for " + player;
+    }
+
+    /**
+     * Passes the turn of the player to move.
+     *
+     * @return the response to send: the new state, or an error if the player has a legal move
+     */
+    String pass() {
+        if (result != null) {
+            return result;
+        }
+        if (board.countMoves(player) > 0) {
+            return "ERR " + id + " " + player + " has a legal move and cannot pass";
+        }
+        return play(Move.PASS);
+    }
+
+    /**
+     * Returns the position as "BOARD id player squares", with one character per
+     * square in row order: B, W or '.' for an empty square.
+     */
+    String show() {
+        StringBuilder line = new StringBuilder("BOARD ").append(id).append(' ').append(player).append(' ');
+        long black = board.getPieces(Color.BLACK);
+        long white = board.getPieces(Color.WHITE);
+        for (int square = 0; square < Board.NUM_SQUARES; square++) {
+            line.append((black & (1L << square)) != 0 ? 'B' : (white & (1L << square)) != 0 ? 'W' : '.');
+        }
+        return line.toString();
+    }
+
+    /**
+     * Returns the state of a game still being played, "OK id TURN player moves",
+     * where moves is how many legal moves the player has, 0 meaning they must pass.
+     */
+    String state() {
+        return result != null ? result
+                : "OK " + id + " TURN " + player + " " + board.countMoves(player);
+    }
+
+    private String play(int move) {
+        board.makeMove(move);
+        plies++;
+        if (Metrics.ENABLED && move == Move.PASS) {
+            Metrics.FORCED_PASSES.increment();
+        }
+        if (board.checkWin() == player) {
+            result = "OK " + id + " WIN " + player;
+        } else if (move == Move.PASS && afterPass) {
+            result = "OK " + id + " FROZEN";
+        } else {
+            afterPass = move == Move.PASS;
+            player = player.opposite();
+        }
+        if (Metrics.ENABLED && result != null) {
+            Metrics.gameFinished(plies);
+        }
+        return state();
+    }
+
+    private static boolean onBoard(int coordinate) {
+        return coordinate >= 0 && coordinate < Board.BOARD_SIZE;
+    }
+}
@@ -0,0 +1,106 @@
+package main.java.sim;
+
+import main.java.Board;
+import main.java.Color;
+import main.java.Move;
+import main.java.metrics.Metrics;
+
+import java.util.Arrays;
+
+/**
+ * Plays one game between two Players without any console input or output.
+ *
+ * The turn rules are the ones of StartTwoPlayerGame.main: a player with no
+ * legal move passes, and the game is won by the player checkWin names right
+ * after their own turn. Two things the console loop cannot do are added: a
+ * game in which both players pass in a row ends as FROZEN, since nothing can
+ * change any more, and a game ends as PLY_LIMIT after maxPlies plies.
+ */
+public final class Game {
+
+    public static final int DEFAULT_MAX_PLIES = 500;
+
+    private Game() {
+    }
+
+    /**
+     * Plays a game from the standard setup, WHITE first, like StartTwoPlayerGame.
+     *
+     * @param white the player of the WHITE pieces
+     * @param black the player of the BLACK pieces
+     * @param maxPlies the longest game to play, passes included
+     * @return the finished game
+     */
+    public static GameResult play(Player white, Player black, int maxPlies) {
+        return play(new Board(), Color.WHITE, white, black, maxPlies);
+    }
+
+    /**
+     * Plays a game from any position.
+     *
+     * @param start the starting position, left unchanged
+     * @param firstPlayer the player to move first
+     * @param white the player of the WHITE pieces
+     * @param black the player of the BLACK pieces
+     * @param maxPlies the longest game to play, passes included
+     * @return the finished game
+     */
+    public static GameResult play(Board start, Color firstPlayer, Player white, Player black, int maxPlies) {
+        return play(start, firstPlayer, white, black, maxPlies, false);
+    }
+
+    /**
+     * Plays a game from any position, optionally checking the board after every ply.
+     *
+     * @param start the starting position, left unchanged
+     * @param firstPlayer the player to move first
+     * @param white the player of the WHITE pieces
+     * @param black the player of the BLACK pieces
+     * @param maxPlies the longest game to play, passes included
+     * @param validate whether to run Board.validate after every ply
+     * @return the finished game
+     * @throws IllegalStateException if validate is true and the board gets corrupted
+     */
+    public static GameResult play(Board start, Color firstPlayer, Player white, Player black, int maxPlies,
+                                  boolean validate) throws IllegalStateException {
+        Board board = new Board(start);
+        int[] moves = new int[board.getMaxMoves()];
+        int[] record = new int[maxPlies];
+        Color player = firstPlayer;
+        boolean afterPass = false;
+        int plies = 0;
+        while (plies < maxPlies) {
+            int count = board.generateMoves(player, moves);
+            int move = count == 0 ? Move.PASS
+                    : (player == Color.WHITE ? white : black).chooseMove(board, player, moves, count);
+            if (Metrics.ENABLED && move == Move.PASS) {
+                Metrics.FORCED_PASSES.increment();
+            }
+            board.makeMove(move);
+            if (validate) {
+                board.validate();
+            }
+            record[plies++] = move;
+            if (board.checkWin() == player) {
+                gameFinished(plies);
+                return new GameResult(start, firstPlayer, Arrays.copyOf(record, plies), player,
+                        GameResult.Ending.WIN);
+            }
+            if (move == Move.PASS && afterPass) {
+                gameFinished(plies);
+                return new GameResult(start, firstPlayer, Arrays.copyOf(record, plies), null,
+                        GameResult.Ending.FROZEN);
+            }
+            afterPass = move == Move.PASS;
+            player = player.opposite();
+        }
+        gameFinished(plies);
+        return new GameResult(start, firstPlayer, record, null, GameResult.Ending.PLY_LIMIT);
+    }
+
+    private static void gameFinished(int plies) {
+        if (Metrics.ENABLED) {
+            Metrics.gameFinished(plies);
+        }
+    }
+}
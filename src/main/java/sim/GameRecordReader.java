@@ -0,0 +1,174 @@
+package main.java.sim;
+
+import main.java.Board;
+import main.java.Color;
+import main.java.Geometry;
+import main.java.Move;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads the games of a file written by GameRecordWriter one at a time, so
+ * that files of any size can be gone through.
+ *
+ * Every field of a game is checked before it is used, so a corrupt or foreign
+ * file fails with an error naming the game rather than an arbitrary
+ * exception or a huge allocation.
+ */
+public class GameRecordReader implements Iterator<GameResult>, Closeable {
+
+    private static final Color[] COLORS = Color.values();
+
+    private static final GameResult.Ending[] ENDINGS = GameResult.Ending.values();
+
+    private final DataInputStream in;
+
+    private final int version;
+
+    // The number of games read so far
+    private long games;
+
+    private GameResult next;
+
+    /**
+     * Opens a game record file.
+     *
+     * @param file the file to read
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the file is not a game record file of a known version
+     */
+    public GameRecordReader(Path file) throws IOException, IllegalArgumentException {
+        in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16));
+        try {
+            version = GameRecordWriter.readHeader(in);
+        } catch (EOFException e) {
+            in.close();
+            throw new IllegalArgumentException("Not a game record file", e);
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns whether there is another game.
+     *
+     * @throws UncheckedIOException if the file cannot be read, ends in the middle of a game or holds a corrupt one
+     */
+    @Override
+    public boolean hasNext() throws UncheckedIOException {
+        if (next == null) {
+            next = read();
+        }
+        return next != null;
+    }
+
+    /**
+     * Returns the next game.
+     *
+     * @throws NoSuchElementException if there are no more games
+     * @throws UncheckedIOException if the file cannot be read, ends in the middle of a game or holds a corrupt one
+     */
+    @Override
+    public GameResult next() throws NoSuchElementException, UncheckedIOException {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        GameResult result = next;
+        next = null;
+        return result;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * Reads one game.
+     *
+     * @return the game, or null at the end of the file
+     */
+    private GameResult read() throws UncheckedIOException {
+        try {
+            int size;
+            long black;
+            try {
+                // A clean end between two games
+                if (version == 1) {
+                    size = Board.BOARD_SIZE;
+                    black = in.readLong();
+                } else {
+                    size = in.readByte();
+                    black = 0;
+                }
+            } catch (EOFException e) {
+                return null;
+            }
+            games++;
+            if (size < Geometry.MIN_SIZE || size > Geometry.MAX_SIZE) {
+                throw corrupt("board size " + size);
+            }
+            if (version != 1) {
+                black = in.readLong();
+            }
+            long white = in.readLong();
+            Board start;
+            try {
+                start = new Board(Geometry.of(size), black, white);
+            } catch (IllegalArgumentException e) {
+                throw corrupt(e.getMessage());
+            }
+            Color firstPlayer = color(in.readUnsignedByte(), "first player");
+            int winnerByte = in.readUnsignedByte();
+            Color winner = winnerByte == GameRecordWriter.NO_WINNER ? null : color(winnerByte, "winner");
+            int endingByte = in.readUnsignedByte();
+            if (endingByte >= ENDINGS.length) {
+                throw corrupt("ending " + endingByte);
+            }
+            int length = in.readInt();
+            if (length < 0 || length > GameRecordWriter.MAX_PLIES) {
+                throw corrupt("length " + length);
+            }
+            int squares = size * size;
+            int[] moves = new int[length];
+            for (int ply = 0; ply < length; ply++) {
+                int from = in.readUnsignedByte();
+                int to = in.readUnsignedByte();
+                if (from == GameRecordWriter.PASS_BYTE && to == GameRecordWriter.PASS_BYTE) {
+                    moves[ply] = Move.PASS;
+                } else if (from < squares && to < squares) {
+                    moves[ply] = Move.encode(from, to);
+                } else {
+                    throw corrupt("move " + from + "-" + to + " at ply " + ply);
+                }
+            }
+            return new GameResult(start, firstPlayer, moves, winner, ENDINGS[endingByte]);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Color color(int ordinal, String field) throws IOException {
+        if (ordinal >= COLORS.length) {
+            throw corrupt(field + " " + ordinal);
+        }
+        return COLORS[ordinal];
+    }
+
+    /**
+     * Returns the error for a game that cannot have been written by GameRecordWriter.
+     */
+    private IOException corrupt(String detail) {
+        return new IOException("Corrupt game " + games + " in game record file: " + detail);
+    }
+}
@@ -0,0 +1,145 @@
+package main.java.sim;
+
+import main.java.Board;
+import main.java.Color;
+import main.java.Move;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends games to a binary game record file.
+ *
+ * A file starts with the magic number as an int, then the format version as
+ * a byte. Every game after that is stored as (big-endian, as DataOutputStream
+ * writes):
+ * <pre>
+ *   byte  board size (see Geometry)
+ *   long  BLACK pieces of the start position
+ *   long  WHITE pieces of the start position
+ *   byte  player to move first (Color ordinal)
+ *   byte  winner (Color ordinal, or NO_WINNER)
+ *   byte  ending (GameResult.Ending ordinal)
+ *   int   number of plies
+ *   per ply: byte from square, byte to square, or PASS_BYTE twice for a pass
+ * </pre>
+ * Games are written one at a time, so a file can grow to any number of
+ * games and be read back with GameRecordReader without loading it whole.
+ * Version 1 files, which held the size once in the header after the version
+ * and only games of the standard board, can still be read but not appended to.
+ */
+public class GameRecordWriter implements GameSink, Closeable {
+
+    public static final int MAGIC = 0x454E5447; // "ENTG"
+
+    public static final int VERSION = 2;
+
+    // The most plies a readable game can have, far more than any runner plays
+    public static final int MAX_PLIES = 1 << 20;
+
+    public static final int NO_WINNER = 0xFF;
+
+    public static final int PASS_BYTE = 0xFF;
+
+    private final DataOutputStream out;
+
+    /**
+     * Opens a file to append games to, creating it if it does not exist.
+     *
+     * @param file the game record file
+     * @throws IOException if the file cannot be opened
+     * @throws IllegalArgumentException if the file exists but is not a game record file of this version
+     */
+    public GameRecordWriter(Path file) throws IOException, IllegalArgumentException {
+        boolean fresh = !Files.exists(file) || Files.size(file) == 0;
+        if (!fresh) {
+            try (InputStream in = Files.newInputStream(file)) {
+                if (readHeader(new DataInputStream(in)) != VERSION) {
+                    throw new IllegalArgumentException("Game records of an older version cannot be appended to");
+                }
+            }
+        }
+        out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND), 1 << 16));
+        if (fresh) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+        }
+    }
+
+    /**
+     * Appends one game. Safe to call from several threads.
+     *
+     * @throws IllegalArgumentException if the game is longer than MAX_PLIES
+     * @throws UncheckedIOException if the file cannot be written
+     */
+    @Override
+    public synchronized void accept(GameResult result) throws IllegalArgumentException, UncheckedIOException {
+        if (result.getLength() > MAX_PLIES) {
+            throw new IllegalArgumentException("Games of more than " + MAX_PLIES + " plies cannot be recorded");
+        }
+        try {
+            Board start = result.getStart();
+            out.writeByte(start.getGeometry().getSize());
+            out.writeLong(start.getPieces(Color.BLACK));
+            out.writeLong(start.getPieces(Color.WHITE));
+            out.writeByte(result.getFirstPlayer().ordinal());
+            out.writeByte(result.getWinner() == null ? NO_WINNER : result.getWinner().ordinal());
+            out.writeByte(result.getEnding().ordinal());
+            out.writeInt(result.getLength());
+            for (int ply = 0; ply < result.getLength(); ply++) {
+                int move = result.getMove(ply);
+                if (move == Move.PASS) {
+                    out.writeByte(PASS_BYTE);
+                    out.writeByte(PASS_BYTE);
+                } else {
+                    out.writeByte(Move.from(move));
+                    out.writeByte(Move.to(move));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes out the buffered games.
+     */
+    public synchronized void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+
+    /**
+     * Reads and checks the header of a game record file.
+     *
+     * @return the format version of the file
+     * @throws IllegalArgumentException if it is not the header of a game record file this version can read
+     */
+    static int readHeader(DataInputStream in) throws IOException, IllegalArgumentException {
+        if (in.readInt() != MAGIC) {
+            throw new IllegalArgumentException("Not a game record file");
+        }
+        int version = in.readUnsignedByte();
+        if (version == 1) {
+            if (in.readUnsignedByte() != Board.BOARD_SIZE) {
+                throw new IllegalArgumentException("Game records are for another board size");
+            }
+        } else if (version != VERSION) {
+            throw new IllegalArgumentException("Game records of unknown version " + version);
+        }
+        return version;
+    }
+}
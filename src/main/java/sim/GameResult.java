@@ -0,0 +1,97 @@
+package main.java.sim;
+
+import main.java.Board;
+import main.java.Color;
+
+/**
+ * The record of one finished game: where it started, every ply, and how it ended.
+ */
+public class GameResult {
+
+    /**
+     * Why a game ended.
+     */
+    public enum Ending {
+        // checkWin named the player who had just taken their turn
+        WIN,
+        // Both players passed in a row, so the position can never change again
+        FROZEN,
+        // The game reached the ply limit of the runner
+        PLY_LIMIT
+    }
+
+    private final Board start;
+
+    private final Color firstPlayer;
+
+    private final int[] moves;
+
+    private final Color winner;
+
+    private final Ending ending;
+
+    /**
+     * Creates a game result.
+     *
+     * @param start the starting position; copied
+     * @param firstPlayer the player who moved first
+     * @param moves every ply in order, Move.PASS for passes; copied
+     * @param winner the winner, null if nobody won
+     * @param ending why the game ended
+     */
+    public GameResult(Board start, Color firstPlayer, int[] moves, Color winner, Ending ending) {
+        this.start = new Board(start);
+        this.firstPlayer = firstPlayer;
+        this.moves = moves.clone();
+        this.winner = winner;
+        this.ending = ending;
+    }
+
+    //region Getters
+    public Board getStart() {
+        return new Board(start);
+    }
+
+    public Color getFirstPlayer() {
+        return firstPlayer;
+    }
+
+    public int[] getMoves() {
+        return moves.clone();
+    }
+
+    public int getLength() {
+        return moves.length;
+    }
+
+    public int getMove(int ply) {
+        return moves[ply];
+    }
+
+    public Color getWinner() {
+        return winner;
+    }
+
+    public Ending getEnding() {
+        return ending;
+    }
+    //endregion
+
+    /**
+     * Rebuilds the position after a number of plies.
+     *
+     * @param ply the number of plies to play from the start, from 0 to getLength()
+     * @return a new board in that position
+     * @throws IllegalArgumentException if ply is out of range
+     */
+    public Board replay(int ply) throws IllegalArgumentException {
+        if (ply < 0 || ply > moves.length) {
+            throw new IllegalArgumentException("Ply out of range");
+        }
+        Board board = new Board(start);
+        for (int i = 0; i < ply; i++) {
+            board.makeMove(moves[i]);
+        }
+        return board;
+    }
+}
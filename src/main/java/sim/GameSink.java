@@ -0,0 +1,16 @@
+package main.java.sim;
+
+/**
+ * Receives finished games from a game runner.
+ *
+ * Runners call accept from several threads at once, so implementations must be thread-safe.
+ */
+public interface GameSink {
+
+    /**
+     * Takes one finished game.
+     *
+     * @param result the game
+     */
+    void accept(GameResult result);
+}
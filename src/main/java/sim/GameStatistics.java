@@ -0,0 +1,85 @@
+package main.java.sim;
+
+import main.java.Color;
+import main.java.Move;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the outcomes of the games it receives. Safe to use from many threads.
+ */
+public class GameStatistics implements GameSink {
+
+    private final LongAdder games = new LongAdder();
+
+    private final LongAdder whiteWins = new LongAdder();
+
+    private final LongAdder blackWins = new LongAdder();
+
+    private final LongAdder frozen = new LongAdder();
+
+    private final LongAdder plies = new LongAdder();
+
+    private final LongAdder passes = new LongAdder();
+
+    @Override
+    public void accept(GameResult result) {
+        games.increment();
+        if (result.getWinner() == Color.WHITE) {
+            whiteWins.increment();
+        } else if (result.getWinner() == Color.BLACK) {
+            blackWins.increment();
+        } else if (result.getEnding() == GameResult.Ending.FROZEN) {
+            frozen.increment();
+        }
+        plies.add(result.getLength());
+        int passCount = 0;
+        for (int ply = 0; ply < result.getLength(); ply++) {
+            if (result.getMove(ply) == Move.PASS) {
+                passCount++;
+            }
+        }
+        passes.add(passCount);
+    }
+
+    //region Getters
+    public long getGames() {
+        return games.sum();
+    }
+
+    public long getWins(Color player) {
+        return player == Color.WHITE ? whiteWins.sum() : blackWins.sum();
+    }
+
+    public long getDraws() {
+        return getGames() - whiteWins.sum() - blackWins.sum();
+    }
+
+    public long getFrozen() {
+        return frozen.sum();
+    }
+
+    public long getPlies() {
+        return plies.sum();
+    }
+
+    public long getPasses() {
+        return passes.sum();
+    }
+    //endregion
+
+    /**
+     * Returns the mean number of plies per game.
+     */
+    public double getAveragePlies() {
+        long count = getGames();
+        return count == 0 ? 0 : (double) getPlies() / count;
+    }
+
+    @Override
+    public String toString() {
+        return getGames() + " games: WHITE " + getWins(Color.WHITE) + ", BLACK " + getWins(Color.BLACK)
+                + ", draws " + getDraws() + " (" + getFrozen() + " frozen), "
+                + String.format("%.1f", getAveragePlies()) + " plies/game, " + getPasses() + " passes";
+    }
+}
@@ -0,0 +1,42 @@
+package main.java.sim;
+
+import main.java.Board;
+import main.java.Color;
+import main.java.engine.MonteCarloSearch;
+
+/**
+ * Plays the most visited move of a MonteCarloSearch.
+ */
+public class MonteCarloPlayer implements Player, AutoCloseable {
+
+    private final MonteCarloSearch search;
+
+    private final long playouts;
+
+    /**
+     * Creates a player that runs a fixed number of playouts per move.
+     *
+     * @param search the search to use, owned by this player from now on
+     * @param playouts the playouts per move
+     */
+    public MonteCarloPlayer(MonteCarloSearch search, long playouts) {
+        this.search = search;
+        this.playouts = playouts;
+    }
+
+    @Override
+    public int chooseMove(Board board, Color player, int[] moves, int count) {
+        if (count == 1) {
+            return moves[0];
+        }
+        return search.search(board, player, Long.MAX_VALUE, playouts).getBestMove();
+    }
+
+    /**
+     * Stops the search threads.
+     */
+    @Override
+    public void close() {
+        search.close();
+    }
+}
@@ -0,0 +1,222 @@
+package main.java.sim;
+
+import main.java.Board;
+import main.java.Color;
+import main.java.Move;
+import main.java.metrics.Metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Counts the positions reachable in a fixed number of plies (perft), to
+ * measure and check the move generator.
+ *
+ * Every ply is one turn: a move from Board.generateMoves, or a pass when it
+ * generates none. A line ends early when checkWin names the player who just
+ * took their turn, as in StartTwoPlayerGame; positions reached at exactly the
+ * requested depth count even if they end the game. Two passes in a row do
+ * not end a line, so the counts match plain turn-by-turn play.
+ */
+public final class Perft {
+
+    private Perft() {
+    }
+
+    /**
+     * Counts the leaf positions of the game tree below a position.
+     *
+     * @param board the position, left unchanged
+     * @param player the player to move
+     * @param depth the number of plies, at least 0
+     * @return the number of lines of exactly depth plies
+     */
+    public static long perft(Board board, Color player, int depth) {
+        long start = Metrics.ENABLED ? System.nanoTime() : 0;
+        Board copy = new Board(board);
+        long nodes = count(copy, player, depth, new int[Math.max(1, depth)][copy.getMaxMoves()]);
+        if (Metrics.ENABLED) {
+            Metrics.PERFTS.recordSince(start);
+        }
+        return nodes;
+    }
+
+    /**
+     * Counts the leaf positions below every move of a position.
+     *
+     * @param board the position, left unchanged
+     * @param player the player to move
+     * @param depth the number of plies, at least 1
+     * @return the count below each legal move (or the pass), in generation order
+     */
+    public static List<MoveCount> divide(Board board, Color player, int depth) {
+        long start = Metrics.ENABLED ? System.nanoTime() : 0;
+        Board copy = new Board(board);
+        int[][] moveStack = new int[depth][copy.getMaxMoves()];
+        int[] moves = rootMoves(copy, player);
+        List<MoveCount> counts = new ArrayList<>(moves.length);
+        for (int move : moves) {
+            copy.makeMove(move);
+            long nodes = depth == 1 || copy.checkWin() == player
+                    ? (depth == 1 ? 1 : 0)
+                    : count(copy, player.opposite(), depth - 1, moveStack);
+            copy.unmakeMove(move);
+            counts.add(new MoveCount(move, nodes));
+        }
+        if (Metrics.ENABLED) {
+            Metrics.PERFTS.recordSince(start);
+        }
+        return counts;
+    }
+
+    /**
+     * Counts the leaf positions below a position with one task per root move,
+     * spread over a fork/join pool.
+     *
+     * @param board the position, left unchanged
+     * @param player the player to move
+     * @param depth the number of plies, at least 1
+     * @param threads the parallelism of the pool
+     * @return the same count as perft
+     */
+    public static long parallelPerft(Board board, Color player, int depth, int threads) {
+        if (depth <= 1) {
+            return perft(board, player, depth);
+        }
+        long start = Metrics.ENABLED ? System.nanoTime() : 0;
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            List<RecursiveTask<Long>> tasks = new ArrayList<>();
+            for (int move : rootMoves(board, player)) {
+                Board child = new Board(board);
+                child.makeMove(move);
+                if (child.checkWin() != player) {
+                    tasks.add(new RecursiveTask<Long>() {
+                        @Override
+                        protected Long compute() {
+                            return count(child, player.opposite(), depth - 1,
+                                    new int[depth - 1][child.getMaxMoves()]);
+                        }
+                    });
+                }
+            }
+            long total = 0;
+            for (RecursiveTask<Long> task : tasks) {
+                pool.execute(task);
+            }
+            for (RecursiveTask<Long> task : tasks) {
+                total += task.join();
+            }
+            if (Metrics.ENABLED) {
+                Metrics.PERFTS.recordSince(start);
+            }
+            return total;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Runs perft from the standard setup, WHITE to move, or from a given position.
+     *
+     * @param args the depth (default 6), the number of threads (default one per core),
+     *             "divide" to print the count below every root move, and optionally the
+     *             BLACK and WHITE masks in hexadecimal and the player to move
+     */
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 6;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        boolean divide = args.length > 2 && args[2].equals("divide");
+        Board board = new Board();
+        Color player = Color.WHITE;
+        if (args.length > 5) {
+            board = new Board(Long.parseLong(args[3], 16), Long.parseLong(args[4], 16));
+            player = Color.valueOf(args[5]);
+        }
+
+        if (divide) {
+            long total = 0;
+            for (MoveCount count : divide(board, player, depth)) {
+                System.out.println(Move.toString(count.getMove(), board.getGeometry().getSize()) + ": " + count.getNodes());
+                total += count.getNodes();
+            }
+            System.out.println("total: " + total);
+            return;
+        }
+        for (int d = 1; d <= depth; d++) {
+            long start = System.nanoTime();
+            long nodes = parallelPerft(board, player, d, threads);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("perft(%d) = %d  %.3f s  %.0f nodes/s%n", d, nodes, seconds, nodes / seconds);
+        }
+    }
+
+    /**
+     * The count below one root move, as returned by divide.
+     */
+    public static class MoveCount {
+
+        private final int move;
+
+        private final long nodes;
+
+        public MoveCount(int move, long nodes) {
+            this.move = move;
+            this.nodes = nodes;
+        }
+
+        //region Getters
+        public int getMove() {
+            return move;
+        }
+
+        public long getNodes() {
+            return nodes;
+        }
+        //endregion
+    }
+
+    /**
+     * Returns the moves of a position, or just the pass if there are none.
+     */
+    private static int[] rootMoves(Board board, Color player) {
+        int[] moves = new int[board.getMaxMoves()];
+        int count = board.generateMoves(player, moves);
+        if (count == 0) {
+            return new int[] {Move.PASS};
+        }
+        int[] result = new int[count];
+        System.arraycopy(moves, 0, result, 0, count);
+        return result;
+    }
+
+    /**
+     * Counts recursively, using one move buffer per remaining ply.
+     */
+    private static long count(Board board, Color player, int depth, int[][] moveStack) {
+        if (depth == 0) {
+            return 1;
+        }
+        int[] moves = moveStack[depth - 1];
+        int count = board.generateMoves(player, moves);
+        if (count == 0) {
+            moves[0] = Move.PASS;
+            count = 1;
+        }
+        if (depth == 1) {
+            return count;
+        }
+        long nodes = 0;
+        Color opponent = player.opposite();
+        for (int i = 0; i < count; i++) {
+            board.makeMove(moves[i]);
+            if (board.checkWin() != player) {
+                nodes += count(board, opponent, depth - 1, moveStack);
+            }
+            board.unmakeMove(moves[i]);
+        }
+        return nodes;
+    }
+}
@@ -0,0 +1,24 @@
+package main.java.sim;
+
+import main.java.Board;
+import main.java.Color;
+
+/**
+ * Chooses moves in a game played without a human.
+ *
+ * A Player may keep state between moves and is used by one game at a time.
+ */
+public interface Player {
+
+    /**
+     * Chooses a move. Only called when there is at least one legal move; turns
+     * with none are passed without asking.
+     *
+     * @param board the current position, which must be left unchanged
+     * @param player the color to move
+     * @param moves the legal moves, as written by Board.generateMoves
+     * @param count the number of legal moves, at least 1
+     * @return one of the first count moves
+     */
+    int chooseMove(Board board, Color player, int[] moves, int count);
+}
@@ -0,0 +1,46 @@
+package main.java.sim;
+
+import main.java.Board;
+import main.java.Color;
+import main.java.engine.BackgroundSearch;
+import main.java.engine.SearchResult;
+
+/**
+ * Plays the best move found by a BackgroundSearch, and ponders on the
+ * opponent's time until it is asked for its next move.
+ *
+ * The player learns the opponent's reply from the board it is given next, so
+ * it works with Game unchanged. Close it when done to stop pondering.
+ */
+public class PonderingPlayer implements Player, AutoCloseable {
+
+    private final BackgroundSearch search;
+
+    private final long millis;
+
+    /**
+     * Creates a pondering player.
+     *
+     * @param search the search to use, owned by this player from now on
+     * @param millis the time budget per move in milliseconds, on top of the pondering
+     */
+    public PonderingPlayer(BackgroundSearch search, long millis) {
+        this.search = search;
+        this.millis = millis;
+    }
+
+    @Override
+    public int chooseMove(Board board, Color player, int[] moves, int count) {
+        SearchResult result = search.respond(board, player, millis);
+        search.ponder(board, player, result);
+        return result.getBestMove();
+    }
+
+    /**
+     * Stops pondering.
+     */
+    @Override
+    public void close() {
+        search.close();
+    }
+}
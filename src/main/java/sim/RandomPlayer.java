@@ -0,0 +1,35 @@
+package main.java.sim;
+
+import main.java.Board;
+import main.java.Color;
+
+import java.util.SplittableRandom;
+
+/**
+ * Plays a uniformly random legal move.
+ */
+public class RandomPlayer implements Player {
+
+    private final SplittableRandom random;
+
+    /**
+     * Creates a random player with a random seed.
+     */
+    public RandomPlayer() {
+        this.random = new SplittableRandom();
+    }
+
+    /**
+     * Creates a random player that always makes the same choices.
+     *
+     * @param seed the seed of the player's random numbers
+     */
+    public RandomPlayer(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    @Override
+    public int chooseMove(Board board, Color player, int[] moves, int count) {
+        return moves[random.nextInt(count)];
+    }
+}
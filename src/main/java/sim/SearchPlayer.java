@@ -0,0 +1,38 @@
+package main.java.sim;
+
+import main.java.Board;
+import main.java.Color;
+import main.java.engine.Search;
+
+/**
+ * Plays the best move found by an alpha-beta Search.
+ */
+public class SearchPlayer implements Player {
+
+    private final Search search;
+
+    private final int depth;
+
+    private final long millis;
+
+    /**
+     * Creates a player that searches every move to the given limits.
+     *
+     * @param search the search to use, owned by this player from now on
+     * @param depth the deepest iteration per move
+     * @param millis the time budget per move in milliseconds, Long.MAX_VALUE for none
+     */
+    public SearchPlayer(Search search, int depth, long millis) {
+        this.search = search;
+        this.depth = depth;
+        this.millis = millis;
+    }
+
+    @Override
+    public int chooseMove(Board board, Color player, int[] moves, int count) {
+        if (count == 1) {
+            return moves[0];
+        }
+        return search.search(board, player, depth, millis).getBestMove();
+    }
+}
@@ -0,0 +1,165 @@
+package main.java.sim;
+
+import main.java.Board;
+import main.java.Color;
+import main.java.metrics.Metrics;
+import main.java.metrics.MetricsReporter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Plays many games between engines at once, on a fixed pool of threads.
+ *
+ * Each thread makes its own pair of Players from the given factories and plays
+ * games one after another with them (see Game for the rules). Finished games
+ * are streamed to a GameSink as soon as they end. A sampled fraction of the
+ * games can be played with Board.validate after every ply, to catch board
+ * corruption in long runs where the cost of checking every game is too high.
+ */
+public class SelfPlayRunner {
+
+    private final int threads;
+
+    private final Supplier<? extends Player> whitePlayers;
+
+    private final Supplier<? extends Player> blackPlayers;
+
+    private final int maxPlies;
+
+    private final double validationRate;
+
+    /**
+     * Creates a runner.
+     *
+     * @param threads the number of games played at the same time, at least 1
+     * @param whitePlayers makes the WHITE player of each thread; called once per thread
+     * @param blackPlayers makes the BLACK player of each thread; called once per thread
+     * @param maxPlies the longest game to play, passes included
+     * @throws IllegalArgumentException if threads is less than 1
+     */
+    public SelfPlayRunner(int threads, Supplier<? extends Player> whitePlayers,
+                          Supplier<? extends Player> blackPlayers, int maxPlies) throws IllegalArgumentException {
+        this(threads, whitePlayers, blackPlayers, maxPlies, 0);
+    }
+
+    /**
+     * Creates a runner that validates the board in a fraction of its games.
+     *
+     * @param threads the number of games played at the same time, at least 1
+     * @param whitePlayers makes the WHITE player of each thread; called once per thread
+     * @param blackPlayers makes the BLACK player of each thread; called once per thread
+     * @param maxPlies the longest game to play, passes included
+     * @param validationRate the fraction of games, from 0 to 1, checked after every ply
+     * @throws IllegalArgumentException if threads is less than 1 or validationRate is not in [0, 1]
+     */
+    public SelfPlayRunner(int threads, Supplier<? extends Player> whitePlayers,
+                          Supplier<? extends Player> blackPlayers, int maxPlies, double validationRate)
+            throws IllegalArgumentException {
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one thread is needed");
+        }
+        if (!(validationRate >= 0 && validationRate <= 1)) {
+            throw new IllegalArgumentException("The validation rate must be between 0 and 1");
+        }
+        this.threads = threads;
+        this.whitePlayers = whitePlayers;
+        this.blackPlayers = blackPlayers;
+        this.maxPlies = maxPlies;
+        this.validationRate = validationRate;
+    }
+
+    /**
+     * Plays games from the standard setup, WHITE first, until the given number is done.
+     *
+     * @param games the number of games to play
+     * @param sink where every finished game is sent, from the runner's threads
+     * @return the statistics of the games played
+     * @throws IllegalStateException if a game thread failed, a validated board was
+     *                               corrupted, or the wait was interrupted
+     */
+    public GameStatistics run(long games, GameSink sink) throws IllegalStateException {
+        GameStatistics statistics = new GameStatistics();
+        AtomicLong nextGame = new AtomicLong();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>(threads);
+            for (int i = 0; i < threads; i++) {
+                long seed = i;
+                futures.add(pool.submit(() -> {
+                    Player white = whitePlayers.get();
+                    Player black = blackPlayers.get();
+                    SplittableRandom sampler = new SplittableRandom(seed);
+                    Board start = new Board();
+                    while (nextGame.getAndIncrement() < games) {
+                        boolean validate = validationRate > 0 && sampler.nextDouble() < validationRate;
+                        GameResult result = Game.play(start, Color.WHITE, white, black, maxPlies, validate);
+                        statistics.accept(result);
+                        sink.accept(result);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the games", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("A game thread failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return statistics;
+    }
+
+    /**
+     * Plays random-vs-random games and prints the statistics.
+     *
+     * @param args the number of games (default 100000), the number of threads
+     *             (default one per core), "-" to also print every game or a file
+     *             to append every game to as a game record, and the fraction of
+     *             games to validate (default 0); with metrics on, snapshots are
+     *             printed to standard error while the games run (see MetricsReporter)
+     */
+    public static void main(String[] args) throws IOException {
+        long games = args.length > 0 ? Long.parseLong(args[0]) : 100_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        String output = args.length > 2 ? args[2] : null;
+        double validationRate = args.length > 3 ? Double.parseDouble(args[3]) : 0;
+
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        GameRecordWriter records = output != null && !output.equals("-")
+                ? new GameRecordWriter(Paths.get(output)) : null;
+        GameSink sink = records != null ? records : "-".equals(output) ? new TextGameSink(out) : result -> { };
+        SelfPlayRunner runner = new SelfPlayRunner(threads, RandomPlayer::new, RandomPlayer::new,
+                Game.DEFAULT_MAX_PLIES, validationRate);
+        MetricsReporter reporter = Metrics.ENABLED ? MetricsReporter.fromSystemProperties(System.err) : null;
+        long start = System.nanoTime();
+        GameStatistics statistics = runner.run(games, sink);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        out.flush();
+        if (reporter != null) {
+            reporter.report();
+            reporter.close();
+        }
+        if (records != null) {
+            records.close();
+        }
+        System.out.println(statistics);
+        System.out.printf("%.1f s, %.0f games/s, %.0f games/h%n", seconds, games / seconds, games / seconds * 3600);
+    }
+}
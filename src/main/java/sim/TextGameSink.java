@@ -0,0 +1,54 @@
+package main.java.sim;
+
+import main.java.Move;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+/**
+ * Writes one line of text per game: the winner (or "draw"), the ending, the
+ * number of plies, and then every move as "from-to" square indices, or "pass".
+ */
+public class TextGameSink implements GameSink {
+
+    private final Writer out;
+
+    /**
+     * Creates a sink that writes to the given writer, which it does not close.
+     *
+     * @param out where to write the games
+     */
+    public TextGameSink(Writer out) {
+        this.out = out;
+    }
+
+    /**
+     * Writes one game.
+     *
+     * @throws UncheckedIOException if the writer fails
+     */
+    @Override
+    public void accept(GameResult result) throws UncheckedIOException {
+        StringBuilder line = new StringBuilder(16 + 6 * result.getLength());
+        line.append(result.getWinner() == null ? "draw" : result.getWinner().toString())
+                .append(' ').append(result.getEnding())
+                .append(' ').append(result.getLength());
+        for (int ply = 0; ply < result.getLength(); ply++) {
+            int move = result.getMove(ply);
+            if (move == Move.PASS) {
+                line.append(" pass");
+            } else {
+                line.append(' ').append(Move.from(move)).append('-').append(Move.to(move));
+            }
+        }
+        line.append('\n');
+        try {
+            synchronized (out) {
+                out.write(line.toString());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
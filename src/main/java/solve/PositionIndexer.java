@@ -0,0 +1,236 @@
+package main.java.solve;
+
+import main.java.Board;
+import main.java.Color;
+
+/**
+ * Numbers every position with a given number of BLACK and WHITE pieces, and
+ * either player to move, densely from 0.
+ *
+ * The BLACK squares are ranked among all squares and the WHITE squares among
+ * the squares BLACK leaves empty, both in the combinatorial number system
+ * (colexicographic order). The index is
+ * (blackRank * whiteCombinations + whiteRank) * 2 + player.ordinal(), so
+ * positions are numbered in the order a Cursor visits them.
+ */
+public class PositionIndexer {
+
+    private static final int SQUARES = Board.NUM_SQUARES;
+
+    // BINOMIAL[n][k] is n choose k
+    private static final long[][] BINOMIAL = new long[SQUARES + 1][SQUARES + 1];
+
+    static {
+        for (int n = 0; n <= SQUARES; n++) {
+            BINOMIAL[n][0] = 1;
+            for (int k = 1; k <= n; k++) {
+                BINOMIAL[n][k] = BINOMIAL[n - 1][k - 1] + (k <= n - 1 ? BINOMIAL[n - 1][k] : 0);
+            }
+        }
+    }
+
+    private final int blackPieces;
+
+    private final int whitePieces;
+
+    private final long whiteCombinations;
+
+    private final long size;
+
+    /**
+     * Creates the numbering of one material signature.
+     *
+     * @param blackPieces the number of BLACK pieces, at least 1
+     * @param whitePieces the number of WHITE pieces, at least 1
+     * @throws IllegalArgumentException if a count is less than 1 or the pieces do not fit on the board
+     */
+    public PositionIndexer(int blackPieces, int whitePieces) throws IllegalArgumentException {
+        if (blackPieces < 1 || whitePieces < 1 || blackPieces + whitePieces > SQUARES) {
+            throw new IllegalArgumentException("Piece counts must be at least 1 and fit on the board");
+        }
+        this.blackPieces = blackPieces;
+        this.whitePieces = whitePieces;
+        this.whiteCombinations = BINOMIAL[SQUARES - blackPieces][whitePieces];
+        this.size = BINOMIAL[SQUARES][blackPieces] * whiteCombinations * 2;
+    }
+
+    //region Getters
+    public int getBlackPieces() {
+        return blackPieces;
+    }
+
+    public int getWhitePieces() {
+        return whitePieces;
+    }
+
+    /**
+     * Returns the number of positions, which is one more than the largest index.
+     */
+    public long size() {
+        return size;
+    }
+    //endregion
+
+    /**
+     * Returns whether a position has the material of this numbering.
+     */
+    public boolean covers(long black, long white) {
+        return Long.bitCount(black) == blackPieces && Long.bitCount(white) == whitePieces;
+    }
+
+    /**
+     * Returns the index of a position.
+     *
+     * @param black the mask of the BLACK pieces
+     * @param white the mask of the WHITE pieces
+     * @param player the player to move
+     * @return the index, from 0 to size() - 1
+     * @spec.requires covers(black, white) and the masks are disjoint
+     */
+    public long index(long black, long white, Color player) {
+        long blackRank = rank(black);
+        long whiteRank = 0;
+        int i = 1;
+        for (long rest = white; rest != 0; rest &= rest - 1, i++) {
+            int square = Long.numberOfTrailingZeros(rest);
+            // The square's position among the squares BLACK does not hold
+            int compressed = square - Long.bitCount(black & ((1L << square) - 1));
+            whiteRank += BINOMIAL[compressed][i];
+        }
+        return (blackRank * whiteCombinations + whiteRank) * 2 + player.ordinal();
+    }
+
+    /**
+     * Returns a cursor on the position with a given index.
+     *
+     * @param index the index, from 0 to size() - 1
+     * @throws IllegalArgumentException if the index is out of range
+     */
+    public Cursor cursor(long index) throws IllegalArgumentException {
+        if (index < 0 || index >= size) {
+            throw new IllegalArgumentException("Index out of range");
+        }
+        return new Cursor(index);
+    }
+
+    /**
+     * Returns the colexicographic rank of a set of squares.
+     */
+    private static long rank(long squares) {
+        long rank = 0;
+        int i = 1;
+        for (long rest = squares; rest != 0; rest &= rest - 1, i++) {
+            rank += BINOMIAL[Long.numberOfTrailingZeros(rest)][i];
+        }
+        return rank;
+    }
+
+    /**
+     * Returns the set of k squares out of n with a given colexicographic rank.
+     */
+    private static long unrank(long rank, int k, int n) {
+        long squares = 0;
+        for (int i = k; i >= 1; i--) {
+            while (BINOMIAL[n][i] > rank) {
+                n--;
+            }
+            squares |= 1L << n;
+            rank -= BINOMIAL[n][i];
+        }
+        return squares;
+    }
+
+    /**
+     * Returns the next larger set with the same number of squares (Gosper's hack),
+     * which is the next one in colexicographic order.
+     */
+    private static long nextCombination(long squares) {
+        long lowest = squares & -squares;
+        long ripple = squares + lowest;
+        return (((ripple ^ squares) >>> 2) / lowest) | ripple;
+    }
+
+    /**
+     * Walks through the positions in index order without ranking each one.
+     */
+    public class Cursor {
+
+        private long index;
+
+        private long black;
+
+        // The WHITE squares as a subset of the squares BLACK leaves empty
+        private long compressedWhite;
+
+        private long white;
+
+        private Color player;
+
+        private final int[] emptySquares = new int[SQUARES];
+
+        private Cursor(long index) {
+            this.index = index;
+            player = Color.values()[(int) (index & 1)];
+            long combination = index >>> 1;
+            black = unrank(combination / whiteCombinations, blackPieces, SQUARES);
+            compressedWhite = unrank(combination % whiteCombinations, whitePieces, SQUARES - blackPieces);
+            findEmptySquares();
+            expandWhite();
+        }
+
+        //region Getters
+        public long getIndex() {
+            return index;
+        }
+
+        public long getBlack() {
+            return black;
+        }
+
+        public long getWhite() {
+            return white;
+        }
+
+        public Color getPlayer() {
+            return player;
+        }
+        //endregion
+
+        /**
+         * Moves to the position with the next index.
+         *
+         * @spec.requires getIndex() < size() - 1
+         */
+        public void next() {
+            index++;
+            if (player == Color.BLACK) {
+                player = Color.WHITE;
+                return;
+            }
+            player = Color.BLACK;
+            compressedWhite = nextCombination(compressedWhite);
+            if (compressedWhite >= 1L << (SQUARES - blackPieces)) {
+                compressedWhite = (1L << whitePieces) - 1;
+                black = nextCombination(black);
+                findEmptySquares();
+            }
+            expandWhite();
+        }
+
+        private void findEmptySquares() {
+            int count = 0;
+            for (int square = 0; square < SQUARES; square++) {
+                if ((black & (1L << square)) == 0) {
+                    emptySquares[count++] = square;
+                }
+            }
+        }
+
+        private void expandWhite() {
+            white = 0;
+            for (long rest = compressedWhite; rest != 0; rest &= rest - 1) {
+                white |= 1L << emptySquares[Long.numberOfTrailingZeros(rest)];
+            }
+        }
+    }
+}
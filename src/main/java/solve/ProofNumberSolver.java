@@ -0,0 +1,762 @@
+package main.java.solve;
+
+import main.java.Board;
+import main.java.Color;
+import main.java.Geometry;
+import main.java.Move;
+import main.java.Symmetry;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Solves positions of the standard board exactly by depth-first proof-number
+ * search (df-pn), for positions too large for a Tablebase, such as the start.
+ *
+ * The turn rules are the ones of TablebaseBuilder. A position is a WIN if a
+ * win of the player to move can be proved, a LOSS if a win of the opponent
+ * can, and a DRAW otherwise: a game that can go on forever is won by nobody.
+ * Each proof is a df-pn search for one target player over the AND/OR tree of
+ * the position, with the nodes stored in canonical form in a ProofTable.
+ *
+ * Repetitions. A move back to a position on the current path counts as a
+ * failure for the target: if the target can force a win, it can do so
+ * without repeating a position. Such a disproof depends on the path it was
+ * found on, so it is only stored in the table once the search is back at the
+ * repeated position; until then it is kept by the node that found it. Proofs
+ * never depend on the path.
+ *
+ * Threads. Every thread runs its own df-pn from the root over the shared table
+ * and the first to settle the root ends the proof. Threads pick different
+ * children among ties and allow their children different thresholds (the
+ * 1 + epsilon trick with a different epsilon each), so they spread over the
+ * tree and feed each other through the table.
+ *
+ * Checkpoints. With a checkpoint file set, the table is written to it at a
+ * fixed period while solving and when a solve ends, and ProofTable.read turns
+ * it back into a table to continue from.
+ */
+public class ProofNumberSolver implements AutoCloseable {
+
+    // Value of solve when it was stopped before finding the value
+    public static final int UNKNOWN = -1;
+
+    // Solver recursion follows the proof tree, which can be thousands of plies deep
+    private static final long STACK_BYTES = 1L << 28;
+
+    private static final int STOP_CHECK_INTERVAL = 1 << 12;
+
+    // Loop depth of a value that does not depend on the path
+    private static final int NO_LOOP = Integer.MAX_VALUE;
+
+    private static final Geometry STANDARD = Geometry.of(Board.BOARD_SIZE);
+
+    private final ProofTable table;
+
+    private final int threads;
+
+    private final ExecutorService pool;
+
+    private final LongAdder nodes = new LongAdder();
+
+    private ScheduledExecutorService checkpoints;
+
+    private Path checkpointFile;
+
+    private volatile IOException checkpointFailure;
+
+    private volatile boolean stopRequested;
+
+    // Set when a thread has settled the root of the current proof
+    private volatile boolean rootSettled;
+
+    private volatile long deadline;
+
+    /**
+     * Creates a solver.
+     *
+     * @param table the table to solve with, new or read from a checkpoint
+     * @param threads the number of solver threads, at least 1
+     * @throws IllegalArgumentException if threads is less than 1
+     */
+    public ProofNumberSolver(ProofTable table, int threads) throws IllegalArgumentException {
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one solver thread is needed");
+        }
+        this.table = table;
+        this.threads = threads;
+        AtomicInteger threadNumber = new AtomicInteger();
+        pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(null, runnable, "dfpn-" + threadNumber.getAndIncrement(), STACK_BYTES);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Writes the table to a checkpoint file at a fixed period while solving,
+     * and when each solve ends.
+     *
+     * @param file the checkpoint file, or null to stop checkpointing
+     * @param periodMillis the time between checkpoints, at least 1
+     * @throws IllegalArgumentException if periodMillis is less than 1
+     */
+    public synchronized void setCheckpoint(Path file, long periodMillis) throws IllegalArgumentException {
+        if (periodMillis < 1) {
+            throw new IllegalArgumentException("The checkpoint period must be positive");
+        }
+        if (checkpoints != null) {
+            checkpoints.shutdownNow();
+            checkpoints = null;
+        }
+        checkpointFile = file;
+        if (file != null) {
+            checkpoints = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "dfpn-checkpoint");
+                thread.setDaemon(true);
+                return thread;
+            });
+            checkpoints.scheduleAtFixedRate(() -> {
+                try {
+                    checkpoint();
+                } catch (UncheckedIOException e) {
+                    checkpointFailure = e.getCause();
+                }
+            }, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Writes the table to the checkpoint file now, if one is set.
+     *
+     * @throws UncheckedIOException if the file cannot be written
+     */
+    public synchronized void checkpoint() throws UncheckedIOException {
+        if (checkpointFile != null) {
+            try {
+                table.write(checkpointFile);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot write checkpoint " + checkpointFile, e);
+            }
+        }
+    }
+
+    /**
+     * Solves a position.
+     *
+     * @param board the position, on the standard board
+     * @param player the player to move
+     * @param millis the time budget in milliseconds, Long.MAX_VALUE for none
+     * @return Tablebase.WIN, LOSS or DRAW for player, or UNKNOWN if the solve
+     *         ran out of time or was stopped
+     * @throws IllegalArgumentException if the board is not the standard size
+     * @throws IllegalStateException if a solver thread failed or the wait was interrupted
+     * @throws UncheckedIOException if a checkpoint could not be written
+     */
+    public int solve(Board board, Color player, long millis)
+            throws IllegalArgumentException, IllegalStateException, UncheckedIOException {
+        if (board.getGeometry() != STANDARD) {
+            throw new IllegalArgumentException("Only positions of the standard board can be solved");
+        }
+        stopRequested = false;
+        deadline = millis == Long.MAX_VALUE ? Long.MAX_VALUE : System.nanoTime() + millis * 1_000_000;
+        long black = board.getPieces(Color.BLACK);
+        long white = board.getPieces(Color.WHITE);
+        int value;
+        Boolean won = prove(black, white, player, player);
+        if (won == null) {
+            value = UNKNOWN;
+        } else if (won) {
+            value = Tablebase.WIN;
+        } else {
+            Boolean lost = prove(black, white, player, player.opposite());
+            value = lost == null ? UNKNOWN : lost ? Tablebase.LOSS : Tablebase.DRAW;
+        }
+        checkpoint();
+        IOException failure = checkpointFailure;
+        if (failure != null) {
+            checkpointFailure = null;
+            throw new UncheckedIOException("Cannot write checkpoint " + checkpointFile, failure);
+        }
+        return value;
+    }
+
+    /**
+     * Returns the move that wins a position solve found to be a WIN.
+     *
+     * @param board the position
+     * @param player the player to move
+     * @return the move in the frame of board, or Move.PASS if the table has no
+     *         proof for the position or it is won by passing
+     */
+    public int bestMove(Board board, Color player) {
+        long black = board.getPieces(Color.BLACK);
+        long white = board.getPieces(Color.WHITE);
+        int transform = Symmetry.canonicalTransform(black, white);
+        long key = ProofTable.key(Symmetry.pack(Symmetry.transform(transform, black),
+                Symmetry.transform(transform, white), player), player);
+        long data = table.probe(key);
+        if (data == 0 || ProofTable.proofNumber(data) != 0) {
+            return Move.PASS;
+        }
+        return Symmetry.transformMove(Symmetry.inverse(transform), table.probeMove(key));
+    }
+
+    /**
+     * Asks a running solve to stop; it then returns UNKNOWN. Safe to call from any thread.
+     */
+    public void stop() {
+        stopRequested = true;
+    }
+
+    //region Getters
+    public ProofTable getTable() {
+        return table;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public long getNodes() {
+        return nodes.sum();
+    }
+    //endregion
+
+    /**
+     * Stops the solver threads and checkpointing.
+     */
+    @Override
+    public synchronized void close() {
+        stopRequested = true;
+        pool.shutdownNow();
+        if (checkpoints != null) {
+            checkpoints.shutdownNow();
+        }
+    }
+
+    /**
+     * Solves a position and exports what the table knows.
+     *
+     * @param args the checkpoint file, resumed from if it exists; the table
+     *             size in megabytes for a new table; the number of threads; the
+     *             checkpoint period in seconds; the file to export the solved
+     *             positions to (see SolvedPositions); and optionally the player
+     *             to move and the 25 squares of the position in row order, as
+     *             B, W or '.' (default the start with WHITE to move)
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 5 && args.length != 7) {
+            throw new IllegalArgumentException(
+                    "Usage: <checkpoint> <table MB> <threads> <checkpoint seconds> <export> [<player> <squares>]");
+        }
+        Path checkpointFile = Paths.get(args[0]);
+        ProofTable table = Files.exists(checkpointFile) ? ProofTable.read(checkpointFile)
+                : new ProofTable(Integer.parseInt(args[1]));
+        Board board = new Board();
+        Color player = Color.WHITE;
+        if (args.length == 7) {
+            player = Color.valueOf(args[5]);
+            board = parseSquares(args[6]);
+        }
+
+        try (ProofNumberSolver solver = new ProofNumberSolver(table, Integer.parseInt(args[2]))) {
+            solver.setCheckpoint(checkpointFile, Long.parseLong(args[3]) * 1000);
+            long start = System.nanoTime();
+            int value = solver.solve(board, player, Long.MAX_VALUE);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            String result = value == Tablebase.WIN
+                    ? "WIN, " + Move.toString(solver.bestMove(board, player), Board.BOARD_SIZE)
+                    : value == Tablebase.LOSS ? "LOSS" : value == Tablebase.DRAW ? "DRAW" : "UNKNOWN";
+            System.out.printf("%s to move: %s, %d nodes in %.1f s (%.0f nodes/s), %d solved entries%n",
+                    player, result, solver.getNodes(), seconds, solver.getNodes() / seconds, table.countSolved());
+            System.out.println(table.export(Paths.get(args[4])) + " positions exported to " + args[4]);
+        }
+    }
+
+    /**
+     * Parses a position given as the 25 squares of the standard board in row order.
+     *
+     * @throws IllegalArgumentException if the text is not 25 characters of B, W and '.'
+     */
+    static Board parseSquares(String squares) throws IllegalArgumentException {
+        if (squares.length() != Board.NUM_SQUARES) {
+            throw new IllegalArgumentException("Expected " + Board.NUM_SQUARES + " squares");
+        }
+        long black = 0;
+        long white = 0;
+        for (int square = 0; square < squares.length(); square++) {
+            char c = squares.charAt(square);
+            if (c == 'B') {
+                black |= 1L << square;
+            } else if (c == 'W') {
+                white |= 1L << square;
+            } else if (c != '.') {
+                throw new IllegalArgumentException("Unknown square " + c);
+            }
+        }
+        return new Board(STANDARD, black, white);
+    }
+
+    /**
+     * Proves or disproves that a player can force a win.
+     *
+     * @return true if target wins, false if it cannot, null if the proof was stopped
+     * @throws IllegalStateException if a solver thread failed or the wait was interrupted
+     */
+    private Boolean prove(long black, long white, Color player, Color target) throws IllegalStateException {
+        rootSettled = false;
+        int maxMoves = STANDARD.maxMoves(Math.max(Long.bitCount(black), Long.bitCount(white)));
+        List<Future<Boolean>> futures = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            Worker worker = new Worker(i, target, maxMoves);
+            futures.add(pool.submit(() -> worker.run(black, white, player)));
+        }
+        Boolean result = null;
+        try {
+            for (Future<Boolean> future : futures) {
+                Boolean settled = future.get();
+                if (result == null) {
+                    result = settled;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            rootSettled = true;
+            throw new IllegalStateException("Interrupted while solving", e);
+        } catch (ExecutionException e) {
+            rootSettled = true;
+            throw new IllegalStateException("A solver thread failed", e.getCause());
+        }
+        return result;
+    }
+
+    /**
+     * One thread's df-pn, with its own path and move buffers.
+     */
+    private final class Worker {
+
+        private final int number;
+
+        private final Color target;
+
+        private final int maxMoves;
+
+        private final double epsilon;
+
+        private final SplittableRandom random;
+
+        private final List<Frame> frames = new ArrayList<>();
+
+        private final PathIndex path = new PathIndex();
+
+        private long localNodes;
+
+        private boolean aborted;
+
+        // The numbers and loop depth of the last node mid returned from
+        private int resultPn;
+        private int resultDn;
+        private int resultLoop;
+
+        Worker(int number, Color target, int maxMoves) {
+            this.number = number;
+            this.target = target;
+            this.maxMoves = maxMoves;
+            this.epsilon = 0.25 * (1 + number);
+            this.random = new SplittableRandom(number);
+        }
+
+        /**
+         * Searches from the root until it is settled or the proof is stopped.
+         *
+         * @return whether the target wins, or null if stopped first
+         */
+        Boolean run(long black, long white, Color player) {
+            try {
+                frame(0).set(black, white, player);
+                mid(0, ProofTable.INFINITY, ProofTable.INFINITY);
+            } finally {
+                nodes.add(localNodes);
+            }
+            if (aborted) {
+                return null;
+            }
+            rootSettled = true;
+            return resultPn == 0;
+        }
+
+        /**
+         * Searches the node of a frame until its proof number reaches thPn or
+         * its disproof number reaches thDn, and leaves its numbers in the result fields.
+         */
+        private void mid(int depth, int thPn, int thDn) {
+            Frame frame = frames.get(depth);
+            long startNodes = localNodes++;
+            if ((localNodes & (STOP_CHECK_INTERVAL - 1)) == 0
+                    && (rootSettled || stopRequested || System.nanoTime() > deadline)) {
+                aborted = true;
+            }
+            if (aborted) {
+                return;
+            }
+            path.put(frame.key, depth);
+            try {
+                search(frame, depth, thPn, thDn, startNodes);
+            } finally {
+                path.remove(frame.key);
+            }
+        }
+
+        /**
+         * The body of mid, run while the node of the frame is on the path.
+         */
+        private void search(Frame frame, int depth, int thPn, int thDn, long startNodes) {
+            if (frame.expand()) {
+                table.store(frame.key, resultPn, resultDn, frame.terminalMove, 1);
+                resultLoop = NO_LOOP;
+                return;
+            }
+
+            // At an OR node the target picks the move, at an AND node the opponent does
+            boolean orNode = frame.player == target;
+            int pn;
+            int dn;
+            int loop;
+            while (true) {
+                long sumPn = 0;
+                long sumDn = 0;
+                int minPn = ProofTable.INFINITY;
+                int minDn = ProofTable.INFINITY;
+                int maxPn = 0;
+                int maxDn = 0;
+                int orLoop = NO_LOOP;
+                int andLoop = -1;
+                int best = -1;
+                int bestRank = Integer.MAX_VALUE;
+                int second = ProofTable.INFINITY;
+                int ties = 0;
+                for (int i = 0; i < frame.count; i++) {
+                    frame.refresh(i);
+                    int childPn = frame.childPn[i];
+                    int childDn = frame.childDn[i];
+                    sumPn += childPn;
+                    sumDn += childDn;
+                    minPn = Math.min(minPn, childPn);
+                    minDn = Math.min(minDn, childDn);
+                    maxPn = Math.max(maxPn, childPn);
+                    maxDn = Math.max(maxDn, childDn);
+                    if (childDn == 0) {
+                        orLoop = Math.min(orLoop, frame.childLoop[i]);
+                        andLoop = Math.max(andLoop, frame.childLoop[i]);
+                    }
+                    int rank = orNode ? childPn : childDn;
+                    if (rank < bestRank) {
+                        second = Math.min(second, bestRank);
+                        bestRank = rank;
+                        best = i;
+                        ties = 1;
+                    } else {
+                        if (rank == bestRank && number > 0 && random.nextInt(++ties) == 0) {
+                            best = i;
+                        }
+                        second = Math.min(second, rank);
+                    }
+                }
+                if (orNode) {
+                    pn = minPn;
+                    dn = saturate(sumDn, maxDn);
+                    // Disproved only if every child is, so it depends on the highest repetition of any
+                    loop = pn == ProofTable.INFINITY ? orLoop : NO_LOOP;
+                } else {
+                    pn = saturate(sumPn, maxPn);
+                    dn = minDn;
+                    // Disproved by any disproved child, so by the one depending least on the path
+                    loop = dn == 0 ? andLoop : NO_LOOP;
+                }
+                if (pn >= thPn || dn >= thDn) {
+                    break;
+                }
+
+                // Search the most promising child until it is no longer clearly the best
+                int childThPn;
+                int childThDn;
+                long nextBest = Math.max(bestRank + 1L, (long) Math.ceil(second * (1 + epsilon)));
+                if (orNode) {
+                    childThPn = (int) Math.min(thPn, nextBest);
+                    childThDn = (int) Math.min(ProofTable.INFINITY, (long) thDn - dn + frame.childDn[best]);
+                } else {
+                    childThPn = (int) Math.min(ProofTable.INFINITY, (long) thPn - pn + frame.childPn[best]);
+                    childThDn = (int) Math.min(thDn, nextBest);
+                }
+                frame(depth + 1).setChild(frame, best);
+                mid(depth + 1, childThPn, childThDn);
+                if (aborted) {
+                    return;
+                }
+                frame.childPn[best] = resultPn;
+                frame.childDn[best] = resultDn;
+                frame.childLoop[best] = resultLoop;
+                // A disproof that depends on the path above the child was not stored, so keep it here
+                frame.local[best] = resultDn == 0 && resultLoop <= depth;
+            }
+            if (dn != 0 || loop >= depth) {
+                table.store(frame.key, pn, dn, orNode && pn == 0 ? frame.moves[winningChild(frame)] : Move.PASS,
+                        localNodes - startNodes);
+            }
+            resultPn = pn;
+            resultDn = dn;
+            resultLoop = loop;
+        }
+
+        /**
+         * Returns the first proved child of a proved OR node.
+         */
+        private int winningChild(Frame frame) {
+            for (int i = 0; i < frame.count; i++) {
+                if (frame.childPn[i] == 0) {
+                    return i;
+                }
+            }
+            throw new IllegalStateException("Proved node without a proved child");
+        }
+
+        /**
+         * Returns the frame of a depth, made on first use.
+         */
+        private Frame frame(int depth) {
+            while (frames.size() <= depth) {
+                frames.add(new Frame(maxMoves));
+            }
+            return frames.get(depth);
+        }
+
+        /**
+         * A node being searched at one depth: its position in canonical form and its children.
+         */
+        private final class Frame {
+
+            private long black;
+
+            private long white;
+
+            private Color player;
+
+            private long key;
+
+            private final int[] moves;
+
+            private final long[] childKeys;
+
+            private final int[] childPn;
+
+            private final int[] childDn;
+
+            private final int[] childLoop;
+
+            // Whether a child's numbers are kept here rather than read from the table
+            private final boolean[] local;
+
+            private int count;
+
+            private int terminalMove;
+
+            Frame(int maxMoves) {
+                moves = new int[Math.max(1, maxMoves)];
+                childKeys = new long[moves.length];
+                childPn = new int[moves.length];
+                childDn = new int[moves.length];
+                childLoop = new int[moves.length];
+                local = new boolean[moves.length];
+            }
+
+            void set(long black, long white, Color player) {
+                long canonical = Symmetry.canonical(black, white, player);
+                this.black = Symmetry.packedBlack(canonical);
+                this.white = Symmetry.packedWhite(canonical);
+                this.player = player;
+                this.key = ProofTable.key(canonical, target);
+            }
+
+            /**
+             * Sets this frame to a child of another frame.
+             */
+            void setChild(Frame parent, int child) {
+                int move = parent.moves[child];
+                long fromTo = move == Move.PASS ? 0 : (1L << Move.from(move)) | (1L << Move.to(move));
+                set(parent.player == Color.BLACK ? parent.black ^ fromTo : parent.black,
+                        parent.player == Color.WHITE ? parent.white ^ fromTo : parent.white,
+                        parent.player.opposite());
+            }
+
+            /**
+             * Generates the children of the node, unless the game is decided in it.
+             *
+             * @return true if the node is decided, with its numbers in the result
+             *         fields and the move that wins it for the target in terminalMove
+             */
+            boolean expand() {
+                long own = player == Color.BLACK ? black : white;
+                long other = player == Color.BLACK ? white : black;
+                Color opponent = player.opposite();
+                terminalMove = Move.PASS;
+                count = Board.generateMoves(own, other, moves);
+                if (count == 0) {
+                    Color winner = Board.checkWin(black, white);
+                    if (winner == player) {
+                        return decided(player == target);
+                    } else if (Board.generateMoves(other, own, moves) == 0) {
+                        // Frozen: the opponent passes too, and wins if checkWin names them
+                        return decided(winner == target);
+                    }
+                    moves[0] = Move.PASS;
+                    count = 1;
+                }
+
+                for (int i = 0; i < count; i++) {
+                    int move = moves[i];
+                    long fromTo = move == Move.PASS ? 0 : (1L << Move.from(move)) | (1L << Move.to(move));
+                    long childBlack = player == Color.BLACK ? black ^ fromTo : black;
+                    long childWhite = player == Color.WHITE ? white ^ fromTo : white;
+                    if (move != Move.PASS && Board.checkWin(childBlack, childWhite) == player) {
+                        terminalMove = move;
+                        return decided(player == target);
+                    }
+                    childKeys[i] = ProofTable.key(Symmetry.canonical(childBlack, childWhite, opponent), target);
+                    int repeated = path.depth(childKeys[i]);
+                    local[i] = repeated >= 0;
+                    if (local[i]) {
+                        childPn[i] = ProofTable.INFINITY;
+                        childDn[i] = 0;
+                        childLoop[i] = repeated;
+                    }
+                }
+                return false;
+            }
+
+            /**
+             * Reads the numbers of a child from the table, unless they are kept here.
+             */
+            void refresh(int child) {
+                if (local[child]) {
+                    return;
+                }
+                long data = table.probe(childKeys[child]);
+                childPn[child] = data == 0 ? 1 : ProofTable.proofNumber(data);
+                childDn[child] = data == 0 ? 1 : ProofTable.disproofNumber(data);
+                childLoop[child] = NO_LOOP;
+            }
+
+            private boolean decided(boolean targetWins) {
+                resultPn = targetWins ? 0 : ProofTable.INFINITY;
+                resultDn = targetWins ? ProofTable.INFINITY : 0;
+                if (!targetWins) {
+                    terminalMove = Move.PASS;
+                }
+                return true;
+            }
+        }
+    }
+
+    /**
+     * The nodes on a worker's path and their depths, in an open-addressing
+     * hash table, since paths can be thousands of nodes long.
+     */
+    private static final class PathIndex {
+
+        // Keys are stored plus one, so that 0 marks an empty slot
+        private long[] keys = new long[1 << 10];
+
+        private int[] depths = new int[keys.length];
+
+        private int size;
+
+        void put(long key, int depth) {
+            if (2 * (size + 1) > keys.length) {
+                grow();
+            }
+            int slot = find(key);
+            if (keys[slot] == 0) {
+                size++;
+            }
+            keys[slot] = key + 1;
+            depths[slot] = depth;
+        }
+
+        /**
+         * Returns the depth of a node on the path, or -1 if it is not on it.
+         */
+        int depth(long key) {
+            int slot = find(key);
+            return keys[slot] == 0 ? -1 : depths[slot];
+        }
+
+        void remove(long key) {
+            int mask = keys.length - 1;
+            int slot = find(key);
+            if (keys[slot] == 0) {
+                return;
+            }
+            size--;
+            // Shift later entries of the probe sequence back into the hole
+            int hole = slot;
+            for (int next = (hole + 1) & mask; keys[next] != 0; next = (next + 1) & mask) {
+                int home = home(keys[next] - 1);
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    keys[hole] = keys[next];
+                    depths[hole] = depths[next];
+                    hole = next;
+                }
+            }
+            keys[hole] = 0;
+        }
+
+        private int find(long key) {
+            int mask = keys.length - 1;
+            int slot = home(key);
+            while (keys[slot] != 0 && keys[slot] != key + 1) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private int home(long key) {
+            return (int) (key * 0x9E3779B97F4A7C15L >>> 32) & (keys.length - 1);
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            int[] oldDepths = depths;
+            keys = new long[2 * oldKeys.length];
+            depths = new int[keys.length];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) {
+                    int slot = find(oldKeys[i] - 1);
+                    keys[slot] = oldKeys[i];
+                    depths[slot] = oldDepths[i];
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns a sum of proof or disproof numbers, INFINITY only if one of them is.
+     */
+    private static int saturate(long sum, int max) {
+        return max == ProofTable.INFINITY ? ProofTable.INFINITY : (int) Math.min(sum, ProofTable.INFINITY - 1);
+    }
+}
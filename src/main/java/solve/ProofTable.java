@@ -0,0 +1,365 @@
+package main.java.solve;
+
+import main.java.Color;
+import main.java.Move;
+import main.java.Symmetry;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A fixed-size hash table of proof and disproof numbers for a
+ * ProofNumberSolver, shared by all of its threads.
+ *
+ * A node is a position in canonical form (see Symmetry.canonical) together
+ * with the player the solver is trying to prove a win for, so the key is the
+ * packed position with that player in bit TARGET_SHIFT. Keys are exact rather
+ * than hashes: a solver must not take one position's proof for another's.
+ *
+ * The table is laid out like the TranspositionTable: buckets of BUCKET_SIZE
+ * entries of two longs, the first holding the key and the proving move XORed
+ * with the data, the second the data, so no locks are needed and a torn write
+ * shows up as a miss. The data packs the proof number, the disproof number
+ * and the log2 of the nodes spent on the entry. A node that is not in its
+ * bucket replaces the unsolved entry that took the least work, and solved
+ * entries are only replaced when every entry of the bucket is solved.
+ *
+ * The table can be written to a checkpoint file and read back, so a long
+ * solve can resume after a restart. The file starts with HEADER_BYTES of
+ * header: the magic number, the format version and two reserved ints, then
+ * the number of longs as a long; the longs of the table follow, little endian.
+ */
+public class ProofTable {
+
+    public static final int MAGIC = 0x454E5450; // "ENTP"
+
+    public static final int VERSION = 1;
+
+    public static final int HEADER_BYTES = 24;
+
+    // The largest proof or disproof number, meaning the node is solved the other way
+    public static final int INFINITY = (1 << 29) - 1;
+
+    static final int TARGET_SHIFT = 51;
+
+    private static final long KEY_MASK = (1L << 52) - 1;
+
+    private static final int MOVE_SHIFT = 52;
+
+    private static final int BUCKET_SIZE = 4;
+
+    private static final int ENTRY_BYTES = 16;
+
+    // Data layout: proof number (29 bits) | disproof number (29) | log2 of the work (6)
+    private static final int DN_SHIFT = 29;
+    private static final int WORK_SHIFT = 58;
+
+    private final long[] table;
+
+    private final int bucketMask;
+
+    /**
+     * Creates a table that uses at most the given amount of memory.
+     *
+     * @param megabytes the memory cap; the table takes the largest power of two
+     *                  number of buckets that fits in it
+     * @throws IllegalArgumentException if the cap is smaller than one bucket or too big for an array
+     */
+    public ProofTable(int megabytes) throws IllegalArgumentException {
+        this(buckets(megabytes));
+    }
+
+    private ProofTable(long[] table) {
+        this.table = table;
+        this.bucketMask = table.length / (BUCKET_SIZE * 2) - 1;
+    }
+
+    /**
+     * Returns the key of a node.
+     *
+     * @param canonical the canonical form of the position, from Symmetry.canonical
+     * @param target the player the solver tries to prove a win for
+     */
+    public static long key(long canonical, Color target) {
+        return canonical | (target == Color.BLACK ? 1L << TARGET_SHIFT : 0);
+    }
+
+    /**
+     * Looks a node up.
+     *
+     * @param key the key of the node, from key
+     * @return the data stored for the node, to be read with proofNumber and
+     *         disproofNumber; 0 if the node is not in the table
+     */
+    public long probe(long key) {
+        int base = bucketIndex(key);
+        for (int i = base; i < base + BUCKET_SIZE * 2; i += 2) {
+            long data = table[i + 1];
+            if (((table[i] ^ data) & KEY_MASK) == key && data != 0) {
+                return data;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the move stored with a node, the one that proves it, or Move.PASS if there is none.
+     *
+     * @param key the key of the node, from key
+     * @return a move of the canonical position
+     */
+    public int probeMove(long key) {
+        int base = bucketIndex(key);
+        for (int i = base; i < base + BUCKET_SIZE * 2; i += 2) {
+            long data = table[i + 1];
+            long keyAndMove = table[i] ^ data;
+            if ((keyAndMove & KEY_MASK) == key && data != 0) {
+                return (int) (keyAndMove >>> MOVE_SHIFT);
+            }
+        }
+        return Move.PASS;
+    }
+
+    /**
+     * Stores the numbers of a node.
+     *
+     * @param key the key of the node, from key
+     * @param proofNumber the proof number, INFINITY once disproved
+     * @param disproofNumber the disproof number, INFINITY once proved
+     * @param move the move of the canonical position that proves the node, Move.PASS if none
+     * @param work the number of nodes searched below the node
+     */
+    public void store(long key, int proofNumber, int disproofNumber, int move, long work) {
+        int base = bucketIndex(key);
+        int replace = base;
+        long lowestWorth = Long.MAX_VALUE;
+        for (int i = base; i < base + BUCKET_SIZE * 2; i += 2) {
+            long data = table[i + 1];
+            if (((table[i] ^ data) & KEY_MASK) == key || data == 0) {
+                replace = i;
+                break;
+            }
+            long worth = (isSolved(data) ? 1L << 32 : 0) + workLog(data);
+            if (worth < lowestWorth) {
+                lowestWorth = worth;
+                replace = i;
+            }
+        }
+        long data = (long) proofNumber
+                | (long) disproofNumber << DN_SHIFT
+                | (long) (63 - Long.numberOfLeadingZeros(work | 1)) << WORK_SHIFT;
+        table[replace] = (key | (long) move << MOVE_SHIFT) ^ data;
+        table[replace + 1] = data;
+    }
+
+    /**
+     * Returns the number of entries the table holds.
+     */
+    public int capacity() {
+        return table.length / 2;
+    }
+
+    /**
+     * Counts the entries holding a proof or a disproof.
+     */
+    public long countSolved() {
+        long solved = 0;
+        for (int i = 1; i < table.length; i += 2) {
+            if (table[i] != 0 && isSolved(table[i])) {
+                solved++;
+            }
+        }
+        return solved;
+    }
+
+    //region Data decoders
+    public static int proofNumber(long data) {
+        return (int) (data & INFINITY);
+    }
+
+    public static int disproofNumber(long data) {
+        return (int) ((data >>> DN_SHIFT) & INFINITY);
+    }
+
+    public static boolean isSolved(long data) {
+        return proofNumber(data) == 0 || disproofNumber(data) == 0;
+    }
+
+    private static int workLog(long data) {
+        return (int) (data >>> WORK_SHIFT);
+    }
+    //endregion
+
+    /**
+     * Writes the table to a checkpoint file. The file is written next to the
+     * target and then moved over it, so a crash while writing leaves the
+     * previous checkpoint in place. Safe to call while solver threads run:
+     * an entry they change during the write fails its key check when read back.
+     *
+     * @param file the file to create or replace
+     * @throws IOException if the file cannot be written
+     */
+    public void write(Path file) throws IOException {
+        Path partial = file.resolveSibling(file.getFileName() + ".partial");
+        try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer block = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+            block.putInt(MAGIC).putInt(VERSION).putInt(0).putInt(0).putLong(table.length);
+            for (long value : table) {
+                if (!block.hasRemaining()) {
+                    writeFully(channel, block);
+                }
+                block.putLong(value);
+            }
+            writeFully(channel, block);
+        }
+        Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads a table from a checkpoint file. Entries that are not in the bucket
+     * of their key, which a write racing with the checkpoint leaves behind, are
+     * dropped.
+     *
+     * @param file a file written by write
+     * @return the table, with the size it had when it was written
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the file is not a proof table checkpoint
+     */
+    public static ProofTable read(Path file) throws IOException, IllegalArgumentException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer block = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+            block.limit(HEADER_BYTES);
+            readFully(channel, block);
+            if (block.remaining() < HEADER_BYTES || block.getInt() != MAGIC || block.getInt() != VERSION) {
+                throw new IllegalArgumentException("Not a proof table checkpoint: " + file);
+            }
+            block.getLong(); // Reserved
+            long length = block.getLong();
+            if (length < BUCKET_SIZE * 2 || Long.bitCount(length) != 1 || length > Integer.MAX_VALUE - 8
+                    || channel.size() != HEADER_BYTES + length * 8) {
+                throw new IllegalArgumentException("Proof table checkpoint is truncated or inconsistent");
+            }
+            ProofTable result = new ProofTable(new long[(int) length]);
+            long[] table = result.table;
+            int i = 0;
+            while (i < table.length) {
+                block.clear();
+                readFully(channel, block);
+                while (block.hasRemaining()) {
+                    table[i++] = block.getLong();
+                }
+            }
+            for (i = 0; i < table.length; i += 2) {
+                long key = (table[i] ^ table[i + 1]) & KEY_MASK;
+                if (table[i + 1] != 0 && result.bucketIndex(key) != i - i % (BUCKET_SIZE * 2)) {
+                    table[i] = 0;
+                    table[i + 1] = 0;
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Writes every position whose value the table knows as a SolvedPositions
+     * file: a WIN, with its winning move, if a win of the player to move is
+     * proved, a LOSS if a win of the opponent is, and a DRAW if neither can be.
+     *
+     * @param file the file to create or replace
+     * @return the number of positions written
+     * @throws IOException if the file cannot be written
+     */
+    public long export(Path file) throws IOException {
+        // Every solved position once, sorted, with the targets of its entries dropped
+        long[] positions = new long[(int) Math.min(Integer.MAX_VALUE - 8, countSolved())];
+        int count = 0;
+        for (int i = 0; i < table.length && count < positions.length; i += 2) {
+            long data = table[i + 1];
+            long key = (table[i] ^ data) & KEY_MASK;
+            if (data != 0 && isSolved(data) && bucketIndex(key) == i - i % (BUCKET_SIZE * 2)) {
+                positions[count++] = key & ~(1L << TARGET_SHIFT);
+            }
+        }
+        Arrays.sort(positions, 0, count);
+
+        long written = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer block = ByteBuffer.allocate(SolvedPositions.ENTRY_BYTES * 4096);
+            block.position(SolvedPositions.HEADER_BYTES);
+            for (int i = 0; i < count; i++) {
+                if (i > 0 && positions[i] == positions[i - 1]) {
+                    continue;
+                }
+                Color player = Symmetry.packedPlayer(positions[i]);
+                long own = probe(key(positions[i], player));
+                long other = probe(key(positions[i], player.opposite()));
+                int value;
+                int move = Move.PASS;
+                if (own != 0 && proofNumber(own) == 0) {
+                    value = Tablebase.WIN;
+                    move = probeMove(key(positions[i], player));
+                } else if (other != 0 && proofNumber(other) == 0) {
+                    value = Tablebase.LOSS;
+                } else if (own != 0 && disproofNumber(own) == 0 && other != 0 && disproofNumber(other) == 0) {
+                    value = Tablebase.DRAW;
+                } else {
+                    continue;
+                }
+                if (block.remaining() < SolvedPositions.ENTRY_BYTES) {
+                    writeFully(channel, block);
+                }
+                block.putLong(positions[i]).putInt(value).putInt(move);
+                written++;
+            }
+            writeFully(channel, block);
+            block.putInt(SolvedPositions.MAGIC).putInt(SolvedPositions.VERSION).putInt(0).putInt(0)
+                    .putLong(written);
+            block.flip();
+            channel.position(0);
+            while (block.hasRemaining()) {
+                channel.write(block);
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Returns the index in table of the first entry of the bucket of a key.
+     */
+    private int bucketIndex(long key) {
+        // Positions are not random bits, so mix them before taking the bucket
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32 & bucketMask) * BUCKET_SIZE * 2;
+    }
+
+    private static long[] buckets(int megabytes) throws IllegalArgumentException {
+        long buckets = Long.highestOneBit((long) megabytes * (1 << 20) / (BUCKET_SIZE * ENTRY_BYTES));
+        if (buckets < 1 || buckets * BUCKET_SIZE * 2 > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Unsupported table size: " + megabytes + "MB");
+        }
+        return new long[(int) buckets * BUCKET_SIZE * 2];
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer block) throws IOException {
+        block.flip();
+        while (block.hasRemaining()) {
+            channel.write(block);
+        }
+        block.clear();
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer block) throws IOException {
+        while (block.hasRemaining() && channel.read(block) >= 0) {
+            // Keep reading until the block is full or the file ends
+        }
+        block.flip();
+    }
+}
@@ -0,0 +1,145 @@
+package main.java.solve;
+
+import main.java.Board;
+import main.java.Color;
+import main.java.Move;
+import main.java.Symmetry;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The values of positions solved by a ProofNumberSolver, read from a file
+ * written by ProofTable.export, so the engine can answer them without searching.
+ *
+ * Positions are stored once per symmetry class, by their canonical form (see
+ * Symmetry.canonical), with the winning move mapped into the same frame. The
+ * file starts with HEADER_BYTES of header: the magic number, the format
+ * version and two reserved ints, then the number of entries as a long. Each
+ * entry is ENTRY_BYTES long: the canonical position, its value for the player
+ * to move as a Tablebase value, and the winning move of a WIN, Move.PASS
+ * otherwise. Entries are sorted by position; the file is memory mapped and
+ * looked up by binary search.
+ */
+public class SolvedPositions implements AutoCloseable {
+
+    public static final int MAGIC = 0x454E5453; // "ENTS"
+
+    public static final int VERSION = 1;
+
+    public static final int HEADER_BYTES = 24;
+
+    public static final int ENTRY_BYTES = 16;
+
+    // The value of a position that is not in the file
+    public static final int UNKNOWN = -1;
+
+    private final FileChannel channel;
+
+    private final MappedByteBuffer entries;
+
+    private final long count;
+
+    private SolvedPositions(FileChannel channel, MappedByteBuffer entries, long count) {
+        this.channel = channel;
+        this.entries = entries;
+        this.count = count;
+    }
+
+    /**
+     * Maps a file of solved positions.
+     *
+     * @param file a file written by ProofTable.export
+     * @return the positions, to be closed when no longer used
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the file is not a file of solved positions
+     */
+    public static SolvedPositions open(Path file) throws IOException, IllegalArgumentException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            if (channel.size() < HEADER_BYTES || channel.size() - HEADER_BYTES > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Not a solved positions file: " + file);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IllegalArgumentException("Not a solved positions file: " + file);
+            }
+            long count = buffer.getLong(16);
+            if (count * ENTRY_BYTES != channel.size() - HEADER_BYTES) {
+                throw new IllegalArgumentException("Solved positions file is truncated or inconsistent");
+            }
+            return new SolvedPositions(channel, buffer, count);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Looks up the value of a position.
+     *
+     * @param board the position
+     * @param player the player to move
+     * @return Tablebase.WIN, LOSS or DRAW for player, or UNKNOWN if the position was not solved
+     */
+    public int probe(Board board, Color player) {
+        long entry = find(Symmetry.canonical(board, player));
+        return entry < 0 ? UNKNOWN : entries.getInt((int) (HEADER_BYTES + entry * ENTRY_BYTES + 8));
+    }
+
+    /**
+     * Returns the move that wins a position solved as a WIN.
+     *
+     * @param board the position
+     * @param player the player to move
+     * @return the move in the frame of board, or Move.PASS if the position is
+     *         not a solved WIN or is won by passing
+     */
+    public int bestMove(Board board, Color player) {
+        long black = board.getPieces(Color.BLACK);
+        long white = board.getPieces(Color.WHITE);
+        int transform = Symmetry.canonicalTransform(black, white);
+        long entry = find(Symmetry.pack(Symmetry.transform(transform, black), Symmetry.transform(transform, white),
+                player));
+        if (entry < 0) {
+            return Move.PASS;
+        }
+        int move = entries.getInt((int) (HEADER_BYTES + entry * ENTRY_BYTES + 12));
+        return Symmetry.transformMove(Symmetry.inverse(transform), move);
+    }
+
+    //region Getters
+    public long size() {
+        return count;
+    }
+    //endregion
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private long key(long i) {
+        return entries.getLong((int) (HEADER_BYTES + i * ENTRY_BYTES));
+    }
+
+    /**
+     * Returns the entry of a canonical position, or -1 if it is not in the file.
+     */
+    private long find(long canonical) {
+        long low = 0;
+        long high = count;
+        while (low < high) {
+            long middle = (low + high) >>> 1;
+            if (key(middle) < canonical) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low < count && key(low) == canonical ? low : -1;
+    }
+}
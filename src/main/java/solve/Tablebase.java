@@ -0,0 +1,152 @@
+package main.java.solve;
+
+import main.java.Board;
+import main.java.Color;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A solved material signature, read from a file built by TablebaseBuilder
+ * through memory-mapped buffers, so that only the pages probed are loaded.
+ *
+ * The file starts with a HEADER_BYTES header: the magic number, the format
+ * version, the board size and the two piece counts as ints, then the number
+ * of positions as a long. The value of position i (see PositionIndexer) is in
+ * bits 2 * (i % 4) and up of byte HEADER_BYTES + i / 4, which is how a little
+ * endian array of longs with 32 values each is laid out.
+ *
+ * Values are from the point of view of the player to move, before any pass:
+ * WIN and LOSS are forced under the turn rules of Search, and everything else
+ * is a DRAW. They carry no distance to the end of the game.
+ *
+ * Pieces are never captured, so every game keeps 7 pieces a side and no
+ * position of a real game is in any table that can be built. Tablebases are
+ * an analysis tool, for studying smaller material and checking solvers such
+ * as ProofNumberSolver against exact values; the engines do not probe them.
+ */
+public class Tablebase implements AutoCloseable {
+
+    public static final int MAGIC = 0x454E5442; // "ENTB"
+
+    public static final int VERSION = 1;
+
+    public static final int HEADER_BYTES = 32;
+
+    // Values, two bits each
+    public static final int DRAW = 0;
+    public static final int WIN = 1;
+    public static final int LOSS = 2;
+
+    // Bytes per mapping; a single MappedByteBuffer cannot pass 2 GB
+    private static final int CHUNK_SHIFT = 30;
+
+    private final PositionIndexer indexer;
+
+    private final FileChannel channel;
+
+    private final MappedByteBuffer[] chunks;
+
+    private Tablebase(PositionIndexer indexer, FileChannel channel, MappedByteBuffer[] chunks) {
+        this.indexer = indexer;
+        this.channel = channel;
+        this.chunks = chunks;
+    }
+
+    /**
+     * Maps a tablebase file.
+     *
+     * @param file a file written by TablebaseBuilder
+     * @return the tablebase, to be closed when no longer probed
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the file is not a tablebase for this board
+     */
+    public static Tablebase open(Path file) throws IOException, IllegalArgumentException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // Keep reading until the header is complete or the file ends
+            }
+            header.flip();
+            if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IllegalArgumentException("Not a tablebase file: " + file);
+            }
+            int boardSize = header.getInt();
+            if (boardSize != Board.BOARD_SIZE) {
+                throw new IllegalArgumentException("Tablebase is for another board size");
+            }
+            PositionIndexer indexer = new PositionIndexer(header.getInt(), header.getInt());
+            header.getInt(); // Reserved
+            if (header.getLong() != indexer.size() || channel.size() < HEADER_BYTES + (indexer.size() + 3) / 4) {
+                throw new IllegalArgumentException("Tablebase file is truncated or inconsistent");
+            }
+
+            long bytes = (indexer.size() + 3) / 4;
+            MappedByteBuffer[] chunks = new MappedByteBuffer[(int) ((bytes - 1 >>> CHUNK_SHIFT) + 1)];
+            for (int i = 0; i < chunks.length; i++) {
+                long start = (long) i << CHUNK_SHIFT;
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES + start,
+                        Math.min(1L << CHUNK_SHIFT, bytes - start));
+            }
+            return new Tablebase(indexer, channel, chunks);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns whether a position has the material this tablebase was built for.
+     */
+    public boolean covers(Board board) {
+        return indexer.covers(board.getPieces(Color.BLACK), board.getPieces(Color.WHITE));
+    }
+
+    /**
+     * Looks up the value of a position.
+     *
+     * @param board the position
+     * @param player the player to move
+     * @return WIN, LOSS or DRAW for player
+     * @throws IllegalArgumentException if the position has other material than this tablebase
+     */
+    public int probe(Board board, Color player) throws IllegalArgumentException {
+        return probe(board.getPieces(Color.BLACK), board.getPieces(Color.WHITE), player);
+    }
+
+    /**
+     * Looks up the value of a position given as masks.
+     *
+     * @param black the mask of the BLACK pieces
+     * @param white the mask of the WHITE pieces
+     * @param player the player to move
+     * @return WIN, LOSS or DRAW for player
+     * @throws IllegalArgumentException if the position has other material than this tablebase
+     */
+    public int probe(long black, long white, Color player) throws IllegalArgumentException {
+        if (!indexer.covers(black, white)) {
+            throw new IllegalArgumentException("Position is not covered by this tablebase");
+        }
+        long index = indexer.index(black, white, player);
+        long offset = index >>> 2;
+        byte packed = chunks[(int) (offset >>> CHUNK_SHIFT)].get((int) (offset & ((1 << CHUNK_SHIFT) - 1)));
+        return (packed >>> (2 * (int) (index & 3))) & 3;
+    }
+
+    //region Getters
+    public PositionIndexer getIndexer() {
+        return indexer;
+    }
+    //endregion
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,262 @@
+package main.java.solve;
+
+import main.java.Board;
+import main.java.Color;
+import main.java.Move;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Solves every position of one material signature by retrograde analysis and
+ * writes the result as a Tablebase file.
+ *
+ * Pieces are never captured, so the positions with a given number of pieces
+ * per side are closed under moves and can be solved on their own. The solver
+ * sweeps over all positions until a sweep settles none: a position is a WIN
+ * if a move wins at once or leads to a LOSS for the opponent, and a LOSS if
+ * every move leads to a WIN for the opponent. Whatever is left is a DRAW.
+ *
+ * The turn rules are the ones of Search. A player with no move passes; they
+ * win if checkWin names them, and otherwise the opponent moves in the same
+ * position, or the game is frozen if the opponent cannot move either.
+ *
+ * The values are packed 32 to a long. Each sweep splits the positions into
+ * ranges of whole longs, one task each, so every long is written by one
+ * thread only. Other threads may read a long while it is written, but values
+ * only ever change from unsettled to settled, and both are sound to use.
+ */
+public class TablebaseBuilder {
+
+    // Positions per task, a multiple of the 32 values in a long
+    private static final long TASK_POSITIONS = 1 << 20;
+
+    private final PositionIndexer indexer;
+
+    private final int threads;
+
+    private final long[] values;
+
+    private int sweeps;
+
+    /**
+     * Creates a builder for one material signature.
+     *
+     * @param blackPieces the number of BLACK pieces, at least 1
+     * @param whitePieces the number of WHITE pieces, at least 1
+     * @param threads the number of threads to solve with, at least 1
+     * @throws IllegalArgumentException if a count is out of range or the table is too large for memory
+     */
+    public TablebaseBuilder(int blackPieces, int whitePieces, int threads) throws IllegalArgumentException {
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one thread is needed");
+        }
+        this.indexer = new PositionIndexer(blackPieces, whitePieces);
+        long words = (indexer.size() + 31) / 32;
+        if (words > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Too many positions to solve in memory");
+        }
+        this.threads = threads;
+        this.values = new long[(int) words];
+    }
+
+    /**
+     * Solves every position.
+     *
+     * @return the number of sweeps it took
+     * @throws IllegalStateException if a solver thread failed or was interrupted
+     */
+    public int solve() throws IllegalStateException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            long settled;
+            do {
+                List<Future<Long>> futures = new ArrayList<>();
+                for (long start = 0; start < indexer.size(); start += TASK_POSITIONS) {
+                    long first = start;
+                    long last = Math.min(indexer.size(), start + TASK_POSITIONS);
+                    futures.add(pool.submit(() -> sweep(first, last)));
+                }
+                settled = 0;
+                for (Future<Long> future : futures) {
+                    settled += future.get();
+                }
+                sweeps++;
+            } while (settled > 0);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while solving", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("A solver thread failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return sweeps;
+    }
+
+    /**
+     * Returns the value of a solved position.
+     *
+     * @param black the mask of the BLACK pieces
+     * @param white the mask of the WHITE pieces
+     * @param player the player to move
+     * @return Tablebase.WIN, LOSS or DRAW for player
+     * @spec.requires solve() has returned and the position has this builder's material
+     */
+    public int value(long black, long white, Color player) {
+        return value(indexer.index(black, white, player));
+    }
+
+    //region Getters
+    public PositionIndexer getIndexer() {
+        return indexer;
+    }
+    //endregion
+
+    /**
+     * Writes the solved values in the Tablebase file format.
+     *
+     * @param file the file to create or replace
+     * @throws IOException if the file cannot be written
+     */
+    public void write(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(Tablebase.HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(Tablebase.MAGIC).putInt(Tablebase.VERSION).putInt(Board.BOARD_SIZE)
+                    .putInt(indexer.getBlackPieces()).putInt(indexer.getWhitePieces()).putInt(0)
+                    .putLong(indexer.size());
+            header.flip();
+            writeFully(channel, header);
+
+            long bytes = (indexer.size() + 3) / 4;
+            ByteBuffer block = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+            for (long value : values) {
+                if (!block.hasRemaining()) {
+                    block.flip();
+                    writeFully(channel, block);
+                    block.clear();
+                }
+                block.putLong(value);
+            }
+            block.flip();
+            writeFully(channel, block);
+            channel.truncate(Tablebase.HEADER_BYTES + bytes);
+        }
+    }
+
+    /**
+     * Builds a tablebase file.
+     *
+     * @param args the number of BLACK pieces, the number of WHITE pieces, the
+     *             output file (default entropy-BxW.etb) and the number of
+     *             threads (default one per core)
+     */
+    public static void main(String[] args) throws IOException {
+        int blackPieces = Integer.parseInt(args[0]);
+        int whitePieces = Integer.parseInt(args[1]);
+        Path file = Paths.get(args.length > 2 ? args[2] : "entropy-" + blackPieces + "x" + whitePieces + ".etb");
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+        long start = System.nanoTime();
+        TablebaseBuilder builder = new TablebaseBuilder(blackPieces, whitePieces, threads);
+        int sweeps = builder.solve();
+        builder.write(file);
+        long[] counts = new long[3];
+        for (long index = 0; index < builder.indexer.size(); index++) {
+            counts[builder.value(index)]++;
+        }
+        System.out.printf("%d positions in %d sweeps, %.1f s: %d wins, %d losses, %d draws, written to %s%n",
+                builder.indexer.size(), sweeps, (System.nanoTime() - start) / 1e9,
+                counts[Tablebase.WIN], counts[Tablebase.LOSS], counts[Tablebase.DRAW], file);
+    }
+
+    /**
+     * Tries to settle every unsettled position in a range of whole longs.
+     *
+     * @return the number of positions settled
+     */
+    private long sweep(long first, long last) {
+        // No piece can reach more squares than there are
+        int[] moves = new int[Board.NUM_SQUARES * Math.max(indexer.getBlackPieces(), indexer.getWhitePieces())];
+        PositionIndexer.Cursor cursor = indexer.cursor(first);
+        long settled = 0;
+        for (long index = first; index < last; index++) {
+            if (value(index) == Tablebase.DRAW) {
+                int value = resolve(cursor.getBlack(), cursor.getWhite(), cursor.getPlayer(), moves);
+                if (value != Tablebase.DRAW) {
+                    values[(int) (index >>> 5)] |= (long) value << (2 * (index & 31));
+                    settled++;
+                }
+            }
+            if (index + 1 < last) {
+                cursor.next();
+            }
+        }
+        return settled;
+    }
+
+    /**
+     * Works out the value of a position from the values settled so far.
+     *
+     * @return WIN or LOSS if that is settled, DRAW otherwise
+     */
+    private int resolve(long black, long white, Color player, int[] moves) {
+        long own = player == Color.BLACK ? black : white;
+        long other = player == Color.BLACK ? white : black;
+        Color opponent = player.opposite();
+        int count = Board.generateMoves(own, other, moves);
+        if (count == 0) { // Pass
+            Color winner = Board.checkWin(black, white);
+            if (winner == player) {
+                return Tablebase.WIN;
+            } else if (Board.generateMoves(other, own, moves) > 0) {
+                return negate(value(indexer.index(black, white, opponent)));
+            }
+            // The opponent passes too, and wins if checkWin names them
+            return winner == opponent ? Tablebase.LOSS : Tablebase.DRAW;
+        }
+
+        boolean allLost = true;
+        for (int i = 0; i < count; i++) {
+            long fromTo = (1L << Move.from(moves[i])) | (1L << Move.to(moves[i]));
+            long childBlack = player == Color.BLACK ? black ^ fromTo : black;
+            long childWhite = player == Color.WHITE ? white ^ fromTo : white;
+            if (Board.checkWin(childBlack, childWhite) == player) {
+                return Tablebase.WIN;
+            }
+            int child = value(indexer.index(childBlack, childWhite, opponent));
+            if (child == Tablebase.LOSS) {
+                return Tablebase.WIN;
+            } else if (child != Tablebase.WIN) {
+                allLost = false;
+            }
+        }
+        return allLost ? Tablebase.LOSS : Tablebase.DRAW;
+    }
+
+    private int value(long index) {
+        return (int) (values[(int) (index >>> 5)] >>> (2 * (index & 31))) & 3;
+    }
+
+    private static int negate(int value) {
+        return value == Tablebase.WIN ? Tablebase.LOSS : value == Tablebase.LOSS ? Tablebase.WIN : Tablebase.DRAW;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
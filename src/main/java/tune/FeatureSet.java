@@ -0,0 +1,157 @@
+package main.java.tune;
+
+import main.java.Board;
+import main.java.Color;
+import main.java.engine.WeightedEvaluator;
+import main.java.sim.GameRecordReader;
+import main.java.sim.GameResult;
+import main.java.sim.GameSink;
+
+import java.util.SplittableRandom;
+
+/**
+ * The features of many positions and how their games ended, in primitive
+ * arrays of a fixed capacity, for tuning WeightedEvaluator.
+ *
+ * Games are replayed one at a time as they stream in, and every position in
+ * which the game is not over yet is kept: its WeightedEvaluator features, one
+ * byte each, and the result of its game for the player to move. Once the
+ * capacity is reached, reservoir sampling keeps a uniform sample of all the
+ * positions seen, so any number of games can be added within a fixed heap of
+ * about NUM_FEATURES + 1 bytes per position.
+ */
+public class FeatureSet implements GameSink {
+
+    // Results of a position's game for the player to move
+    public static final byte LOSS = 0;
+    public static final byte DRAW = 1;
+    public static final byte WIN = 2;
+
+    private final byte[] features;
+
+    private final byte[] results;
+
+    private final SplittableRandom random;
+
+    private final int[] buffer = new int[WeightedEvaluator.NUM_FEATURES];
+
+    private int size;
+
+    private long seen;
+
+    /**
+     * Creates an empty feature set.
+     *
+     * @param capacity the most positions to keep
+     * @param seed the seed of the sampling once the set is full
+     * @throws IllegalArgumentException if capacity is less than 1
+     */
+    public FeatureSet(int capacity, long seed) throws IllegalArgumentException {
+        if (capacity < 1 || (long) capacity * WeightedEvaluator.NUM_FEATURES > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Unsupported capacity: " + capacity);
+        }
+        features = new byte[capacity * WeightedEvaluator.NUM_FEATURES];
+        results = new byte[capacity];
+        random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Adds every position of a game in which it is not over yet. Safe to call from several threads.
+     * Games on other boards than the standard one are skipped.
+     */
+    @Override
+    public synchronized void accept(GameResult game) {
+        Board board = game.getStart();
+        if (board.getGeometry().getSize() != Board.BOARD_SIZE) {
+            return; // The features are for the standard board
+        }
+        Color player = game.getFirstPlayer();
+        Color winner = game.getWinner();
+        for (int ply = 0; ply < game.getLength(); ply++) {
+            WeightedEvaluator.features(board, player, buffer);
+            add(buffer, winner == null ? DRAW : winner == player ? WIN : LOSS);
+            board.makeMove(game.getMove(ply));
+            player = player.opposite();
+        }
+    }
+
+    /**
+     * Adds every game of a game record file.
+     *
+     * @param reader the games to add, read to the end
+     */
+    public void addAll(GameRecordReader reader) {
+        while (reader.hasNext()) {
+            accept(reader.next());
+        }
+    }
+
+    /**
+     * Adds one position.
+     *
+     * @param position the features of the position, each within the range of a byte
+     * @param result LOSS, DRAW or WIN for the player to move
+     */
+    public synchronized void add(int[] position, byte result) {
+        seen++;
+        int index;
+        if (size < results.length) {
+            index = size++;
+        } else {
+            long slot = random.nextLong(seen);
+            if (slot >= results.length) {
+                return;
+            }
+            index = (int) slot;
+        }
+        for (int feature = 0; feature < WeightedEvaluator.NUM_FEATURES; feature++) {
+            features[index * WeightedEvaluator.NUM_FEATURES + feature] = (byte) position[feature];
+        }
+        results[index] = result;
+    }
+
+    //region Getters
+    /**
+     * Returns the number of positions kept.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of positions added, kept or not.
+     */
+    public synchronized long getSeen() {
+        return seen;
+    }
+    //endregion
+
+    /**
+     * Returns one feature of a kept position.
+     */
+    public int getFeature(int position, int feature) {
+        return features[position * WeightedEvaluator.NUM_FEATURES + feature];
+    }
+
+    /**
+     * Returns the result of a kept position's game, LOSS, DRAW or WIN.
+     */
+    public byte getResult(int position) {
+        return results[position];
+    }
+
+    /**
+     * Returns the features of every kept position, NUM_FEATURES per position,
+     * without copying.
+     */
+    byte[] features() {
+        return features;
+    }
+
+    /**
+     * Returns the results of every kept position without copying.
+     */
+    byte[] results() {
+        return results;
+    }
+}
@@ -0,0 +1,198 @@
+package main.java.tune;
+
+import main.java.engine.WeightedEvaluator;
+import main.java.sim.GameRecordReader;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Fits the weights of a WeightedEvaluator to the results of recorded games
+ * (Texel's tuning method).
+ *
+ * The score of a position is turned into an expected result for the player
+ * to move by the logistic function of score / SCALE, and the weights are
+ * moved to minimize the mean squared difference between expected and actual
+ * results, where a win counts 1, a draw 1/2 and a loss 0. Each step computes
+ * the exact gradient over every position, split over a ForkJoinPool, and
+ * moves the weights with Adam, which copes with features of very different
+ * ranges without tuning a learning rate per feature.
+ */
+public class TexelTuner {
+
+    // How many score points make one unit of the logistic function's input
+    public static final double SCALE = 100;
+
+    // Positions per task
+    private static final int THRESHOLD = 1 << 15;
+
+    private static final double BETA1 = 0.9;
+    private static final double BETA2 = 0.999;
+    private static final double EPSILON = 1e-8;
+
+    private final ForkJoinPool pool;
+
+    private final double learningRate;
+
+    /**
+     * Creates a tuner.
+     *
+     * @param pool the pool to split the gradient over
+     * @param learningRate the largest change of a weight per step, in score points
+     */
+    public TexelTuner(ForkJoinPool pool, double learningRate) {
+        this.pool = pool;
+        this.learningRate = learningRate;
+    }
+
+    /**
+     * Returns the mean squared error of some weights over a feature set.
+     *
+     * @param set the positions
+     * @param weights one weight per feature
+     * @return the mean of (expected result - actual result)^2, 0 for an empty set
+     */
+    public double error(FeatureSet set, double[] weights) {
+        if (set.size() == 0) {
+            return 0;
+        }
+        return pool.invoke(new Gradient(set, weights, 0, set.size()))[WeightedEvaluator.NUM_FEATURES] / set.size();
+    }
+
+    /**
+     * Fits weights to a feature set.
+     *
+     * @param set the positions
+     * @param start the weights to start from, one per feature
+     * @param steps the number of gradient steps
+     * @return the fitted weights
+     */
+    public double[] tune(FeatureSet set, double[] start, int steps) {
+        int n = WeightedEvaluator.NUM_FEATURES;
+        double[] weights = start.clone();
+        double[] mean = new double[n];
+        double[] variance = new double[n];
+        if (set.size() == 0) {
+            return weights;
+        }
+        for (int step = 1; step <= steps; step++) {
+            double[] gradient = pool.invoke(new Gradient(set, weights, 0, set.size()));
+            for (int feature = 0; feature < n; feature++) {
+                double g = gradient[feature] / set.size();
+                mean[feature] = BETA1 * mean[feature] + (1 - BETA1) * g;
+                variance[feature] = BETA2 * variance[feature] + (1 - BETA2) * g * g;
+                double meanHat = mean[feature] / (1 - Math.pow(BETA1, step));
+                double varianceHat = variance[feature] / (1 - Math.pow(BETA2, step));
+                weights[feature] -= learningRate * meanHat / (Math.sqrt(varianceHat) + EPSILON);
+            }
+        }
+        return weights;
+    }
+
+    /**
+     * Rounds fitted weights to the integers a WeightedEvaluator uses.
+     */
+    public static int[] round(double[] weights) {
+        int[] rounded = new int[weights.length];
+        for (int i = 0; i < weights.length; i++) {
+            rounded[i] = (int) Math.round(weights[i]);
+        }
+        return rounded;
+    }
+
+    /**
+     * Tunes weights on game record files and writes them as a weights file.
+     *
+     * @param args the weights file to write, the most positions to keep (a
+     *             uniform sample of all of them is kept beyond that), the number
+     *             of steps, and one or more game record files
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 4) {
+            throw new IllegalArgumentException("Usage: <weights> <positions> <steps> <records>...");
+        }
+        FeatureSet set = new FeatureSet(Integer.parseInt(args[1]), 0);
+        for (int i = 3; i < args.length; i++) {
+            try (GameRecordReader reader = new GameRecordReader(Paths.get(args[i]))) {
+                set.addAll(reader);
+            }
+        }
+
+        TexelTuner tuner = new TexelTuner(ForkJoinPool.commonPool(), 1);
+        double[] start = Arrays.stream(new WeightedEvaluator().getWeights()).asDoubleStream().toArray();
+        long begin = System.nanoTime();
+        double[] weights = tuner.tune(set, start, Integer.parseInt(args[2]));
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        WeightedEvaluator evaluator = new WeightedEvaluator(round(weights));
+        double error = tuner.error(set, Arrays.stream(evaluator.getWeights()).asDoubleStream().toArray());
+        evaluator.write(Paths.get(args[0]), String.format(Locale.ROOT, "tuned on %d of %d positions, error %.6f",
+                set.size(), set.getSeen(), error));
+        System.out.printf(Locale.ROOT, "%d positions (of %d), error %.6f -> %.6f in %.1f s: %s%n", set.size(),
+                set.getSeen(), tuner.error(set, start), error, seconds, evaluator);
+    }
+
+    /**
+     * Sums the gradient of the squared error, and the squared error itself,
+     * over a range of positions, splitting it while it is large.
+     */
+    private static class Gradient extends RecursiveTask<double[]> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final FeatureSet set;
+
+        private final double[] weights;
+
+        private final int from;
+
+        private final int to;
+
+        Gradient(FeatureSet set, double[] weights, int from, int to) {
+            this.set = set;
+            this.weights = weights;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * Returns the gradient sums, one per feature, followed by the error sum.
+         */
+        @Override
+        protected double[] compute() {
+            int n = WeightedEvaluator.NUM_FEATURES;
+            if (to - from > THRESHOLD) {
+                int middle = (from + to) >>> 1;
+                Gradient left = new Gradient(set, weights, from, middle);
+                left.fork();
+                double[] sums = new Gradient(set, weights, middle, to).compute();
+                double[] leftSums = left.join();
+                for (int i = 0; i <= n; i++) {
+                    sums[i] += leftSums[i];
+                }
+                return sums;
+            }
+            byte[] features = set.features();
+            byte[] results = set.results();
+            double[] sums = new double[n + 1];
+            for (int position = from; position < to; position++) {
+                int base = position * n;
+                double score = 0;
+                for (int feature = 0; feature < n; feature++) {
+                    score += weights[feature] * features[base + feature];
+                }
+                double expected = 1 / (1 + Math.exp(-score / SCALE));
+                double difference = expected - results[position] / 2.0;
+                sums[n] += difference * difference;
+                double slope = 2 * difference * expected * (1 - expected) / SCALE;
+                for (int feature = 0; feature < n; feature++) {
+                    sums[feature] += slope * features[base + feature];
+                }
+            }
+            return sums;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package test;
+
+import main.java.Board;
+import main.java.Color;
+import main.java.Move;
+import main.java.engine.BackgroundSearch;
+import main.java.engine.MobilityEvaluator;
+import main.java.engine.SearchResult;
+import main.java.sim.Game;
+import main.java.sim.GameResult;
+import main.java.sim.PonderingPlayer;
+import main.java.sim.RandomPlayer;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * This class tests the BackgroundSearch class.
+ */
+
+public class BackgroundSearchTest {
+
+    @Test
+    public void testAnalysisStreamsDeeperResults() throws InterruptedException {
+        List<SearchResult> results = new CopyOnWriteArrayList<>();
+        try (BackgroundSearch search = new BackgroundSearch(new MobilityEvaluator(), 4)) {
+            assertNull(search.stop());
+            search.setListener(results::add);
+            search.analyze(new Board(), Color.WHITE);
+            Thread.sleep(200);
+            assertTrue(search.isRunning());
+            SearchResult last = search.stop();
+            assertFalse(search.isRunning());
+            assertNotNull(last);
+            assertTrue(results.size() >= 2);
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals(i + 1, results.get(i).getDepth());
+            }
+            assertEquals(results.get(results.size() - 1).getDepth(), last.getDepth());
+        }
+    }
+
+    @Test
+    public void testPonderHitKeepsSearching() throws InterruptedException {
+        List<SearchResult> results = new CopyOnWriteArrayList<>();
+        try (BackgroundSearch search = new BackgroundSearch(new MobilityEvaluator(), 4)) {
+            Board board = new Board();
+            SearchResult first = search.respond(board, Color.WHITE, 50);
+            int[] line = first.getPrincipalVariation();
+            assertTrue(line.length >= 2);
+            search.setListener(results::add);
+            search.ponder(board, Color.WHITE, first);
+            Thread.sleep(200);
+            int ponderedDepth = results.get(results.size() - 1).getDepth();
+
+            board.makeMove(line[0]);
+            board.makeMove(line[1]);
+            SearchResult answer = search.respond(board, Color.WHITE, 1);
+            assertEquals(1, search.getPonderHits());
+            assertEquals(0, search.getPonderMisses());
+            assertTrue(isLegal(board, Color.WHITE, answer.getBestMove()));
+            // The answer comes from the ponder search, at least as deep as it got on the opponent's time
+            assertTrue(ponderedDepth >= 2);
+            assertTrue(answer.getDepth() >= ponderedDepth);
+        }
+    }
+
+    @Test
+    public void testPonderHitCountsPonderTime() throws InterruptedException {
+        try (BackgroundSearch search = new BackgroundSearch(new MobilityEvaluator(), 4)) {
+            Board board = new Board();
+            SearchResult first = search.respond(board, Color.WHITE, 50);
+            int[] line = first.getPrincipalVariation();
+            search.ponder(board, Color.WHITE, first);
+            Thread.sleep(300);
+
+            board.makeMove(line[0]);
+            board.makeMove(line[1]);
+            long start = System.nanoTime();
+            SearchResult answer = search.respond(board, Color.WHITE, 250);
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            assertEquals(1, search.getPonderHits());
+            assertTrue(isLegal(board, Color.WHITE, answer.getBestMove()));
+            // The opponent took longer than the budget, so the answer does not wait for it again
+            assertTrue("took " + millis + " ms", millis < 250);
+        }
+    }
+
+    @Test
+    public void testPonderMissSearchesActualPosition() {
+        try (BackgroundSearch search = new BackgroundSearch(new MobilityEvaluator(), 4)) {
+            Board board = new Board();
+            SearchResult first = search.respond(board, Color.WHITE, 50);
+            int[] line = first.getPrincipalVariation();
+            search.ponder(board, Color.WHITE, first);
+
+            board.makeMove(line[0]);
+            int[] moves = new int[Board.MAX_MOVES];
+            int count = board.generateMoves(Color.BLACK, moves);
+            int reply = moves[0] == line[1] ? moves[1] : moves[0];
+            board.makeMove(reply);
+            SearchResult answer = search.respond(board, Color.WHITE, 20);
+            assertEquals(0, search.getPonderHits());
+            assertEquals(1, search.getPonderMisses());
+            assertTrue(count > 1);
+            assertTrue(isLegal(board, Color.WHITE, answer.getBestMove()));
+        }
+    }
+
+    @Test
+    public void testPonderingPlayerPlaysGames() {
+        try (PonderingPlayer player = new PonderingPlayer(new BackgroundSearch(new MobilityEvaluator(), 4), 5)) {
+            for (int game = 0; game < 3; game++) {
+                GameResult result = Game.play(player, new RandomPlayer(game), 60);
+                assertTrue(result.getLength() > 0);
+            }
+        }
+    }
+
+    private static boolean isLegal(Board board, Color player, int move) {
+        int[] moves = new int[Board.MAX_MOVES];
+        int count = board.generateMoves(player, moves);
+        if (count == 0) {
+            return move == Move.PASS;
+        }
+        for (int i = 0; i < count; i++) {
+            if (moves[i] == move) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
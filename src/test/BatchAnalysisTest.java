@@ -0,0 +1,105 @@
+package test;
+
+import main.java.Board;
+import main.java.Color;
+import main.java.Symmetry;
+import main.java.analysis.BatchAnalyzer;
+import main.java.analysis.BatchResult;
+import main.java.engine.MobilityEvaluator;
+import main.java.engine.Search;
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * This class tests the BatchAnalyzer class.
+ */
+
+public class BatchAnalysisTest {
+
+    @Test
+    public void testMatchesBoard() {
+        long[] positions = randomPositions(5000, 1);
+        BatchResult result = new BatchAnalyzer().analyze(positions);
+        assertEquals(positions.length, result.size());
+        assertNull(result.getScores());
+        for (int i = 0; i < positions.length; i++) {
+            Board board = new Board(Symmetry.packedBlack(positions[i]), Symmetry.packedWhite(positions[i]));
+            Color winner = board.checkWin();
+            assertEquals(winner == null ? BatchResult.NO_WINNER
+                    : winner == Color.BLACK ? BatchResult.BLACK_WINS : BatchResult.WHITE_WINS,
+                    result.getWinner()[i]);
+            assertEquals(board.mustPass(Color.BLACK), result.getBlackMustPass()[i]);
+            assertEquals(board.mustPass(Color.WHITE), result.getWhiteMustPass()[i]);
+            assertEquals(board.countMoves(Color.BLACK), result.getBlackMobility()[i]);
+            assertEquals(board.countMoves(Color.WHITE), result.getWhiteMobility()[i]);
+        }
+    }
+
+    @Test
+    public void testEvaluatorScores() {
+        long[] positions = randomPositions(5000, 2);
+        MobilityEvaluator evaluator = new MobilityEvaluator();
+        BatchResult result = new BatchAnalyzer().analyze(positions, evaluator);
+        for (int i = 0; i < positions.length; i++) {
+            Board board = new Board(Symmetry.packedBlack(positions[i]), Symmetry.packedWhite(positions[i]));
+            assertEquals(evaluator.evaluate(board, Symmetry.packedPlayer(positions[i])), result.getScores()[i]);
+        }
+    }
+
+    @Test
+    public void testParallelMatchesSequential() {
+        long[] positions = randomPositions(20000, 3);
+        ForkJoinPool one = new ForkJoinPool(1);
+        ForkJoinPool four = new ForkJoinPool(4);
+        try {
+            BatchResult sequential = new BatchAnalyzer(one).analyze(positions, new MobilityEvaluator());
+            BatchResult parallel = new BatchAnalyzer(four).analyze(positions, new MobilityEvaluator());
+            assertArrayEquals(sequential.getWinner(), parallel.getWinner());
+            assertArrayEquals(sequential.getBlackMobility(), parallel.getBlackMobility());
+            assertArrayEquals(sequential.getWhiteMobility(), parallel.getWhiteMobility());
+            assertArrayEquals(sequential.getScores(), parallel.getScores());
+        } finally {
+            one.shutdown();
+            four.shutdown();
+        }
+    }
+
+    @Test
+    public void testSearchedScores() {
+        long[] positions = randomPositions(40, 4);
+        BatchResult result = new BatchAnalyzer().analyze(positions, new MobilityEvaluator(), 2);
+        for (int i = 0; i < positions.length; i++) {
+            Board board = new Board(Symmetry.packedBlack(positions[i]), Symmetry.packedWhite(positions[i]));
+            int score = new Search().searchDepth(board, Symmetry.packedPlayer(positions[i]), 2).getScore();
+            assertEquals(score, result.getScores()[i]);
+        }
+    }
+
+    /**
+     * Returns positions reached by random play from the standard setup, packed.
+     */
+    private static long[] randomPositions(int count, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        long[] positions = new long[count];
+        int[] moves = new int[Board.MAX_MOVES];
+        for (int i = 0; i < count; i++) {
+            Board board = new Board();
+            Color player = Color.WHITE;
+            int plies = random.nextInt(30);
+            for (int ply = 0; ply < plies && board.checkWin() == null; ply++) {
+                int moveCount = board.generateMoves(player, moves);
+                if (moveCount > 0) {
+                    board.makeMove(moves[random.nextInt(moveCount)]);
+                }
+                player = player.opposite();
+            }
+            positions[i] = Symmetry.pack(board.getPieces(Color.BLACK), board.getPieces(Color.WHITE), player);
+        }
+        return positions;
+    }
+}
@@ -3,10 +3,16 @@ package test;
 import main.java.Board;
 import main.java.Color;
 import main.java.Color;
+import main.java.Move;
 import org.junit.Test;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
+import java.awt.Point;
 import java.util.List;
+import java.util.SplittableRandom;
 
 /**
  * This class tests the Board class.
@@ -42,15 +48,16 @@ public class BoardTest {
         List<Color> rightColumn = newBoard.getSurroundingColors(3, 4);
         List<Color> middle = newBoard.getSurroundingColors(2, 2);
 
-        assertEquals(topLeft.toString(), "[BLACK, null, BLACK]");
-        assertEquals(topRight.toString(), "[BLACK, null, BLACK]");
-        assertEquals(bottomLeft.toString(), "[WHITE, null, WHITE]");
-        assertEquals(bottomRight.toString(), "[null, WHITE, WHITE]");
-        assertEquals(topRow.toString(), "[BLACK, null, null, null, BLACK]");
-        assertEquals(bottomRow.toString(), "[WHITE, null, null, WHITE, WHITE]");
-        assertEquals(leftColumn.toString(), "[BLACK, null, null, null, WHITE]");
-        assertEquals(rightColumn.toString(), "[null, null, WHITE, WHITE, null]");
-        assertEquals(middle.toString(), "[null, null, null, null, null, null, null, null]");
+        // Empty squares are skipped, as they have been since the first Board
+        assertEquals(topLeft.toString(), "[BLACK, BLACK]");
+        assertEquals(topRight.toString(), "[BLACK, BLACK]");
+        assertEquals(bottomLeft.toString(), "[WHITE, WHITE]");
+        assertEquals(bottomRight.toString(), "[WHITE, WHITE]");
+        assertEquals(topRow.toString(), "[BLACK, BLACK]");
+        assertEquals(bottomRow.toString(), "[WHITE, WHITE, WHITE]");
+        assertEquals(leftColumn.toString(), "[BLACK, WHITE]");
+        assertEquals(rightColumn.toString(), "[WHITE, WHITE]");
+        assertEquals(middle.toString(), "[]");
     }
 
     @Test
@@ -65,4 +72,143 @@ public class BoardTest {
         Board board = new Board();
         board.print2D();
     }
+
+    @Test
+    public void testCopyEqualsAndHashCode() {
+        Board board = new Board();
+        Board copy = new Board(board);
+        assertEquals(board, copy);
+        assertEquals(board.hashCode(), copy.hashCode());
+
+        copy.movePiece(1, 0, 2, 0);
+        assertNotEquals(board, copy);
+        assertNull(copy.getPieceAtSquare(1, 0));
+        assertEquals(Color.BLACK, copy.getPieceAtSquare(2, 0).getColor());
+
+        board.copyFrom(copy);
+        assertEquals(board, copy);
+    }
+
+    @Test
+    public void testMaskConstructor() {
+        Board board = new Board();
+        Board fromMasks = new Board(board.getPieces(Color.BLACK), board.getPieces(Color.WHITE));
+        assertEquals(board, fromMasks);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMaskConstructorRejectsOverlap() {
+        new Board(0x7FL, 0x7FL << 6);
+    }
+
+    @Test
+    public void testGenerateMovesFromStart() {
+        Board board = new Board();
+        int[] moves = new int[Board.MAX_MOVES];
+        int count = board.generateMoves(Color.WHITE, moves);
+        int expected = 0;
+        for (int row = 3; row < 5; row++) {
+            for (int col = 0; col < 5; col++) {
+                if (board.getPieceAtSquare(row, col) != null) {
+                    expected += board.legalMoves(row, col).size();
+                }
+            }
+        }
+        assertEquals(expected, count);
+        assertEquals(17, count);
+    }
+
+    @Test
+    public void testGenerateMovesRescuesPiecesInCheck() {
+        Board board = new Board();
+        board.movePiece(1, 0, 2, 0);
+        assertEquals(1, board.inCheck(Color.BLACK).size());
+
+        int[] moves = new int[Board.MAX_MOVES];
+        int count = board.generateMoves(Color.BLACK, moves);
+        List<Point> rescueSquares = board.getSurroundingPoints(2, 0);
+        assertEquals(6, count);
+        for (int i = 0; i < count; i++) {
+            int to = Move.to(moves[i]);
+            assertTrue(rescueSquares.contains(new Point(to / 5, to % 5)));
+        }
+    }
+
+    @Test
+    public void testMakeAndUnmakeMove() {
+        Board board = new Board();
+        Board original = new Board(board);
+        int[] moves = new int[Board.MAX_MOVES];
+        int count = board.generateMoves(Color.WHITE, moves);
+        for (int i = 0; i < count; i++) {
+            board.makeMove(moves[i]);
+            int to = Move.to(moves[i]);
+            assertEquals(Color.WHITE, board.getPieceAtSquare(to / 5, to % 5).getColor());
+            assertEquals(new Board(board.getPieces(Color.BLACK), board.getPieces(Color.WHITE)).getHash(),
+                    board.getHash());
+            board.unmakeMove(moves[i]);
+            assertEquals(original, board);
+            assertEquals(original.getHash(), board.getHash());
+        }
+    }
+
+    @Test
+    public void testMovableAndIsolatedPieces() {
+        Board board = new Board();
+        board.movePiece(1, 0, 2, 0);
+        assertEquals(1L << 10, board.getIsolatedPieces(Color.BLACK));
+        assertEquals(6, Long.bitCount(board.getMovablePieces(Color.BLACK)));
+        assertEquals(0, board.getIsolatedPieces(Color.WHITE));
+        assertNull(board.checkWin());
+    }
+
+    @Test
+    public void testValidateAfterMoves() {
+        Board board = new Board();
+        board.validate();
+        board.movePiece(1, 0, 2, 0);
+        board.validate();
+        int[] moves = new int[Board.MAX_MOVES];
+        int count = board.generateMoves(Color.WHITE, moves);
+        for (int i = 0; i < count; i++) {
+            board.makeMove(moves[i]);
+            board.validate();
+            board.unmakeMove(moves[i]);
+        }
+    }
+
+    @Test
+    public void testIncrementalMustPassMatchesFullScan() {
+        SplittableRandom random = new SplittableRandom(19);
+        int[] moves = new int[Board.MAX_MOVES];
+        int[] replies = new int[Board.MAX_MOVES];
+        for (int game = 0; game < 200; game++) {
+            Board board = new Board();
+            Color player = Color.WHITE;
+            for (int ply = 0; ply < 60 && board.checkWin() == null; ply++) {
+                int count = board.generateMoves(player, moves);
+                for (int i = 0; i < count; i++) { // Every reply, then back again
+                    board.makeMove(moves[i]);
+                    assertMatchesFullScan(board);
+                    board.unmakeMove(moves[i]);
+                }
+                assertMatchesFullScan(board);
+                if (count > 0) {
+                    board.makeMove(moves[random.nextInt(count)]);
+                }
+                player = player.opposite();
+            }
+            assertEquals(board.generateMoves(player, replies), board.countMoves(player));
+        }
+    }
+
+    private static void assertMatchesFullScan(Board board) {
+        long black = board.getPieces(Color.BLACK);
+        long white = board.getPieces(Color.WHITE);
+        assertEquals(Board.mustPass(black, white), board.mustPass(Color.BLACK));
+        assertEquals(Board.mustPass(white, black), board.mustPass(Color.WHITE));
+        assertEquals(Board.countMoves(black, white), board.countMoves(Color.BLACK));
+        assertEquals(Board.countMoves(white, black), board.countMoves(Color.WHITE));
+        assertEquals(Board.checkWin(black, white), board.checkWin());
+    }
 }
@@ -0,0 +1,135 @@
+package test;
+
+import main.java.Board;
+import main.java.Color;
+import main.java.Geometry;
+import main.java.Move;
+import main.java.sim.Game;
+import main.java.sim.GameRecordReader;
+import main.java.sim.GameRecordWriter;
+import main.java.sim.GameResult;
+import main.java.sim.RandomPlayer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class tests the binary game record format.
+ */
+
+public class GameRecordTest {
+
+    private Path file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = Files.createTempFile("entropy", ".egr");
+        Files.delete(file);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void testGamesRoundTripAcrossAppends() throws IOException {
+        List<GameResult> games = new ArrayList<>();
+        for (int seed = 0; seed < 10; seed++) {
+            games.add(Game.play(new RandomPlayer(seed), new RandomPlayer(seed + 100), 150));
+        }
+        games.add(new GameResult(new Board(), Color.WHITE, new int[] {Move.encode(21, 16), Move.PASS},
+                Color.BLACK, GameResult.Ending.WIN));
+        games.add(Game.play(new Board(Geometry.of(8)), Color.WHITE, new RandomPlayer(1), new RandomPlayer(2), 50));
+
+        try (GameRecordWriter writer = new GameRecordWriter(file)) {
+            for (GameResult game : games.subList(0, 5)) {
+                writer.accept(game);
+            }
+        }
+        try (GameRecordWriter writer = new GameRecordWriter(file)) {
+            for (GameResult game : games.subList(5, games.size())) {
+                writer.accept(game);
+            }
+        }
+
+        try (GameRecordReader reader = new GameRecordReader(file)) {
+            for (GameResult expected : games) {
+                GameResult actual = reader.next();
+                assertEquals(expected.getStart(), actual.getStart());
+                assertEquals(expected.getFirstPlayer(), actual.getFirstPlayer());
+                assertArrayEquals(expected.getMoves(), actual.getMoves());
+                assertEquals(expected.getWinner(), actual.getWinner());
+                assertEquals(expected.getEnding(), actual.getEnding());
+            }
+            assertFalse(reader.hasNext());
+        }
+    }
+
+    @Test
+    public void testReplay() {
+        GameResult game = Game.play(new RandomPlayer(7), new RandomPlayer(8), 60);
+        Board board = game.getStart();
+        assertEquals(board, game.replay(0));
+        for (int ply = 0; ply < game.getLength(); ply++) {
+            board.makeMove(game.getMove(ply));
+            assertEquals(board, game.replay(ply + 1));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testReplayOutOfRange() {
+        GameResult game = Game.play(new RandomPlayer(7), new RandomPlayer(8), 10);
+        game.replay(game.getLength() + 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testReaderRejectsOtherFiles() throws IOException {
+        Files.write(file, new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+        new GameRecordReader(file).close();
+    }
+
+    @Test
+    public void testReaderRejectsCorruptGames() throws IOException {
+        try (GameRecordWriter writer = new GameRecordWriter(file)) {
+            writer.accept(Game.play(new RandomPlayer(1), new RandomPlayer(2), 20));
+        }
+        byte[] valid = Files.readAllBytes(file);
+        int game = 5; // After the magic number and the version
+        // Board size, first player, ending, and a length that would take gigabytes
+        checkCorrupt(valid, game, (byte) 42, "board size 42");
+        checkCorrupt(valid, game + 17, (byte) 7, "first player 7");
+        checkCorrupt(valid, game + 19, (byte) 9, "ending 9");
+        checkCorrupt(valid, game + 20, (byte) 0x7F, "length");
+        checkCorrupt(valid, game + 20, (byte) 0xFF, "length");
+    }
+
+    /**
+     * Writes a copy of a valid file with one byte changed and checks that
+     * reading it fails, naming the game and what is wrong with it.
+     */
+    private void checkCorrupt(byte[] valid, int offset, byte value, String detail) throws IOException {
+        byte[] corrupt = valid.clone();
+        corrupt[offset] = value;
+        Files.write(file, corrupt);
+        try (GameRecordReader reader = new GameRecordReader(file)) {
+            reader.next();
+            fail("Read a game with a corrupt " + detail);
+        } catch (UncheckedIOException e) {
+            String message = e.getCause().getMessage();
+            assertTrue(message, message.contains("game 1") && message.contains(detail));
+        }
+    }
+}
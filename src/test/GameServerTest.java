@@ -0,0 +1,157 @@
+package test;
+
+import main.java.Board;
+import main.java.Color;
+import main.java.Move;
+import main.java.server.GameClient;
+import main.java.server.GameServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * This class tests the game server through a loopback client.
+ */
+
+public class GameServerTest {
+
+    private GameServer server;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new GameServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 3);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.close();
+    }
+
+    @Test
+    public void testRulesAreEnforced() throws IOException {
+        try (GameClient client = connect()) {
+            assertEquals("OK 1 TURN WHITE 17", client.request("NEW"));
+            assertEquals("BOARD 1 WHITE BBBBBB...B.....W...WWWWWW", client.request("SHOW 1"));
+            assertTrue(client.request("MOVE 1 0 0 2 0").startsWith("ERR 1 illegal move"));
+            assertTrue(client.request("PASS 1").startsWith("ERR 1 WHITE has a legal move"));
+            assertTrue(client.request("MOVE 1 3 0 2 0").startsWith("OK 1 TURN BLACK"));
+            assertTrue(client.request("MOVE 1 9 9 9 9").startsWith("ERR 1 square off the board"));
+            assertEquals("ERR no game 99", client.request("STATE 99"));
+            assertTrue(client.request("JUMP 1").startsWith("ERR unknown command"));
+            assertEquals("OK 1 CLOSED", client.request("CLOSE 1"));
+            assertEquals("ERR no game 1", client.request("SHOW 1"));
+            assertEquals("BYE", client.request("QUIT"));
+        }
+    }
+
+    @Test
+    public void testGamesEndWithTheirConnection() throws Exception {
+        try (GameClient client = connect()) {
+            assertEquals("OK 1 TURN WHITE 17", client.request("NEW"));
+        }
+        try (GameClient client = connect()) {
+            // The server sees the first client go asynchronously
+            String response = client.request("STATE 1");
+            for (int i = 0; i < 100 && !response.startsWith("ERR"); i++) {
+                Thread.sleep(20);
+                response = client.request("STATE 1");
+            }
+            assertEquals("ERR no game 1", response);
+        }
+    }
+
+    @Test
+    public void testOnlyTheOwnerPlaysAGame() throws IOException {
+        try (GameClient owner = connect(); GameClient other = connect()) {
+            assertEquals("OK 1 TURN WHITE 17", owner.request("NEW"));
+            assertEquals("ERR game 1 belongs to another connection", other.request("MOVE 1 3 0 2 0"));
+            assertEquals("ERR game 1 belongs to another connection", other.request("CLOSE 1"));
+            assertTrue(owner.request("MOVE 1 3 0 2 0").startsWith("OK 1 TURN BLACK"));
+        }
+    }
+
+    @Test
+    public void testManyGamesAtOnce() throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int c = 0; c < 4; c++) {
+                long seed = c;
+                futures.add(clients.submit(() -> playGames(seed, 10, 40)));
+            }
+            int plies = 0;
+            for (Future<Integer> future : futures) {
+                plies += future.get();
+            }
+            assertEquals(4 * 10 * 40, plies);
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+
+    /**
+     * Plays random moves in several games at once, round robin, checking
+     * every response against a local board.
+     *
+     * @return the number of plies played
+     */
+    private int playGames(long seed, int gameCount, int pliesPerGame) throws IOException {
+        SplittableRandom random = new SplittableRandom(seed);
+        try (GameClient client = connect()) {
+            long[] ids = new long[gameCount];
+            Board[] boards = new Board[gameCount];
+            Color[] players = new Color[gameCount];
+            for (int g = 0; g < gameCount; g++) {
+                String[] words = client.request("NEW").split(" ");
+                ids[g] = Long.parseLong(words[1]);
+                boards[g] = new Board();
+                players[g] = Color.WHITE;
+            }
+            int[] moves = new int[Board.MAX_MOVES];
+            int plies = 0;
+            for (int ply = 0; ply < pliesPerGame; ply++) {
+                for (int g = 0; g < gameCount; g++) {
+                    int count = boards[g].generateMoves(players[g], moves);
+                    String response;
+                    if (count == 0) {
+                        response = client.request("PASS " + ids[g]);
+                    } else {
+                        int move = moves[random.nextInt(count)];
+                        response = client.request("MOVE " + ids[g] + " " + Move.from(move) / 5 + " "
+                                + Move.from(move) % 5 + " " + Move.to(move) / 5 + " " + Move.to(move) % 5);
+                        boards[g].makeMove(move);
+                    }
+                    plies++;
+                    if (response.contains("FROZEN")) {
+                        assertEquals(0, boards[g].countMoves(players[g].opposite()));
+                        String[] restart = client.request("NEW").split(" ");
+                        ids[g] = Long.parseLong(restart[1]);
+                        boards[g] = new Board();
+                        players[g] = Color.WHITE;
+                        continue;
+                    }
+                    players[g] = players[g].opposite();
+                    assertEquals("OK " + ids[g] + " TURN " + players[g] + " " + boards[g].countMoves(players[g]),
+                            response);
+                }
+            }
+            return plies;
+        }
+    }
+
+    private GameClient connect() throws IOException {
+        return new GameClient(InetAddress.getLoopbackAddress().getHostAddress(), server.getPort());
+    }
+}
@@ -0,0 +1,131 @@
+package test;
+
+import main.java.Board;
+import main.java.Color;
+import main.java.Geometry;
+import main.java.engine.MobilityEvaluator;
+import main.java.engine.Search;
+import main.java.sim.Game;
+import main.java.sim.GameResult;
+import main.java.sim.Perft;
+import main.java.sim.RandomPlayer;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.SplittableRandom;
+
+/**
+ * This class tests the Geometry class and Board on boards of other sizes.
+ */
+
+public class GeometryTest {
+
+    @Test
+    public void testTables() {
+        Geometry geometry = Geometry.of(8);
+        assertSame(geometry, Geometry.of(8));
+        assertEquals(64, geometry.getNumSquares());
+        assertEquals(-1L, geometry.getBoardMask());
+        // Corners have three neighbors, the middle eight
+        assertEquals(3, Long.bitCount(geometry.getNeighbors(63)));
+        assertEquals(8, Long.bitCount(geometry.getNeighbors(geometry.square(3, 4))));
+        assertEquals((1L << 4) - 1, Geometry.of(2).getBoardMask());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsLargeBoards() {
+        Geometry.of(Geometry.MAX_SIZE + 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testStandardSetupNeedsRoom() {
+        new Board(Geometry.of(3));
+    }
+
+    @Test
+    public void testStandardSetups() {
+        Board standard = new Board(Geometry.of(Board.BOARD_SIZE));
+        assertEquals(new Board(), standard);
+        assertEquals(Board.MAX_MOVES, standard.getMaxMoves());
+        for (int size = 4; size <= Geometry.MAX_SIZE; size++) {
+            Board board = new Board(Geometry.of(size));
+            assertEquals(size + 2, Long.bitCount(board.getPieces(Color.BLACK)));
+            assertEquals(size + 2, Long.bitCount(board.getPieces(Color.WHITE)));
+            assertEquals(board.getPieces(Color.BLACK), board.getMovablePieces(Color.BLACK));
+            assertNull(board.checkWin());
+            board.validate();
+        }
+        assertNotEquals(new Board(Geometry.of(6)), new Board(Geometry.of(7)));
+    }
+
+    @Test
+    public void testMovesReachLastSquare() {
+        Geometry geometry = Geometry.of(8);
+        // Two BLACK pieces in the top right corner, two WHITE pieces in the bottom left
+        long black = geometry.bit(0, 7) | geometry.bit(1, 7);
+        Board board = new Board(geometry, black, geometry.bit(7, 0) | geometry.bit(6, 0));
+        assertEquals(7 + 7 + 6, board.countMoves(Color.BLACK));
+        board.movePiece(1, 7, 7, 7);
+        assertEquals(geometry.bit(0, 7) | (1L << 63), board.getPieces(Color.BLACK));
+        assertEquals(Color.BLACK, board.checkWin());
+    }
+
+    @Test
+    public void testRandomGamesKeepInvariant() {
+        SplittableRandom random = new SplittableRandom(20);
+        for (int size = 4; size <= Geometry.MAX_SIZE; size++) {
+            Geometry geometry = Geometry.of(size);
+            int[] moves = new int[new Board(geometry).getMaxMoves()];
+            for (int game = 0; game < 20; game++) {
+                Board board = new Board(geometry);
+                Color player = Color.WHITE;
+                for (int ply = 0; ply < 100 && board.checkWin() == null; ply++) {
+                    long pieces = board.getPieces(player);
+                    long opponents = board.getPieces(player.opposite());
+                    int count = board.generateMoves(player, moves);
+                    assertEquals(Board.countMoves(geometry, pieces, opponents), count);
+                    assertEquals(Board.mustPass(geometry, pieces, opponents), board.mustPass(player));
+                    if (count > 0) {
+                        board.makeMove(moves[random.nextInt(count)]);
+                    }
+                    board.validate();
+                    assertEquals(Board.checkWin(geometry, board.getPieces(Color.BLACK), board.getPieces(Color.WHITE)),
+                            board.checkWin());
+                    player = player.opposite();
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testPerftOnLargerBoards() {
+        for (int size = 4; size <= Geometry.MAX_SIZE; size++) {
+            Board board = new Board(Geometry.of(size));
+            long total = 0;
+            for (Perft.MoveCount count : Perft.divide(board, Color.WHITE, 3)) {
+                total += count.getNodes();
+            }
+            assertEquals(Perft.perft(board, Color.WHITE, 3), total);
+            assertEquals(new Board(Geometry.of(size)), board);
+        }
+    }
+
+    @Test
+    public void testGamesOnLargerBoards() {
+        for (int size = 6; size <= Geometry.MAX_SIZE; size++) {
+            Board start = new Board(Geometry.of(size));
+            GameResult result = Game.play(start, Color.WHITE, new RandomPlayer(size), new RandomPlayer(-size), 200);
+            assertTrue(result.getLength() > 0);
+            assertEquals(start, result.getStart());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSearchRejectsLargerBoards() {
+        new Search(new MobilityEvaluator()).searchDepth(new Board(Geometry.of(6)), Color.WHITE, 2);
+    }
+}
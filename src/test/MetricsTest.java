@@ -0,0 +1,104 @@
+package test;
+
+import main.java.metrics.Counter;
+import main.java.metrics.Histogram;
+import main.java.metrics.HistogramSnapshot;
+import main.java.metrics.Metrics;
+import main.java.metrics.MetricsReporter;
+import main.java.metrics.MetricsSnapshot;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class tests the metrics classes.
+ */
+
+public class MetricsTest {
+
+    @Test
+    public void testCounterFromManyThreads() throws InterruptedException {
+        Counter counter = Metrics.counter("test.counter.threads");
+        assertSame(counter, Metrics.counter("test.counter.threads"));
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Thread thread = new Thread(() -> {
+                for (int j = 0; j < 10_000; j++) {
+                    counter.increment();
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        counter.add(5);
+        assertEquals(40_005, counter.getCount());
+        assertEquals(40_005, Metrics.snapshot().getCounter("test.counter.threads"));
+    }
+
+    @Test
+    public void testHistogramPercentiles() {
+        Histogram histogram = Metrics.histogram("test.histogram.percentiles");
+        for (int value = 1; value <= 100; value++) {
+            histogram.record(value);
+        }
+        histogram.record(-3); // Counts as 0
+        HistogramSnapshot snapshot = histogram.snapshot();
+        assertEquals(101, snapshot.getCount());
+        assertEquals(5050, snapshot.getSum());
+        assertEquals(100, snapshot.getMax());
+        // The median 50 is in the bucket from 32 to 63, the 99th percentile 99 in the one up to 127
+        assertEquals(63, snapshot.getP50());
+        assertEquals(100, snapshot.getP99());
+        assertTrue(snapshot.getP90() >= 90 && snapshot.getP90() <= 100);
+    }
+
+    @Test
+    public void testSnapshotFormats() {
+        Metrics.counter("test.snapshot.games").add(7);
+        Metrics.histogram("test.snapshot.nanos").record(1000);
+        MetricsSnapshot previous = Metrics.snapshot();
+        Metrics.counter("test.snapshot.games").add(3);
+        MetricsSnapshot current = Metrics.snapshot();
+
+        assertEquals(10, current.getCounter("test.snapshot.games"));
+        assertTrue(current.rate("test.snapshot.games", previous) > 0);
+        assertEquals(1, current.getHistogram("test.snapshot.nanos").getCount());
+        String json = current.toJson(previous);
+        assertTrue(json.startsWith("{\"timeMillis\": "));
+        assertTrue(json.contains("\"test.snapshot.games\": 10"));
+        assertTrue(json.contains("\"rates\": {"));
+        assertTrue(json.contains("\"test.snapshot.nanos\": {\"count\": 1, \"sum\": 1000, "));
+        assertTrue(json.endsWith("}}"));
+        String text = current.toText(null);
+        assertTrue(text.contains("test.snapshot.games"));
+        assertTrue(text.contains("count 1 mean 1000.0"));
+    }
+
+    @Test
+    public void testReporterPrintsSnapshots() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (MetricsReporter reporter = new MetricsReporter(new PrintStream(bytes, true, StandardCharsets.UTF_8),
+                true, 60_000)) {
+            Metrics.counter("test.reporter.games").increment();
+            reporter.report();
+        }
+        String out = bytes.toString(StandardCharsets.UTF_8);
+        assertTrue(out.contains("\"test.reporter.games\": 1"));
+        assertEquals(1, out.split(System.lineSeparator()).length);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testReporterRejectsPeriod() {
+        new MetricsReporter(System.out, false, 0);
+    }
+}
@@ -0,0 +1,117 @@
+package test;
+
+import main.java.Board;
+import main.java.Color;
+import main.java.Move;
+import main.java.Symmetry;
+import main.java.book.BookMove;
+import main.java.book.OpeningBook;
+import main.java.book.OpeningBookBuilder;
+import main.java.engine.Search;
+import main.java.engine.SearchResult;
+import main.java.sim.Game;
+import main.java.sim.RandomPlayer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * This class tests the opening book.
+ */
+
+public class OpeningBookTest {
+
+    private static final int GAMES = 300;
+
+    private Path file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = Files.createTempFile("entropy", ".book");
+        OpeningBookBuilder builder = new OpeningBookBuilder(4);
+        for (int seed = 0; seed < GAMES; seed++) {
+            builder.accept(Game.play(new RandomPlayer(seed), new RandomPlayer(-seed), 100));
+        }
+        builder.write(file, 1);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void testStartPositionCountsEveryGame() throws IOException {
+        try (OpeningBook book = OpeningBook.open(file, 1)) {
+            Board start = new Board();
+            List<BookMove> moves = book.lookup(start, Color.WHITE);
+            int games = 0;
+            int[] legal = new int[Board.MAX_MOVES];
+            int count = start.generateMoves(Color.WHITE, legal);
+            for (BookMove move : moves) {
+                games += move.getGames();
+                assertTrue(move.getWins() + move.getDraws() <= move.getGames());
+                boolean found = false;
+                for (int i = 0; i < count; i++) {
+                    found |= legal[i] == move.getMove();
+                }
+                assertTrue(found);
+            }
+            assertEquals(GAMES, games);
+            assertEquals(4, book.getMaxPlies());
+            assertTrue(book.lookup(start, Color.BLACK).isEmpty());
+        }
+    }
+
+    @Test
+    public void testMirroredPositionsShareEntries() throws IOException {
+        try (OpeningBook book = OpeningBook.open(file, 1)) {
+            Board board = new Board();
+            BookMove first = book.lookup(board, Color.WHITE).get(0);
+            board.makeMove(first.getMove());
+            Board mirrored = new Board(Symmetry.transform(Symmetry.MIRROR_COLUMNS, board.getPieces(Color.BLACK)),
+                    Symmetry.transform(Symmetry.MIRROR_COLUMNS, board.getPieces(Color.WHITE)));
+            List<BookMove> moves = book.lookup(board, Color.BLACK);
+            List<BookMove> mirroredMoves = book.lookup(mirrored, Color.BLACK);
+            assertEquals(moves.size(), mirroredMoves.size());
+            int games = 0;
+            int mirroredGames = 0;
+            for (int i = 0; i < moves.size(); i++) {
+                games += moves.get(i).getGames();
+                mirroredGames += mirroredMoves.get(i).getGames();
+            }
+            assertEquals(games, mirroredGames);
+        }
+    }
+
+    @Test
+    public void testSearchPlaysBookMove() throws IOException {
+        try (OpeningBook book = OpeningBook.open(file, 2)) {
+            Search search = new Search();
+            search.setOpeningBook(book);
+            SearchResult result = search.searchDepth(new Board(), Color.WHITE, 6);
+            assertEquals(0, result.getDepth());
+            assertEquals(book.bestMove(new Board(), Color.WHITE), result.getBestMove());
+            assertTrue(result.getBestMove() != Move.PASS);
+
+            // Out of the book, the search runs as usual
+            Board board = new Board(Symmetry.transform(Symmetry.TRANSPOSE, new Board().getPieces(Color.BLACK)),
+                    Symmetry.transform(Symmetry.TRANSPOSE, new Board().getPieces(Color.WHITE)));
+            assertTrue(book.lookup(board, Color.BLACK).isEmpty());
+            assertEquals(3, search.searchDepth(board, Color.BLACK, 3).getDepth());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOpenRejectsOtherFiles() throws IOException {
+        Files.write(file, new byte[40]);
+        OpeningBook.open(file, 1).close();
+    }
+}
@@ -0,0 +1,117 @@
+package test;
+
+import main.java.Board;
+import main.java.Color;
+import main.java.sim.Perft;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class tests the Perft class against move counts of the original board.
+ */
+
+public class PerftTest {
+
+    // Leaf counts from the standard setup, WHITE to move, at depths 1 to 7. They
+    // were counted with the Piece[][] board the game was first written with, so
+    // any faster Board has to reproduce them.
+    private static final long[] REFERENCE_COUNTS = {17, 257, 3153, 36712, 474408, 5851413, 75469835};
+
+    @Test
+    public void testReferenceCounts() {
+        for (int depth = 1; depth <= 6; depth++) {
+            assertEquals("depth " + depth, REFERENCE_COUNTS[depth - 1],
+                    Perft.perft(new Board(), Color.WHITE, depth));
+        }
+    }
+
+    @Test
+    public void testDepthZero() {
+        assertEquals(1, Perft.perft(new Board(), Color.WHITE, 0));
+    }
+
+    @Test
+    public void testParallelMatchesSequential() {
+        assertEquals(REFERENCE_COUNTS[4], Perft.parallelPerft(new Board(), Color.WHITE, 5, 3));
+    }
+
+    @Test
+    public void testDivideSumsToPerft() {
+        List<Perft.MoveCount> counts = Perft.divide(new Board(), Color.WHITE, 4);
+        assertEquals(REFERENCE_COUNTS[0], counts.size());
+        long total = 0;
+        for (Perft.MoveCount count : counts) {
+            total += count.getNodes();
+        }
+        assertEquals(REFERENCE_COUNTS[3], total);
+    }
+
+    @Test
+    public void testLeavesBoardUnchanged() {
+        Board board = new Board();
+        board.movePiece(1, 0, 2, 0);
+        Board copy = new Board(board);
+        Perft.perft(board, Color.BLACK, 4);
+        Perft.divide(board, Color.BLACK, 3);
+        assertEquals(copy, board);
+    }
+
+    @Test
+    public void testMatchesListApiFromOtherPositions() {
+        Board board = new Board();
+        board.movePiece(1, 0, 2, 0); // Leaves a black piece in check
+        for (Color player : Color.values()) {
+            for (int depth = 1; depth <= 4; depth++) {
+                assertEquals(player + " depth " + depth, listPerft(board, player, depth),
+                        Perft.perft(board, player, depth));
+            }
+        }
+    }
+
+    /**
+     * Counts the same tree through the list methods of Board, choosing moves the
+     * way StartTwoPlayerGame checks them.
+     */
+    private static long listPerft(Board board, Color player, int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        List<Point> rescue = new ArrayList<>();
+        for (Point piece : board.inCheck(player)) {
+            rescue.addAll(board.getSurroundingPoints(piece.x, piece.y));
+        }
+        List<Point[]> moves = new ArrayList<>();
+        for (int row = 0; row < 5; row++) {
+            for (int col = 0; col < 5; col++) {
+                if (board.getPieceAtSquare(row, col) == null
+                        || board.getPieceAtSquare(row, col).getColor() != player
+                        || !board.isMovable(row, col)) {
+                    continue;
+                }
+                for (Point end : board.legalMoves(row, col)) {
+                    if (rescue.isEmpty() || rescue.contains(end)) {
+                        moves.add(new Point[] {new Point(row, col), end});
+                    }
+                }
+            }
+        }
+        if (moves.isEmpty()) {
+            return listPerft(board, player.opposite(), depth - 1);
+        } else if (depth == 1) {
+            return moves.size();
+        }
+        long nodes = 0;
+        for (Point[] move : moves) {
+            Board child = new Board(board);
+            child.movePiece(move[0].x, move[0].y, move[1].x, move[1].y);
+            if (child.checkWin() != player) {
+                nodes += listPerft(child, player.opposite(), depth - 1);
+            }
+        }
+        return nodes;
+    }
+}
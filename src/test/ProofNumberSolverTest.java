@@ -0,0 +1,177 @@
+package test;
+
+import main.java.Board;
+import main.java.Color;
+import main.java.Geometry;
+import main.java.Move;
+import main.java.engine.Search;
+import main.java.engine.SearchResult;
+import main.java.solve.PositionIndexer;
+import main.java.solve.ProofNumberSolver;
+import main.java.solve.ProofTable;
+import main.java.solve.SolvedPositions;
+import main.java.solve.Tablebase;
+import main.java.solve.TablebaseBuilder;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * This class tests the proof-number solver, its table checkpoints and the
+ * solved positions it exports.
+ */
+
+public class ProofNumberSolverTest {
+
+    private static final Geometry STANDARD = Geometry.of(Board.BOARD_SIZE);
+
+    @Test
+    public void testValuesMatchTablebase() {
+        checkAgainstTablebase(3, 3, 1, 150);
+    }
+
+    @Test
+    public void testParallelValuesMatchTablebase() {
+        checkAgainstTablebase(3, 3, 3, 120);
+    }
+
+    @Test
+    public void testLoneBlackPieceWinsByPassing() {
+        try (ProofNumberSolver solver = new ProofNumberSolver(new ProofTable(1), 1)) {
+            Board board = new Board(STANDARD, 1L, 3L << 10);
+            assertEquals(Tablebase.WIN, solver.solve(board, Color.BLACK, Long.MAX_VALUE));
+            assertEquals(Move.PASS, solver.bestMove(board, Color.BLACK));
+        }
+    }
+
+    @Test
+    public void testCheckpointResumesSolve() throws IOException {
+        Board board = hardPosition(Tablebase.LOSS);
+        Path file = Files.createTempFile("entropy", ".pnt");
+        try {
+            long nodes;
+            try (ProofNumberSolver solver = new ProofNumberSolver(new ProofTable(1), 1)) {
+                solver.setCheckpoint(file, 60_000);
+                assertEquals(Tablebase.LOSS, solver.solve(board, Color.WHITE, Long.MAX_VALUE));
+                nodes = solver.getNodes();
+            }
+            try (ProofNumberSolver resumed = new ProofNumberSolver(ProofTable.read(file), 2)) {
+                assertEquals(Tablebase.LOSS, resumed.solve(board, Color.WHITE, Long.MAX_VALUE));
+                // Both proofs are settled at the root from the table
+                assertTrue(resumed.getNodes() < nodes);
+                assertTrue(resumed.getNodes() <= 2 * resumed.getThreads());
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testReadRejectsOtherFiles() throws IOException {
+        Path file = Files.createTempFile("entropy", ".pnt");
+        try {
+            Files.write(file, new byte[64]);
+            ProofTable.read(file);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testExportedWinsAnswerSearch() throws IOException {
+        Board board = hardPosition(Tablebase.WIN);
+        Path file = Files.createTempFile("entropy", ".ens");
+        try {
+            int move;
+            try (ProofNumberSolver solver = new ProofNumberSolver(new ProofTable(1), 1)) {
+                assertEquals(Tablebase.WIN, solver.solve(board, Color.WHITE, Long.MAX_VALUE));
+                move = solver.bestMove(board, Color.WHITE);
+                assertNotEquals(Move.PASS, move);
+                assertTrue(solver.getTable().export(file) > 1);
+            }
+            try (SolvedPositions solved = SolvedPositions.open(file)) {
+                assertEquals(Tablebase.WIN, solved.probe(board, Color.WHITE));
+                assertEquals(move, solved.bestMove(board, Color.WHITE));
+                Board after = new Board(board);
+                after.makeMove(move);
+                assertTrue(after.checkWin() == Color.WHITE
+                        || solved.probe(after, Color.BLACK) == Tablebase.LOSS);
+                assertEquals(SolvedPositions.UNKNOWN, solved.probe(new Board(), Color.WHITE));
+
+                Search search = new Search();
+                search.setSolvedPositions(solved);
+                SearchResult result = search.search(board, Color.WHITE, 20, Long.MAX_VALUE);
+                assertEquals(0, result.getDepth());
+                assertEquals(move, result.getBestMove());
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testStopsAtTimeLimit() {
+        try (ProofNumberSolver solver = new ProofNumberSolver(new ProofTable(1), 2)) {
+            assertEquals(ProofNumberSolver.UNKNOWN, solver.solve(new Board(), Color.WHITE, 50));
+            assertTrue(solver.getNodes() > 0);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsOtherBoardSizes() {
+        try (ProofNumberSolver solver = new ProofNumberSolver(new ProofTable(1), 1)) {
+            solver.solve(new Board(Geometry.of(4)), Color.WHITE, Long.MAX_VALUE);
+        }
+    }
+
+    /**
+     * Solves evenly spaced positions of a material signature and compares them with the tablebase.
+     */
+    private static void checkAgainstTablebase(int blackPieces, int whitePieces, int threads, int samples) {
+        TablebaseBuilder builder = new TablebaseBuilder(blackPieces, whitePieces, 1);
+        builder.solve();
+        PositionIndexer indexer = builder.getIndexer();
+        long step = indexer.size() / samples;
+        int[] counts = new int[3];
+        try (ProofNumberSolver solver = new ProofNumberSolver(new ProofTable(4), threads)) {
+            for (long index = 0; index < indexer.size(); index += step) {
+                PositionIndexer.Cursor cursor = indexer.cursor(index);
+                int expected = builder.value(cursor.getBlack(), cursor.getWhite(), cursor.getPlayer());
+                Board board = new Board(STANDARD, cursor.getBlack(), cursor.getWhite());
+                assertEquals(expected, solver.solve(board, cursor.getPlayer(), Long.MAX_VALUE));
+                counts[expected]++;
+            }
+        }
+        // The sample covers every value
+        assertTrue(counts[Tablebase.WIN] > 0 && counts[Tablebase.LOSS] > 0 && counts[Tablebase.DRAW] > 0);
+    }
+
+    /**
+     * Returns a 3 against 3 position, WHITE to move, with the given value that
+     * takes the solver more than a few nodes.
+     */
+    private static Board hardPosition(int value) {
+        TablebaseBuilder builder = new TablebaseBuilder(3, 3, 1);
+        builder.solve();
+        PositionIndexer.Cursor cursor = builder.getIndexer().cursor(0);
+        try (ProofNumberSolver solver = new ProofNumberSolver(new ProofTable(1), 1)) {
+            while (true) {
+                if (cursor.getPlayer() == Color.WHITE
+                        && builder.value(cursor.getBlack(), cursor.getWhite(), Color.WHITE) == value) {
+                    Board board = new Board(STANDARD, cursor.getBlack(), cursor.getWhite());
+                    long before = solver.getNodes();
+                    solver.solve(board, Color.WHITE, Long.MAX_VALUE);
+                    if (solver.getNodes() - before > 100) {
+                        return board;
+                    }
+                }
+                cursor.next();
+            }
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package test;
+
+import main.java.Board;
+import main.java.Color;
+import main.java.Move;
+import main.java.engine.MobilityEvaluator;
+import main.java.engine.MonteCarloResult;
+import main.java.engine.MonteCarloSearch;
+import main.java.engine.ParallelSearch;
+import main.java.engine.ParallelSearchResult;
+import main.java.engine.Search;
+import main.java.engine.SearchResult;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * This class tests the Search class.
+ */
+
+public class SearchTest {
+
+    private static long squares(int... rowCols) {
+        long mask = 0;
+        for (int i = 0; i < rowCols.length; i += 2) {
+            mask |= 1L << (rowCols[i] * 5 + rowCols[i + 1]);
+        }
+        return mask;
+    }
+
+    private static boolean isLegal(Board board, Color player, int move) {
+        int[] moves = new int[Board.MAX_MOVES];
+        int count = board.generateMoves(player, moves);
+        for (int i = 0; i < count; i++) {
+            if (moves[i] == move) {
+                return true;
+            }
+        }
+        return count == 0 && move == Move.PASS;
+    }
+
+    @Test
+    public void testFixedDepthFromStart() {
+        Board board = new Board();
+        SearchResult result = new Search().searchDepth(board, Color.WHITE, 4);
+        assertEquals(4, result.getDepth());
+        assertEquals(4, result.getPrincipalVariation().length);
+        assertTrue(isLegal(board, Color.WHITE, result.getBestMove()));
+        assertEquals(new Board(), board);
+    }
+
+    @Test
+    public void testPrincipalVariationIsPlayable() {
+        Board board = new Board();
+        SearchResult result = new Search().searchDepth(board, Color.WHITE, 5);
+        Color player = Color.WHITE;
+        for (int move : result.getPrincipalVariation()) {
+            assertTrue(isLegal(board, player, move));
+            board.makeMove(move);
+            player = player.opposite();
+        }
+    }
+
+    @Test
+    public void testFixedTime() {
+        SearchResult result = new Search().searchTime(new Board(), Color.WHITE, 20);
+        assertTrue(result.getDepth() >= 1);
+        assertTrue(result.getElapsedMillis() < 1000);
+    }
+
+    @Test
+    public void testPassesWhenNoPieceInCheckCanBeRescued() {
+        // The BLACK piece in the corner is in check and every square around it is taken
+        long black = squares(0, 0, 3, 0, 3, 1, 4, 0, 4, 1, 4, 2, 4, 3);
+        long white = squares(0, 1, 1, 0, 1, 1, 0, 3, 0, 4, 1, 3, 1, 4);
+        Board board = new Board(black, white);
+        assertTrue(board.mustPass(Color.BLACK));
+
+        SearchResult result = new Search().searchDepth(board, Color.BLACK, 3);
+        assertEquals(Move.PASS, result.getBestMove());
+    }
+
+    @Test
+    public void testParallelSearch() {
+        Board board = new Board();
+        try (ParallelSearch search = new ParallelSearch(new MobilityEvaluator(), 3, 4)) {
+            ParallelSearchResult result = search.search(board, Color.WHITE, 5, Long.MAX_VALUE);
+            assertTrue(result.getBest().getDepth() >= 5);
+            assertTrue(isLegal(board, Color.WHITE, result.getBestMove()));
+            assertEquals(3, result.getThreads());
+            for (int i = 0; i < 3; i++) {
+                assertTrue(result.getNodes(i) > 0);
+            }
+        }
+    }
+
+    @Test
+    public void testMonteCarloSearch() {
+        Board board = new Board();
+        try (MonteCarloSearch search = new MonteCarloSearch(2, 1 << 16, Math.sqrt(2), true)) {
+            MonteCarloResult result = search.search(board, Color.WHITE, Long.MAX_VALUE, 2000);
+            assertEquals(2000, result.getPlayouts());
+            assertTrue(isLegal(board, Color.WHITE, result.getBestMove()));
+            assertTrue(result.getNodes() > 1);
+            assertEquals(new Board(), board);
+        }
+    }
+
+    @Test
+    public void testMonteCarloSearchPasses() {
+        long black = squares(0, 0, 3, 0, 3, 1, 4, 0, 4, 1, 4, 2, 4, 3);
+        long white = squares(0, 1, 1, 0, 1, 1, 0, 3, 0, 4, 1, 3, 1, 4);
+        try (MonteCarloSearch search = new MonteCarloSearch(1)) {
+            MonteCarloResult result = search.search(new Board(black, white), Color.BLACK, Long.MAX_VALUE, 100);
+            assertEquals(Move.PASS, result.getBestMove());
+        }
+    }
+}
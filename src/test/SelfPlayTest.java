@@ -0,0 +1,75 @@
+package test;
+
+import main.java.Board;
+import main.java.Color;
+import main.java.Move;
+import main.java.sim.Game;
+import main.java.sim.GameResult;
+import main.java.sim.GameStatistics;
+import main.java.sim.RandomPlayer;
+import main.java.sim.SelfPlayRunner;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class tests the headless game runner.
+ */
+
+public class SelfPlayTest {
+
+    @Test
+    public void testGameFollowsTurnRules() {
+        GameResult result = Game.play(new RandomPlayer(1), new RandomPlayer(2), 300);
+        Board board = result.getStart();
+        assertEquals(new Board(), board);
+        Color player = result.getFirstPlayer();
+        int[] moves = new int[Board.MAX_MOVES];
+        for (int ply = 0; ply < result.getLength(); ply++) {
+            int count = board.generateMoves(player, moves);
+            int move = result.getMove(ply);
+            if (count == 0) {
+                assertEquals(Move.PASS, move);
+            } else {
+                boolean legal = false;
+                for (int i = 0; i < count; i++) {
+                    legal |= moves[i] == move;
+                }
+                assertTrue(legal);
+            }
+            board.makeMove(move);
+            player = player.opposite();
+        }
+        if (result.getEnding() == GameResult.Ending.FROZEN) {
+            assertEquals(Move.PASS, result.getMove(result.getLength() - 1));
+            assertEquals(Move.PASS, result.getMove(result.getLength() - 2));
+            assertNull(result.getWinner());
+        } else if (result.getEnding() == GameResult.Ending.PLY_LIMIT) {
+            assertEquals(300, result.getLength());
+        }
+    }
+
+    @Test
+    public void testRunnerWithValidation() {
+        SelfPlayRunner runner = new SelfPlayRunner(2, RandomPlayer::new, RandomPlayer::new, 200, 1.0);
+        assertEquals(20, runner.run(20, result -> { }).getGames());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRunnerRejectsValidationRate() {
+        new SelfPlayRunner(1, RandomPlayer::new, RandomPlayer::new, 200, 1.5);
+    }
+
+    @Test
+    public void testRunnerPlaysEveryGame() {
+        AtomicLong streamed = new AtomicLong();
+        SelfPlayRunner runner = new SelfPlayRunner(3, RandomPlayer::new, RandomPlayer::new, 200);
+        GameStatistics statistics = runner.run(500, result -> streamed.incrementAndGet());
+        assertEquals(500, statistics.getGames());
+        assertEquals(500, streamed.get());
+        assertEquals(500, statistics.getDraws() + statistics.getWins(Color.WHITE) + statistics.getWins(Color.BLACK));
+    }
+}
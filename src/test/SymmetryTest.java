@@ -0,0 +1,118 @@
+package test;
+
+import main.java.Board;
+import main.java.Color;
+import main.java.Symmetry;
+import main.java.Zobrist;
+import main.java.sim.Perft;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.SplittableRandom;
+import java.util.Set;
+
+/**
+ * This class tests the Symmetry class.
+ */
+
+public class SymmetryTest {
+
+    @Test
+    public void testInverseUndoesTransform() {
+        long squares = 0b1011001110001011010110101L;
+        for (int t = 0; t < Symmetry.TRANSFORMS; t++) {
+            long image = Symmetry.transform(t, squares);
+            assertEquals(Long.bitCount(squares), Long.bitCount(image));
+            assertEquals(squares, Symmetry.transform(Symmetry.inverse(t), image));
+        }
+        // The corner (0, 1) turns to (1, 4) under a quarter turn clockwise
+        assertEquals(1L << 9, Symmetry.transform(Symmetry.ROTATE_90, 1L << 1));
+    }
+
+    @Test
+    public void testAllImagesShareCanonicalForm() {
+        Board board = randomPosition(7);
+        long black = board.getPieces(Color.BLACK);
+        long white = board.getPieces(Color.WHITE);
+        long canonical = Symmetry.canonical(black, white, Color.BLACK);
+        for (int t = 0; t < Symmetry.TRANSFORMS; t++) {
+            long imageBlack = Symmetry.transform(t, black);
+            long imageWhite = Symmetry.transform(t, white);
+            assertEquals(canonical, Symmetry.canonical(imageBlack, imageWhite, Color.BLACK));
+            assertEquals(Symmetry.canonicalWithColorSwap(black, white, Color.BLACK),
+                    Symmetry.canonicalWithColorSwap(imageWhite, imageBlack, Color.WHITE));
+        }
+        assertTrue(canonical != Symmetry.canonical(black, white, Color.WHITE));
+    }
+
+    @Test
+    public void testTransformsCommuteWithMoves() {
+        for (int seed = 0; seed < 20; seed++) {
+            Board board = randomPosition(seed);
+            for (int t = 0; t < Symmetry.TRANSFORMS; t++) {
+                Board image = new Board(Symmetry.transform(t, board.getPieces(Color.BLACK)),
+                        Symmetry.transform(t, board.getPieces(Color.WHITE)));
+                for (Color player : Color.values()) {
+                    assertEquals(moveSet(board, player, t), moveSet(image, player, Symmetry.IDENTITY));
+                }
+                assertEquals(board.checkWin(), image.checkWin());
+            }
+            assertEquals(Perft.perft(board, Color.WHITE, 3), Perft.perft(new Board(
+                    Symmetry.transform(Symmetry.ANTI_TRANSPOSE, board.getPieces(Color.BLACK)),
+                    Symmetry.transform(Symmetry.ANTI_TRANSPOSE, board.getPieces(Color.WHITE))), Color.WHITE, 3));
+        }
+    }
+
+    @Test
+    public void testStartIsColorSymmetric() {
+        Board start = new Board();
+        long black = start.getPieces(Color.BLACK);
+        long white = start.getPieces(Color.WHITE);
+        assertEquals(white, Symmetry.transform(Symmetry.MIRROR_ROWS, black));
+        assertEquals(Symmetry.canonicalWithColorSwap(black, white, Color.WHITE),
+                Symmetry.canonicalWithColorSwap(black, white, Color.BLACK));
+    }
+
+    @Test
+    public void testPackAndHash() {
+        Board board = randomPosition(3);
+        long packed = Symmetry.pack(board.getPieces(Color.BLACK), board.getPieces(Color.WHITE), Color.BLACK);
+        assertEquals(board.getPieces(Color.BLACK), Symmetry.packedBlack(packed));
+        assertEquals(board.getPieces(Color.WHITE), Symmetry.packedWhite(packed));
+        assertEquals(Color.BLACK, Symmetry.packedPlayer(packed));
+        assertEquals(Zobrist.key(board, Color.BLACK), Symmetry.hash(packed));
+    }
+
+    /**
+     * Returns the moves of a position, mapped through a transform.
+     */
+    private static Set<Integer> moveSet(Board board, Color player, int transform) {
+        int[] moves = new int[Board.MAX_MOVES];
+        int count = board.generateMoves(player, moves);
+        Set<Integer> result = new HashSet<>();
+        for (int i = 0; i < count; i++) {
+            result.add(Symmetry.transformMove(transform, moves[i]));
+        }
+        return result;
+    }
+
+    /**
+     * Plays random moves from the standard setup.
+     */
+    private static Board randomPosition(long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        Board board = new Board();
+        Color player = Color.WHITE;
+        int[] moves = new int[Board.MAX_MOVES];
+        for (int ply = 0; ply < 12 && board.checkWin() == null; ply++) {
+            int count = board.generateMoves(player, moves);
+            if (count > 0) {
+                board.makeMove(moves[random.nextInt(count)]);
+            }
+            player = player.opposite();
+        }
+        return board;
+    }
+}
@@ -0,0 +1,119 @@
+package test;
+
+import main.java.Board;
+import main.java.Color;
+import main.java.Move;
+import main.java.solve.PositionIndexer;
+import main.java.solve.Tablebase;
+import main.java.solve.TablebaseBuilder;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * This class tests the retrograde tablebase.
+ */
+
+public class TablebaseTest {
+
+    @Test
+    public void testIndexerNumbersPositionsInCursorOrder() {
+        PositionIndexer indexer = new PositionIndexer(3, 2);
+        PositionIndexer.Cursor cursor = indexer.cursor(0);
+        for (long index = 0; index < indexer.size(); index++) {
+            assertEquals(index, indexer.index(cursor.getBlack(), cursor.getWhite(), cursor.getPlayer()));
+            assertEquals(0, cursor.getBlack() & cursor.getWhite());
+            assertTrue(indexer.covers(cursor.getBlack(), cursor.getWhite()));
+            if (index + 1 < indexer.size()) {
+                cursor.next();
+            }
+        }
+        assertEquals(2300L * 231 * 2, indexer.size());
+        PositionIndexer.Cursor middle = indexer.cursor(123457);
+        assertEquals(123457, indexer.index(middle.getBlack(), middle.getWhite(), middle.getPlayer()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIndexerRejectsTooManyPieces() {
+        new PositionIndexer(13, 13);
+    }
+
+    @Test
+    public void testValuesFollowFromMoves() {
+        TablebaseBuilder builder = new TablebaseBuilder(2, 2, 2);
+        builder.solve();
+        PositionIndexer indexer = builder.getIndexer();
+        PositionIndexer.Cursor cursor = indexer.cursor(0);
+        int[] moves = new int[Board.NUM_SQUARES * 2];
+        for (long index = 0; index < indexer.size(); index++) {
+            long black = cursor.getBlack();
+            long white = cursor.getWhite();
+            Color player = cursor.getPlayer();
+            int value = builder.value(black, white, player);
+            long own = player == Color.BLACK ? black : white;
+            int count = Board.generateMoves(own, black ^ white ^ own, moves);
+            if (count > 0) {
+                boolean anyWin = false;
+                boolean allLost = true;
+                for (int i = 0; i < count; i++) {
+                    long fromTo = (1L << Move.from(moves[i])) | (1L << Move.to(moves[i]));
+                    long childBlack = player == Color.BLACK ? black ^ fromTo : black;
+                    long childWhite = player == Color.WHITE ? white ^ fromTo : white;
+                    int child = Board.checkWin(childBlack, childWhite) == player ? Tablebase.LOSS
+                            : builder.value(childBlack, childWhite, player.opposite());
+                    anyWin |= child == Tablebase.LOSS;
+                    allLost &= child == Tablebase.WIN;
+                }
+                assertEquals(anyWin ? Tablebase.WIN : allLost ? Tablebase.LOSS : Tablebase.DRAW, value);
+            }
+            if (index + 1 < indexer.size()) {
+                cursor.next();
+            }
+        }
+    }
+
+    @Test
+    public void testLoneBlackPieceWinsByPassing() {
+        TablebaseBuilder builder = new TablebaseBuilder(1, 2, 1);
+        builder.solve();
+        // BLACK cannot move a lone piece, passes, and is named by checkWin
+        assertEquals(Tablebase.WIN, builder.value(1L, 3L << 10, Color.BLACK));
+    }
+
+    @Test
+    public void testFileRoundTrip() throws IOException {
+        TablebaseBuilder builder = new TablebaseBuilder(2, 3, 1);
+        builder.solve();
+        Path file = Files.createTempFile("entropy", ".etb");
+        try {
+            builder.write(file);
+            try (Tablebase tablebase = Tablebase.open(file)) {
+                PositionIndexer.Cursor cursor = tablebase.getIndexer().cursor(0);
+                for (long index = 0; index < tablebase.getIndexer().size(); index++) {
+                    assertEquals(builder.value(cursor.getBlack(), cursor.getWhite(), cursor.getPlayer()),
+                            tablebase.probe(cursor.getBlack(), cursor.getWhite(), cursor.getPlayer()));
+                    if (index + 1 < tablebase.getIndexer().size()) {
+                        cursor.next();
+                    }
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOpenRejectsOtherFiles() throws IOException {
+        Path file = Files.createTempFile("entropy", ".etb");
+        try {
+            Files.write(file, new byte[64]);
+            Tablebase.open(file).close();
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
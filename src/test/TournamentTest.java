@@ -0,0 +1,159 @@
+package test;
+
+import main.java.Board;
+import main.java.Color;
+import main.java.match.Engine;
+import main.java.match.MatchResult;
+import main.java.match.Sprt;
+import main.java.match.Tournament;
+import main.java.sim.GameResult;
+import main.java.sim.RandomPlayer;
+import org.junit.Test;
+import static main.java.match.Sprt.Decision.CONTINUE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class tests the Tournament class and its Elo and SPRT statistics.
+ */
+
+public class TournamentTest {
+
+    @Test
+    public void testEloOfScores() {
+        assertEquals(0, new MatchResult("a", "b", 10, 0, 10, 0, null, CONTINUE).getElo(), 1e-9);
+        assertEquals(0, new MatchResult("a", "b", 0, 20, 0, 0, null, CONTINUE).getElo(), 1e-9);
+        // A 3:1 score is 400 * log10(3) Elo
+        assertEquals(190.85, new MatchResult("a", "b", 60, 0, 20, 0, null, CONTINUE).getElo(), 0.01);
+        assertEquals(-190.85, new MatchResult("a", "b", 20, 0, 60, 0, null, CONTINUE).getElo(), 0.01);
+        assertEquals(Double.POSITIVE_INFINITY, new MatchResult("a", "b", 5, 0, 0, 0, null, CONTINUE).getElo(), 0);
+    }
+
+    @Test
+    public void testEloErrorShrinksWithGames() {
+        double few = new MatchResult("a", "b", 55, 10, 35, 0, null, CONTINUE).getEloError();
+        double many = new MatchResult("a", "b", 5500, 1000, 3500, 0, null, CONTINUE).getEloError();
+        assertTrue(few > 0 && many > 0);
+        assertEquals(10, few / many, 0.5);
+        assertEquals(Double.POSITIVE_INFINITY, new MatchResult("a", "b", 2, 0, 0, 0, null, CONTINUE).getEloError(), 0);
+    }
+
+    @Test
+    public void testSprtDecisions() {
+        Sprt sprt = new Sprt(0, 20, 0.05, 0.05);
+        assertEquals(Math.log(0.05 / 0.95), sprt.getLowerBound(), 1e-12);
+        assertEquals(Math.log(0.95 / 0.05), sprt.getUpperBound(), 1e-12);
+        assertEquals(0, sprt.llr(0, 0, 0), 0);
+        assertEquals(Sprt.Decision.CONTINUE, sprt.decide(6, 0, 4));
+        assertEquals(Sprt.Decision.H1, sprt.decide(600, 0, 400));
+        assertEquals(Sprt.Decision.H0, sprt.decide(400, 0, 600));
+        // Halfway between the hypotheses the ratio is 0
+        double halfway = (Sprt.expectedScore(0) + Sprt.expectedScore(20)) / 2;
+        assertEquals(0, sprt.llr(Math.round(halfway * 1e6), 0, Math.round((1 - halfway) * 1e6)), 0.05);
+    }
+
+    @Test
+    public void testSprtPerPair() {
+        Sprt sprt = new Sprt(0, 20, 0.05, 0.05);
+        assertEquals(0, sprt.llr(new long[5]), 0);
+        // Pairs of independent games give the ratio of the games themselves
+        double perGame = sprt.llr(120000, 0, 80000);
+        assertEquals(perGame, sprt.llr(new long[]{16000, 0, 48000, 0, 36000}), 1e-3 * perGame);
+        // Pairs that always split are even, and far more certain than their games alone
+        assertEquals(Sprt.Decision.CONTINUE, sprt.decide(100, 0, 100));
+        assertEquals(Sprt.Decision.H0, sprt.decide(new long[]{0, 0, 100, 0, 0}));
+        // A clean sweep decides, though not on its first pairs
+        assertEquals(Sprt.Decision.CONTINUE, sprt.decide(new long[]{0, 0, 0, 0, 2}));
+        assertEquals(Sprt.Decision.H1, sprt.decide(new long[]{0, 0, 0, 0, 50}));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSprtRejectsReversedHypotheses() {
+        new Sprt(5, 0, 0.05, 0.05);
+    }
+
+    @Test
+    public void testPairsShareOpeningsWithColorsSwapped() {
+        Tournament tournament = new Tournament(1, 200, 3, 42);
+        List<GameResult> games = new ArrayList<>();
+        Engine random = new Engine("random", () -> new RandomPlayer(7));
+        MatchResult result = tournament.match(random, random, 9, null, games::add);
+        assertEquals(10, result.getGames());
+        assertEquals(10, games.size());
+        for (int pair = 0; pair < 5; pair++) {
+            Board opening = tournament.opening(pair);
+            assertNotEquals(new Board(), opening);
+            assertEquals(opening, games.get(2 * pair).getStart());
+            assertEquals(opening, games.get(2 * pair + 1).getStart());
+            assertEquals(Color.BLACK, games.get(2 * pair).getFirstPlayer());
+        }
+        assertEquals(tournament.opening(3), new Tournament(4, 200, 3, 42).opening(3));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnreachableOpeningIsRejected() {
+        // Random games rarely last 5000 plies, and none of the lines of this seed does
+        Engine random = new Engine("random", () -> new RandomPlayer(7));
+        new Tournament(1, 200, 5000, 0).match(random, random, 2, null);
+    }
+
+    @Test
+    public void testSprtStopsClearMatchEarly() {
+        Tournament tournament = new Tournament(2, 60, 2, 1, true);
+        MatchResult result = tournament.match(Engine.parse("search:1"), Engine.parse("random"), 1000,
+                new Sprt(0, 50, 0.05, 0.05));
+        assertEquals(Sprt.Decision.H1, result.getDecision());
+        assertTrue(result.getGames() < 1000);
+        assertTrue(result.getAdjudicated() > 0);
+        assertTrue(result.getElo() > 0);
+    }
+
+    @Test
+    public void testAdjudicatedGamesCountForMorePiecesIsolated() {
+        List<GameResult> games = new ArrayList<>();
+        MatchResult result = new Tournament(1, 40, 0, 5, true).match(new Engine("a", () -> new RandomPlayer(1)),
+                new Engine("b", () -> new RandomPlayer(2)), 20, null, games::add);
+        long wins = 0;
+        long losses = 0;
+        for (int i = 0; i < games.size(); i++) {
+            GameResult game = games.get(i);
+            Color first = i % 2 == 0 ? Color.WHITE : Color.BLACK;
+            Color winner = game.getWinner() != null ? game.getWinner() : Tournament.adjudicate(game);
+            if (game.getWinner() == null) {
+                Board end = game.replay(game.getLength());
+                int difference = Long.bitCount(end.getIsolatedPieces(winner == null ? Color.WHITE : winner))
+                        - Long.bitCount(end.getIsolatedPieces(winner == null ? Color.BLACK : winner.opposite()));
+                assertTrue(winner == null ? difference == 0 : difference > 0);
+            }
+            wins += winner == first ? 1 : 0;
+            losses += winner == first.opposite() ? 1 : 0;
+        }
+        assertEquals(wins, result.getWins());
+        assertEquals(losses, result.getLosses());
+        assertTrue(result.getAdjudicated() > 0);
+    }
+
+    @Test
+    public void testRoundRobinPlaysEveryPairing() {
+        Tournament tournament = new Tournament(2, 100, 0, 3);
+        List<MatchResult> results = tournament.roundRobin(Arrays.asList(Engine.parse("random"),
+                Engine.parse("search:1"), Engine.parse("mcts:50")), 4, null);
+        assertEquals(3, results.size());
+        assertEquals("random", results.get(0).getFirst());
+        assertEquals("search:1", results.get(0).getSecond());
+        assertEquals("mcts:50", results.get(2).getSecond());
+        for (MatchResult result : results) {
+            assertEquals(4, result.getGames());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseRejectsUnknownEngine() {
+        Engine.parse("search:deep");
+    }
+}
@@ -0,0 +1,66 @@
+package test;
+
+import main.java.engine.TranspositionTable;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * This class tests the TranspositionTable class.
+ */
+
+public class TranspositionTableTest {
+
+    @Test
+    public void testStoreAndProbe() {
+        TranspositionTable table = new TranspositionTable(1);
+        long key = 0x123456789ABCDEFL;
+        assertEquals(0, table.probe(key));
+
+        table.store(key, 0x2C5, -29990, 12, TranspositionTable.LOWER_BOUND);
+        long data = table.probe(key);
+        assertEquals(0x2C5, TranspositionTable.move(data));
+        assertEquals(-29990, TranspositionTable.score(data));
+        assertEquals(12, TranspositionTable.depth(data));
+        assertEquals(TranspositionTable.LOWER_BOUND, TranspositionTable.bound(data));
+        assertEquals(0, table.probe(key ^ 1L << 40));
+    }
+
+    @Test
+    public void testSizeIsCappedPowerOfTwo() {
+        TranspositionTable table = new TranspositionTable(3);
+        assertTrue(table.capacity() * 16L <= 3 << 20);
+        assertEquals(1, Integer.bitCount(table.capacity()));
+    }
+
+    @Test
+    public void testReplacesShallowestEntry() {
+        TranspositionTable table = new TranspositionTable(1);
+        int buckets = table.capacity() / 4;
+        // Five keys that share a bucket of four entries
+        for (int i = 0; i < 5; i++) {
+            table.store(1 + (long) i * buckets, i, 0, 10 - i, TranspositionTable.EXACT);
+        }
+        assertEquals(0, table.probe(1 + 3L * buckets)); // depth 7 was the shallowest
+        assertEquals(10, TranspositionTable.depth(table.probe(1)));
+        assertEquals(4, TranspositionTable.move(table.probe(1 + 4L * buckets)));
+    }
+
+    @Test
+    public void testIsolatedSearchesIgnoreOlderEntries() {
+        TranspositionTable table = new TranspositionTable(1);
+        table.store(7, 1, 0, 5, TranspositionTable.EXACT);
+        table.newSearch();
+        assertEquals(5, TranspositionTable.depth(table.probe(7)));
+
+        table.setSearchesIsolated(true);
+        assertEquals(0, table.probe(7));
+        table.store(7, 2, 0, 1, TranspositionTable.EXACT);
+        assertEquals(2, TranspositionTable.move(table.probe(7)));
+        // Even after the age wraps around, an entry stays a miss for later searches
+        for (int i = 0; i < 256; i++) {
+            table.newSearch();
+            assertEquals(0, table.probe(7));
+        }
+    }
+}
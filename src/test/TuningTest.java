@@ -0,0 +1,164 @@
+package test;
+
+import main.java.Board;
+import main.java.Color;
+import main.java.engine.MobilityEvaluator;
+import main.java.engine.WeightedEvaluator;
+import main.java.sim.Game;
+import main.java.sim.GameResult;
+import main.java.sim.RandomPlayer;
+import main.java.tune.FeatureSet;
+import main.java.tune.TexelTuner;
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * This class tests the WeightedEvaluator, FeatureSet and TexelTuner classes.
+ */
+
+public class TuningTest {
+
+    @Test
+    public void testDefaultWeightsScoreLikeMobilityEvaluator() {
+        WeightedEvaluator weighted = new WeightedEvaluator();
+        MobilityEvaluator mobility = new MobilityEvaluator();
+        SplittableRandom random = new SplittableRandom(23);
+        int[] moves = new int[Board.MAX_MOVES];
+        Board board = new Board();
+        Color player = Color.WHITE;
+        for (int ply = 0; ply < 2000; ply++) {
+            assertEquals(mobility.evaluate(board, player), weighted.evaluate(board, player));
+            int count = board.generateMoves(player, moves);
+            if (count > 0) {
+                board.makeMove(moves[random.nextInt(count)]);
+            }
+            player = player.opposite();
+            if (board.checkWin() != null) {
+                board = new Board();
+                player = Color.WHITE;
+            }
+        }
+    }
+
+    @Test
+    public void testWeightsFileRoundTrip() throws IOException {
+        Path file = Files.createTempFile("weights", ".txt");
+        try {
+            WeightedEvaluator evaluator = new WeightedEvaluator(new int[] {120, -3, 45});
+            evaluator.write(file, "test");
+            assertArrayEquals(new int[] {120, -3, 45}, WeightedEvaluator.load(file).getWeights());
+
+            // Missing features keep their defaults
+            Files.write(file, "# partial\nmustPass = 7\n".getBytes(StandardCharsets.UTF_8));
+            assertArrayEquals(new int[] {100, 1, 7}, WeightedEvaluator.load(file).getWeights());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLoadRejectsUnknownFeature() throws IOException {
+        Path file = Files.createTempFile("weights", ".txt");
+        try {
+            Files.write(file, "tempo=5\n".getBytes(StandardCharsets.UTF_8));
+            WeightedEvaluator.load(file);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testFeatureSetKeepsEveryPositionOfAGame() {
+        GameResult game = Game.play(new RandomPlayer(1), new RandomPlayer(2), 40);
+        FeatureSet set = new FeatureSet(1000, 0);
+        set.accept(game);
+        assertEquals(game.getLength(), set.size());
+        assertEquals(game.getLength(), set.getSeen());
+        int[] features = new int[WeightedEvaluator.NUM_FEATURES];
+        Board board = game.getStart();
+        Color player = game.getFirstPlayer();
+        for (int ply = 0; ply < game.getLength(); ply++) {
+            WeightedEvaluator.features(board, player, features);
+            for (int feature = 0; feature < features.length; feature++) {
+                assertEquals(features[feature], set.getFeature(ply, feature));
+            }
+            byte expected = game.getWinner() == null ? FeatureSet.DRAW
+                    : game.getWinner() == player ? FeatureSet.WIN : FeatureSet.LOSS;
+            assertEquals(expected, set.getResult(ply));
+            board.makeMove(game.getMove(ply));
+            player = player.opposite();
+        }
+    }
+
+    @Test
+    public void testFeatureSetSamplesBeyondCapacity() {
+        FeatureSet set = new FeatureSet(100, 0);
+        int[] features = new int[WeightedEvaluator.NUM_FEATURES];
+        long kept = 0;
+        for (int i = 0; i < 10_000; i++) {
+            features[0] = i < 5000 ? 1 : 2;
+            set.add(features, FeatureSet.DRAW);
+        }
+        assertEquals(100, set.size());
+        assertEquals(10_000, set.getSeen());
+        for (int i = 0; i < set.size(); i++) {
+            kept += set.getFeature(i, 0) == 1 ? 1 : 0;
+        }
+        // A uniform sample keeps about as many of the first half as of the second
+        assertTrue(kept > 25 && kept < 75);
+    }
+
+    @Test
+    public void testTunerRecoversWeights() {
+        double[] truth = {150, 5, 80};
+        FeatureSet set = syntheticSet(truth, 50_000);
+        ForkJoinPool one = new ForkJoinPool(1);
+        ForkJoinPool four = new ForkJoinPool(4);
+        try {
+            double[] start = {100, 1, 0};
+            double[] fitted = new TexelTuner(four, 2).tune(set, start, 300);
+            assertArrayEquals(fitted, new TexelTuner(one, 2).tune(set, start, 300), 0.0);
+            TexelTuner tuner = new TexelTuner(four, 2);
+            assertTrue(tuner.error(set, fitted) < tuner.error(set, start));
+            assertEquals(truth[0], fitted[0], 30);
+            assertEquals(truth[1], fitted[1], 3);
+            assertEquals(truth[2], fitted[2], 30);
+            assertEquals(Arrays.toString(TexelTuner.round(new double[] {1.4, -2.6})), "[1, -3]");
+        } finally {
+            one.shutdown();
+            four.shutdown();
+        }
+    }
+
+    /**
+     * Returns positions with random features whose results are drawn from the
+     * logistic model with the given weights.
+     */
+    private static FeatureSet syntheticSet(double[] weights, int size) {
+        SplittableRandom random = new SplittableRandom(5);
+        FeatureSet set = new FeatureSet(size, 0);
+        int[] features = new int[WeightedEvaluator.NUM_FEATURES];
+        for (int i = 0; i < size; i++) {
+            features[WeightedEvaluator.ISOLATED] = random.nextInt(-3, 4);
+            features[WeightedEvaluator.MOBILITY] = random.nextInt(-20, 21);
+            features[WeightedEvaluator.MUST_PASS] = random.nextInt(-1, 2);
+            double score = 0;
+            for (int feature = 0; feature < features.length; feature++) {
+                score += weights[feature] * features[feature];
+            }
+            double win = 1 / (1 + Math.exp(-score / TexelTuner.SCALE));
+            set.add(features, random.nextDouble() < win ? FeatureSet.WIN : FeatureSet.LOSS);
+        }
+        return set;
+    }
+}